@@ -0,0 +1,83 @@
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.JsonObjectParser;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.HttpTesting;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import io.cdap.plugin.github.source.common.model.GitHubModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding a recorded page of records, with the google-http-client {@code parseAs} of a whole page and
+ * with the {@link GitHubPageReader} streaming the records one by one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class PageDecodeBenchmark {
+
+  @Param({"Forks", "Commits", "Releases"})
+  public RecordedDataset dataset;
+
+  private byte[] page;
+  private HttpRequestFactory requestFactory;
+
+  @Setup
+  public void setUp() throws IOException {
+    page = dataset.readPage();
+    requestFactory = new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) {
+        return new MockLowLevelHttpRequest() {
+          @Override
+          public LowLevelHttpResponse execute() {
+            MockLowLevelHttpResponse response = new MockLowLevelHttpResponse();
+            response.setContentType(Json.MEDIA_TYPE);
+            response.setContent(page);
+            return response;
+          }
+        };
+      }
+    }.createRequestFactory(request -> request.setParser(new JsonObjectParser(GsonFactory.getDefaultInstance())));
+  }
+
+  @Benchmark
+  public GitHubModel[] parseAs() throws IOException {
+    return requestFactory.buildGetRequest(HttpTesting.SIMPLE_GENERIC_URL).execute().parseAs(dataset.getPageClass());
+  }
+
+  @Benchmark
+  public void pageReader(Blackhole blackhole) throws IOException {
+    try (GitHubPageReader<? extends GitHubModel> reader = new GitHubPageReader<>(
+      new ByteArrayInputStream(page), StandardCharsets.UTF_8, dataset.getModelClass())) {
+      while (reader.hasNext()) {
+        blackhole.consume(reader.next());
+      }
+    }
+  }
+}
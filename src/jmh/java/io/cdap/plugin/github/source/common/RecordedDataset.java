@@ -0,0 +1,50 @@
+package io.cdap.plugin.github.source.common;
+
+import com.google.common.io.ByteStreams;
+import io.cdap.plugin.github.source.common.model.GitHubModel;
+import io.cdap.plugin.github.source.common.model.impl.Commit;
+import io.cdap.plugin.github.source.common.model.impl.Fork;
+import io.cdap.plugin.github.source.common.model.impl.Release;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Datasets the benchmarks are run with, backed by the pages recorded for the tests.
+ */
+public enum RecordedDataset {
+  Forks(Fork.class, Fork[].class, "forks.json"),
+  Commits(Commit.class, Commit[].class, "commits.json"),
+  Releases(Release.class, Release[].class, "releases.json");
+
+  private final Class<? extends GitHubModel> modelClass;
+  private final Class<? extends GitHubModel[]> pageClass;
+  private final String fileName;
+
+  RecordedDataset(Class<? extends GitHubModel> modelClass, Class<? extends GitHubModel[]> pageClass,
+                  String fileName) {
+    this.modelClass = modelClass;
+    this.pageClass = pageClass;
+    this.fileName = fileName;
+  }
+
+  public Class<? extends GitHubModel> getModelClass() {
+    return modelClass;
+  }
+
+  public Class<? extends GitHubModel[]> getPageClass() {
+    return pageClass;
+  }
+
+  /**
+   * Returns the content of the recorded page of this dataset.
+   */
+  public byte[] readPage() throws IOException {
+    try (InputStream stream = RecordedDataset.class.getClassLoader().getResourceAsStream(fileName)) {
+      if (stream == null) {
+        throw new IOException(String.format("Recorded page '%s' is not on the classpath.", fileName));
+      }
+      return ByteStreams.toByteArray(stream);
+    }
+  }
+}
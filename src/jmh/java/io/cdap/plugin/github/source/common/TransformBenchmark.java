@@ -0,0 +1,60 @@
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.json.gson.GsonFactory;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.github.source.common.model.GitHubModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures transforming the records of a recorded page into the schema of their dataset, and building that
+ * schema from the model class.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class TransformBenchmark {
+
+  @Param({"Forks", "Commits", "Releases"})
+  public RecordedDataset dataset;
+
+  private GitHubModel[] models;
+  private Schema schema;
+
+  @Setup
+  public void setUp() throws IOException {
+    models = GsonFactory.getDefaultInstance().fromInputStream(new ByteArrayInputStream(dataset.readPage()),
+                                                              StandardCharsets.UTF_8, dataset.getPageClass());
+    schema = SchemaBuilder.getSchema(dataset.name(), dataset.getModelClass());
+  }
+
+  @Benchmark
+  public void transform(Blackhole blackhole) {
+    for (GitHubModel model : models) {
+      blackhole.consume(DatasetTransformer.transform(model, schema));
+    }
+  }
+
+  @Benchmark
+  public Schema buildSchema() {
+    return SchemaBuilder.buildSchema(dataset.name(), dataset.getModelClass());
+  }
+}
@@ -27,14 +27,30 @@ import io.cdap.cdap.api.dataset.lib.KeyValue;
 import io.cdap.cdap.etl.api.Emitter;
 import io.cdap.cdap.etl.api.FailureCollector;
 import io.cdap.cdap.etl.api.PipelineConfigurer;
+import io.cdap.cdap.etl.api.StageContext;
+import io.cdap.cdap.etl.api.StageMetrics;
+import io.cdap.cdap.etl.api.batch.BatchRuntimeContext;
 import io.cdap.cdap.etl.api.batch.BatchSource;
 import io.cdap.cdap.etl.api.batch.BatchSourceContext;
 import io.cdap.plugin.common.IdUtils;
 import io.cdap.plugin.common.LineageRecorder;
 import io.cdap.plugin.github.source.common.DatasetTransformer;
+import io.cdap.plugin.github.source.common.GitHubRequestFactory;
+import io.cdap.plugin.github.source.common.GitHubRequestMetrics;
+import io.cdap.plugin.github.source.common.GitHubTokenPool;
+import io.cdap.plugin.github.source.common.GitHubWatermarkStore;
 import io.cdap.plugin.github.source.common.model.GitHubModel;
-import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
 
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -43,13 +59,29 @@ import java.util.stream.Collectors;
 @Plugin(type = BatchSource.PLUGIN_TYPE)
 @Name(GithubBatchSource.NAME)
 @Description(GithubBatchSource.DESCRIPTION)
-public class GithubBatchSource extends BatchSource<NullWritable, GitHubModel, StructuredRecord> {
+public class GithubBatchSource extends BatchSource<Text, GitHubModel, StructuredRecord> {
 
   public static final String NAME = "GithubBatchSource";
   public static final String DESCRIPTION = "Reads data from Github API.";
+  public static final String RATE_LIMIT_REMAINING_METRIC = "github.ratelimit.remaining";
+  public static final String RECORDS_METRIC = "github.records";
+  public static final String TRANSFORM_TIME_METRIC = "github.transform.time.ms";
+
+  private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
 
   private final GithubBatchSourceConfig config;
 
+  private StageMetrics metrics;
+  private GitHubRequestMetrics requestMetrics;
+  private GitHubTokenPool tokenPool;
+  private boolean multiRepository;
+  private long reportedRateLimitRemaining = -1;
+  private long lastReportNanos;
+  private long unreportedRecords;
+  private long unreportedTransformNanos;
+  private String runStartTime;
+  private List<String> repoNames;
+
   public GithubBatchSource(GithubBatchSourceConfig config) {
     this.config = config;
   }
@@ -58,8 +90,26 @@ public class GithubBatchSource extends BatchSource<NullWritable, GitHubModel, St
    * prepareRun for the given batchSourceContext.
    * @param batchSourceContext the batchSourceContext
    */
-  public void prepareRun(BatchSourceContext batchSourceContext) {
+  public void prepareRun(BatchSourceContext batchSourceContext) throws IOException {
     validateConfiguration(batchSourceContext.getFailureCollector());
+    // taken before any page is read, so that records updated during the run are read again by the next one
+    runStartTime = DateTimeFormatter.ISO_INSTANT.format(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    // resolved once per run, so that the watermarks are read and written for the repositories the planning reads
+    repoNames = GithubRepositoryResolver.resolve(config);
+    String stageKey = getStageKey(batchSourceContext);
+    GithubPlanningMetrics.forStage(stageKey)
+      .countAll(GithubPlanningMetrics.collectRequests(config.getRequestMetrics()));
+    // every resolved repository keeps its own watermark, so repositories added to a list or matched by a glob
+    // pattern are read from their start rather than from the watermark of the others
+    Map<String, String> watermarks = new HashMap<>();
+    if (config.getWatermarkDirectory() != null && config.getSince() == null) {
+      for (String repoName : repoNames) {
+        String watermark = getWatermarkStore(repoName).read();
+        if (watermark != null) {
+          watermarks.put(repoName, watermark);
+        }
+      }
+    }
     LineageRecorder lineageRecorder = new LineageRecorder(batchSourceContext, config.referenceName);
     lineageRecorder.createExternalDataset(config.getSchema());
     lineageRecorder.recordRead("Read", "Reading Github data",
@@ -67,7 +117,27 @@ public class GithubBatchSource extends BatchSource<NullWritable, GitHubModel, St
                                  .map(Schema.Field::getName)
                                  .collect(Collectors.toList()));
 
-    batchSourceContext.setInput(Input.of(config.referenceName, new GithubFormatProvider(config)));
+    batchSourceContext.setInput(Input.of(config.referenceName,
+                                         new GithubFormatProvider(config, stageKey, repoNames, watermarks)));
+  }
+
+  @Override
+  public void onRunFinish(boolean succeeded, BatchSourceContext context) {
+    super.onRunFinish(succeeded, context);
+    // the planning runs in the driver, so its metrics are reported once by the driver rather than by any reader
+    GithubPlanningMetrics.forStage(getStageKey(context)).drain()
+      .forEach((name, value) -> count(context.getMetrics(), name, value));
+    if (!succeeded || config.getWatermarkDirectory() == null) {
+      return;
+    }
+    for (String repoName : repoNames) {
+      try {
+        getWatermarkStore(repoName).write(runStartTime);
+      } catch (IOException e) {
+        throw new IllegalStateException(String.format("Failed to advance watermark of dataset '%s' of '%s/%s'",
+                                                      config.getDatasetName(), config.getRepoOwner(), repoName), e);
+      }
+    }
   }
 
   @Override
@@ -79,8 +149,96 @@ public class GithubBatchSource extends BatchSource<NullWritable, GitHubModel, St
   }
 
   @Override
-  public void transform(KeyValue<NullWritable, GitHubModel> input, Emitter<StructuredRecord> emitter) {
-    emitter.emit(DatasetTransformer.transform(input.getValue(), config.getSchema()));
+  public void initialize(BatchRuntimeContext context) throws Exception {
+    super.initialize(context);
+    metrics = context.getMetrics();
+    requestMetrics = GitHubRequestMetrics.forStage(getStageKey(context));
+    tokenPool = GitHubRequestFactory.getTokenPool(config);
+    multiRepository = config.isMultiRepository();
+    lastReportNanos = System.nanoTime();
+  }
+
+  @Override
+  public void transform(KeyValue<Text, GitHubModel> input, Emitter<StructuredRecord> emitter) {
+    long startNanos = System.nanoTime();
+    StructuredRecord record = multiRepository
+      ? DatasetTransformer.transform(input.getValue(), config.getSchema(), input.getKey().toString())
+      : DatasetTransformer.transform(input.getValue(), config.getSchema());
+    long endNanos = System.nanoTime();
+    emitter.emit(record);
+    unreportedRecords++;
+    unreportedTransformNanos += endNanos - startNanos;
+    // metrics shared with the readers of this stage are collected at most once a second
+    if (endNanos - lastReportNanos >= REPORT_INTERVAL_NANOS) {
+      report();
+      lastReportNanos = endNanos;
+    }
+  }
+
+  @Override
+  public void destroy() {
+    if (metrics != null) {
+      report();
+    }
+    super.destroy();
+  }
+
+  private void report() {
+    count(metrics, RECORDS_METRIC, unreportedRecords);
+    unreportedRecords = 0;
+    // the remainder below a millisecond is kept for the next report
+    long transformMillis = TimeUnit.NANOSECONDS.toMillis(unreportedTransformNanos);
+    count(metrics, TRANSFORM_TIME_METRIC, transformMillis);
+    unreportedTransformNanos -= TimeUnit.MILLISECONDS.toNanos(transformMillis);
+    reportRateLimit();
+    reportRequests();
+  }
+
+  /**
+   * Reports the rate limit budget left for all tokens, as last seen by the readers of this JVM.
+   */
+  private void reportRateLimit() {
+    long remaining = tokenPool.getRemaining();
+    if (remaining >= 0 && remaining != reportedRateLimitRemaining) {
+      metrics.gauge(RATE_LIMIT_REMAINING_METRIC, remaining);
+      reportedRateLimitRemaining = remaining;
+    }
+  }
+
+  /**
+   * Reports the requests made by the readers of this stage since the previous report, with their retries, their
+   * latency, the bytes of their responses and the time spent decoding them, as well as the metrics of the planning
+   * handed over to the readers with the splits.
+   */
+  private void reportRequests() {
+    for (Map.Entry<String, Long> metric : requestMetrics.drain().entrySet()) {
+      count(metrics, metric.getKey(), metric.getValue());
+    }
+  }
+
+  /**
+   * Counts the given value, which may not fit in a single count.
+   */
+  private static void count(StageMetrics stageMetrics, String name, long value) {
+    long remaining = value;
+    while (remaining > 0) {
+      int delta = (int) Math.min(remaining, Integer.MAX_VALUE);
+      stageMetrics.count(name, delta);
+      remaining -= delta;
+    }
+  }
+
+  /**
+   * Returns the key identifying the stage of the given context, which is the same for the stage when planning its
+   * input and when running in the tasks reading it.
+   */
+  private static String getStageKey(StageContext context) {
+    return String.join(":", context.getNamespace(), context.getPipelineName(), context.getStageName());
+  }
+
+  private GitHubWatermarkStore getWatermarkStore(String repoName) throws IOException {
+    return new GitHubWatermarkStore(config.getWatermarkDirectory(), config.getRepoOwner(), repoName,
+                                    config.getDatasetName(), new Configuration());
   }
 
   private void validateConfiguration(FailureCollector failureCollector) {
@@ -23,6 +23,13 @@ import io.cdap.cdap.api.annotation.Name;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.etl.api.FailureCollector;
 import io.cdap.plugin.common.ReferencePluginConfig;
+import io.cdap.plugin.github.source.common.GitHubAppTokenProvider;
+import io.cdap.plugin.github.source.common.GitHubGraphQLDataset;
+import io.cdap.plugin.github.source.common.GitHubHttpTransport;
+import io.cdap.plugin.github.source.common.GitHubRequestFactory;
+import io.cdap.plugin.github.source.common.GitHubRequestMetrics;
+import io.cdap.plugin.github.source.common.GitHubRetryPolicy;
+import io.cdap.plugin.github.source.common.GitHubSearch;
 import io.cdap.plugin.github.source.common.SchemaBuilder;
 import io.cdap.plugin.github.source.common.model.GitHubModel;
 import io.cdap.plugin.github.source.common.model.impl.Branch;
@@ -33,12 +40,22 @@ import io.cdap.plugin.github.source.common.model.impl.Content;
 import io.cdap.plugin.github.source.common.model.impl.DeployKey;
 import io.cdap.plugin.github.source.common.model.impl.Deployment;
 import io.cdap.plugin.github.source.common.model.impl.Fork;
+import io.cdap.plugin.github.source.common.model.impl.GraphQLCommit;
 import io.cdap.plugin.github.source.common.model.impl.Invitation;
+import io.cdap.plugin.github.source.common.model.impl.Issue;
 import io.cdap.plugin.github.source.common.model.impl.Page;
 import io.cdap.plugin.github.source.common.model.impl.Release;
 import io.cdap.plugin.github.source.common.model.impl.TrafficReferrer;
 import io.cdap.plugin.github.source.common.model.impl.Webhook;
 
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
 /**
@@ -54,20 +71,110 @@ public class GithubBatchSourceConfig extends ReferencePluginConfig {
   public static final String REPOSITORY_NAME_DISPLAY_NAME = "Repository name";
   public static final String DATASET_NAME = "datasetName";
   public static final String DATASET_NAME_DISPLAY_NAME = "Dataset name";
+  public static final String SEARCH_QUERY = "searchQuery";
+  public static final String SEARCH_QUERY_DISPLAY_NAME = "Search query";
   public static final String HOSTNAME = "hostname";
+  public static final String PAGES_PER_SPLIT = "pagesPerSplit";
+  public static final String PAGES_PER_SPLIT_DISPLAY_NAME = "Pages per split";
+  public static final String MAX_SPLITS = "maxSplits";
+  public static final String MAX_SPLITS_DISPLAY_NAME = "Maximum number of splits";
+  public static final String SPLIT_STRATEGY = "splitStrategy";
+  public static final String SPLIT_STRATEGY_DISPLAY_NAME = "Split strategy";
+  public static final String PAGES_SPLIT_STRATEGY = "Pages";
+  public static final String TIME_WINDOWS_SPLIT_STRATEGY = "Time windows";
+  public static final String PLANNING_THREADS = "planningThreads";
+  public static final String PLANNING_THREADS_DISPLAY_NAME = "Planning threads";
+  public static final String PLANNING_TIMEOUT = "planningTimeout";
+  public static final String PLANNING_TIMEOUT_DISPLAY_NAME = "Planning timeout";
+  public static final String CACHE_DIRECTORY = "cacheDirectory";
+  public static final String SINCE = "since";
+  public static final String SINCE_DISPLAY_NAME = "Since";
+  public static final String UNTIL = "until";
+  public static final String UNTIL_DISPLAY_NAME = "Until";
+  public static final String SHA = "sha";
+  public static final String SHA_DISPLAY_NAME = "Branch or SHA";
+  public static final String PATH = "path";
+  public static final String PATH_DISPLAY_NAME = "Path";
+  public static final String AUTHOR = "author";
+  public static final String AUTHOR_DISPLAY_NAME = "Author";
+  public static final String COMMITTER = "committer";
+  public static final String COMMITTER_DISPLAY_NAME = "Committer";
+  public static final String SORT = "sort";
+  public static final String SORT_DISPLAY_NAME = "Sort order";
+  public static final String PROTECTED_BRANCHES = "protectedBranches";
+  public static final String PROTECTED_BRANCHES_DISPLAY_NAME = "Protected branches only";
+  public static final String DEPLOYMENT_REF = "deploymentRef";
+  public static final String DEPLOYMENT_REF_DISPLAY_NAME = "Deployment ref";
+  public static final String DEPLOYMENT_TASK = "deploymentTask";
+  public static final String DEPLOYMENT_TASK_DISPLAY_NAME = "Deployment task";
+  public static final String DEPLOYMENT_ENVIRONMENT = "deploymentEnvironment";
+  public static final String DEPLOYMENT_ENVIRONMENT_DISPLAY_NAME = "Deployment environment";
+  /**
+   * Orders, which the forks can be sorted by.
+   */
+  public static final List<String> FORKS_SORT_ORDERS = Arrays.asList("newest", "oldest", "stargazers", "watchers");
+  public static final String WATERMARK_DIRECTORY = "watermarkDirectory";
+  public static final String WATERMARK_DIRECTORY_DISPLAY_NAME = "Watermark directory";
+  public static final String SELECTED_FIELDS = "selectedFields";
+  public static final String SELECTED_FIELDS_DISPLAY_NAME = "Selected fields";
+  public static final String PREFETCH_PAGES = "prefetchPages";
+  public static final String PREFETCH_PAGES_DISPLAY_NAME = "Prefetched pages";
+  public static final String MAX_CONNECTIONS = "maxConnections";
+  public static final String MAX_CONNECTIONS_DISPLAY_NAME = "Maximum connections";
+  public static final String CONNECT_TIMEOUT = "connectTimeout";
+  public static final String CONNECT_TIMEOUT_DISPLAY_NAME = "Connect timeout";
+  public static final String READ_TIMEOUT = "readTimeout";
+  public static final String READ_TIMEOUT_DISPLAY_NAME = "Read timeout";
+  public static final String MAX_ATTEMPTS = "maxAttempts";
+  public static final String MAX_ATTEMPTS_DISPLAY_NAME = "Maximum attempts";
+  public static final String BASE_RETRY_DELAY = "baseRetryDelay";
+  public static final String BASE_RETRY_DELAY_DISPLAY_NAME = "Base retry delay";
+  public static final String MAX_RETRY_DELAY = "maxRetryDelay";
+  public static final String MAX_RETRY_DELAY_DISPLAY_NAME = "Maximum retry delay";
+  public static final String APP_ID = "appId";
+  public static final String APP_ID_DISPLAY_NAME = "GitHub App ID";
+  public static final String INSTALLATION_ID = "installationId";
+  public static final String INSTALLATION_ID_DISPLAY_NAME = "Installation ID";
+  public static final String PRIVATE_KEY = "privateKey";
+  public static final String PRIVATE_KEY_DISPLAY_NAME = "Private key";
+  public static final String API = "api";
+  public static final String API_DISPLAY_NAME = "API";
+  public static final String REST_API = "REST";
+  public static final String GRAPHQL_API = "GraphQL";
 
   @Name(AUTHORIZATION_TOKEN)
-  @Description("Authorization token to access GitHub API")
+  @Description("Authorization token to access GitHub API, or a comma-separated list of tokens, which requests " +
+    "are spread across according to their remaining rate limit budget")
+  @Nullable
   @Macro
   protected String authorizationToken;
 
+  @Name(APP_ID)
+  @Description("ID of the GitHub App, which installation the requests are authorized as")
+  @Nullable
+  @Macro
+  protected String appId;
+
+  @Name(INSTALLATION_ID)
+  @Description("ID of the installation of the GitHub App in the account owning the repository")
+  @Nullable
+  @Macro
+  protected String installationId;
+
+  @Name(PRIVATE_KEY)
+  @Description("PEM encoded private key of the GitHub App")
+  @Nullable
+  @Macro
+  protected String privateKey;
+
   @Name(REPOSITORY_OWNER)
   @Description("GitHub repository owner")
   @Macro
   protected String repoOwner;
 
   @Name(REPOSITORY_NAME)
-  @Description("GitHub repository name")
+  @Description("GitHub repository name, or a comma-separated list of repository names and glob patterns like " +
+    "'cdap-*', where '*' reads all repositories of the owner")
   @Macro
   protected String repoName;
 
@@ -76,13 +183,189 @@ public class GithubBatchSourceConfig extends ReferencePluginConfig {
   @Macro
   protected String datasetName;
 
+  @Name(SEARCH_QUERY)
+  @Description("Query of the search datasets, e.g. 'is:pr is:merged label:bug', which is restricted to the " +
+    "configured repositories")
+  @Nullable
+  @Macro
+  protected String searchQuery;
+
+  @Name(API)
+  @Description("GitHub API the dataset is read with, either 'REST' or 'GraphQL', which selects nested objects " +
+    "with their records and supports the Branches, Commits and Releases datasets")
+  @Nullable
+  @Macro
+  protected String api;
+
   @Name(HOSTNAME)
   @Description("GitHub API hostname")
   @Nullable
   @Macro
   protected String hostname;
 
+  @Name(PAGES_PER_SPLIT)
+  @Description("Number of consecutive pages read by a single split")
+  @Nullable
+  @Macro
+  protected Integer pagesPerSplit;
+
+  @Name(MAX_SPLITS)
+  @Description("Maximum number of splits the dataset pages of a repository are distributed across")
+  @Nullable
+  @Macro
+  protected Integer maxSplits;
+
+  @Name(SPLIT_STRATEGY)
+  @Description("How the dataset is divided into splits, either by ranges of page numbers or, for commits, by " +
+    "windows of commit dates")
+  @Nullable
+  @Macro
+  protected String splitStrategy;
+
+  @Name(PLANNING_THREADS)
+  @Description("Maximum number of repositories, which splits are planned concurrently")
+  @Nullable
+  @Macro
+  protected Integer planningThreads;
+
+  @Name(PLANNING_TIMEOUT)
+  @Description("Timeout in seconds for planning the splits of a repository, including retries and waits for the " +
+    "rate limit to reset. No timeout by default")
+  @Nullable
+  @Macro
+  protected Integer planningTimeout;
+
+  @Name(CACHE_DIRECTORY)
+  @Description("Local or HDFS directory in which GitHub responses and their ETags are cached between runs")
+  @Nullable
+  @Macro
+  protected String cacheDirectory;
+
+  @Name(SINCE)
+  @Description("Only records updated at or after the given ISO-8601 timestamp are retrieved")
+  @Nullable
+  @Macro
+  protected String since;
+
+  @Name(UNTIL)
+  @Description("Only commits committed at or before the given ISO-8601 timestamp are retrieved")
+  @Nullable
+  @Macro
+  protected String until;
+
+  @Name(SHA)
+  @Description("Branch name or commit SHA to list the commits from, the default branch if empty, or the commit SHA " +
+    "of the deployments to retrieve")
+  @Nullable
+  @Macro
+  protected String sha;
+
+  @Name(PATH)
+  @Description("Only commits modifying the given file or directory path are retrieved")
+  @Nullable
+  @Macro
+  protected String path;
+
+  @Name(AUTHOR)
+  @Description("Only commits authored by the given GitHub login or email address are retrieved")
+  @Nullable
+  @Macro
+  protected String author;
+
+  @Name(COMMITTER)
+  @Description("Only commits committed by the given GitHub login or email address are retrieved")
+  @Nullable
+  @Macro
+  protected String committer;
+
+  @Name(SORT)
+  @Description("Order the forks are retrieved in: 'newest', 'oldest', 'stargazers' or 'watchers'")
+  @Nullable
+  @Macro
+  protected String sort;
+
+  @Name(PROTECTED_BRANCHES)
+  @Description("Whether only protected branches are retrieved")
+  @Nullable
+  @Macro
+  protected Boolean protectedBranches;
+
+  @Name(DEPLOYMENT_REF)
+  @Description("Only deployments of the given branch, tag or SHA are retrieved")
+  @Nullable
+  @Macro
+  protected String deploymentRef;
+
+  @Name(DEPLOYMENT_TASK)
+  @Description("Only deployments of the given task, e.g. 'deploy', are retrieved")
+  @Nullable
+  @Macro
+  protected String deploymentTask;
+
+  @Name(DEPLOYMENT_ENVIRONMENT)
+  @Description("Only deployments to the given environment, e.g. 'production', are retrieved")
+  @Nullable
+  @Macro
+  protected String deploymentEnvironment;
+
+  @Name(WATERMARK_DIRECTORY)
+  @Description("Local or HDFS directory in which the timestamp of the last successful run is kept " +
+    "for incremental reads")
+  @Nullable
+  @Macro
+  protected String watermarkDirectory;
+
+  @Name(SELECTED_FIELDS)
+  @Description("Comma-separated list of the top-level dataset fields to read, all fields are read if empty")
+  @Nullable
+  @Macro
+  protected String selectedFields;
+
+  @Name(PREFETCH_PAGES)
+  @Description("Number of pages a split downloads in the background ahead of the page being read, buffering them " +
+    "in memory. Disabled by default")
+  @Nullable
+  @Macro
+  protected Integer prefetchPages;
+
+  @Name(MAX_CONNECTIONS)
+  @Description("Maximum number of keep-alive connections to the GitHub API held open by a single worker")
+  @Nullable
+  @Macro
+  protected Integer maxConnections;
+
+  @Name(CONNECT_TIMEOUT)
+  @Description("Timeout in seconds for establishing a connection to the GitHub API")
+  @Nullable
+  @Macro
+  protected Integer connectTimeout;
+
+  @Name(READ_TIMEOUT)
+  @Description("Timeout in seconds for reading a response of the GitHub API")
+  @Nullable
+  @Macro
+  protected Integer readTimeout;
+
+  @Name(MAX_ATTEMPTS)
+  @Description("Maximum number of attempts of a GitHub request failing with a transient error")
+  @Nullable
+  @Macro
+  protected Integer maxAttempts;
+
+  @Name(BASE_RETRY_DELAY)
+  @Description("Base delay in seconds of the exponential backoff between attempts")
+  @Nullable
+  @Macro
+  protected Integer baseRetryDelay;
+
+  @Name(MAX_RETRY_DELAY)
+  @Description("Maximum delay in seconds of the exponential backoff between attempts")
+  @Nullable
+  @Macro
+  protected Integer maxRetryDelay;
+
   private transient Schema schema = null;
+  private transient GitHubRequestMetrics requestMetrics = null;
 
   public GithubBatchSourceConfig(String referenceName) {
     super(referenceName);
@@ -94,15 +377,77 @@ public class GithubBatchSourceConfig extends ReferencePluginConfig {
    */
   public Schema getSchema() {
     if (schema == null) {
-      schema = SchemaBuilder.buildSchema(datasetName, getDatasetClass());
+      schema = SchemaBuilder.getSchema(datasetName, getDatasetClass(), getSelectedFields(), isMultiRepository());
     }
     return schema;
   }
 
+  /**
+   * Returns the metrics, which the requests made for this source are counted into.
+   */
+  public synchronized GitHubRequestMetrics getRequestMetrics() {
+    if (requestMetrics == null) {
+      requestMetrics = new GitHubRequestMetrics();
+    }
+    return requestMetrics;
+  }
+
+  /**
+   * Counts the requests made for this source into the given metrics, e.g. the metrics of the stage reading it.
+   */
+  public synchronized void setRequestMetrics(GitHubRequestMetrics requestMetrics) {
+    this.requestMetrics = requestMetrics;
+  }
+
+  @Nullable
   public String getAuthorizationToken() {
     return authorizationToken;
   }
 
+  /**
+   * Returns the tokens of the comma or whitespace separated list of authorization tokens.
+   */
+  public List<String> getAuthorizationTokens() {
+    if (Strings.isNullOrEmpty(authorizationToken)) {
+      return Collections.emptyList();
+    }
+    return Arrays.stream(authorizationToken.split("[,\\s]+"))
+      .filter(token -> !token.isEmpty())
+      .distinct()
+      .collect(Collectors.toList());
+  }
+
+  @Nullable
+  public String getAppId() {
+    return Strings.isNullOrEmpty(appId) ? null : appId;
+  }
+
+  @Nullable
+  public String getInstallationId() {
+    return Strings.isNullOrEmpty(installationId) ? null : installationId;
+  }
+
+  @Nullable
+  public String getPrivateKey() {
+    return Strings.isNullOrEmpty(privateKey) ? null : privateKey;
+  }
+
+  /**
+   * Returns whether requests are authorized as an installation of a GitHub App.
+   */
+  public boolean isGitHubApp() {
+    return getAppId() != null;
+  }
+
+  /**
+   * Returns a value identifying the configured credentials, which keeps the cached responses of different
+   * credentials apart.
+   */
+  public String getCredentialsId() {
+    String tokens = String.join(",", getAuthorizationTokens());
+    return isGitHubApp() ? String.format("%s|app:%s:%s", tokens, getAppId(), getInstallationId()) : tokens;
+  }
+
   public String getRepoOwner() {
     return repoOwner;
   }
@@ -111,10 +456,38 @@ public class GithubBatchSourceConfig extends ReferencePluginConfig {
     return repoName;
   }
 
+  /**
+   * Returns the repository names and glob patterns of the comma-separated list of repositories.
+   */
+  public List<String> getRepoNames() {
+    if (Strings.isNullOrEmpty(repoName)) {
+      return Collections.emptyList();
+    }
+    return Arrays.stream(repoName.split(","))
+      .map(String::trim)
+      .filter(name -> !name.isEmpty())
+      .distinct()
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns whether several repositories are read, in which case every record tells the repository it was read
+   * from in the {@link SchemaBuilder#SOURCE_REPOSITORY_FIELD}.
+   */
+  public boolean isMultiRepository() {
+    List<String> repoNames = getRepoNames();
+    return repoNames.size() > 1 || repoNames.stream().anyMatch(GithubRepositoryResolver::isPattern);
+  }
+
   public String getDatasetName() {
     return datasetName;
   }
 
+  @Nullable
+  public String getSearchQuery() {
+    return Strings.isNullOrEmpty(searchQuery) ? null : searchQuery;
+  }
+
   /**
    * Returns selected datasetClass.
    * @return instance of datasetClass
@@ -131,7 +504,7 @@ public class GithubBatchSourceConfig extends ReferencePluginConfig {
         return Comment.class;
       }
       case "Commits": {
-        return Commit.class;
+        return isGraphQL() ? GraphQLCommit.class : Commit.class;
       }
       case "Contents": {
         return Content.class;
@@ -154,6 +527,9 @@ public class GithubBatchSourceConfig extends ReferencePluginConfig {
       case "Releases": {
         return Release.class;
       }
+      case GitHubSearch.ISSUES_DATASET: {
+        return Issue.class;
+      }
       case "Traffic:Referrers": {
         return TrafficReferrer.class;
       }
@@ -171,21 +547,164 @@ public class GithubBatchSourceConfig extends ReferencePluginConfig {
     return hostname;
   }
 
+  public String getApi() {
+    return Strings.isNullOrEmpty(api) ? REST_API : api;
+  }
+
+  /**
+   * Returns whether the dataset is read with the GraphQL API instead of the REST API.
+   */
+  public boolean isGraphQL() {
+    return GRAPHQL_API.equals(getApi());
+  }
+
+  @Nullable
+  public Integer getPagesPerSplit() {
+    return pagesPerSplit;
+  }
+
+  @Nullable
+  public Integer getMaxSplits() {
+    return maxSplits;
+  }
+
+  @Nullable
+  public String getCacheDirectory() {
+    return Strings.isNullOrEmpty(cacheDirectory) ? null : cacheDirectory;
+  }
+
+  @Nullable
+  public String getSince() {
+    return Strings.isNullOrEmpty(since) ? null : since;
+  }
+
+  /**
+   * Sets the timestamp the dataset is read from, used when it is taken from the stored watermark.
+   */
+  public void setSince(String since) {
+    this.since = since;
+  }
+
+  @Nullable
+  public String getUntil() {
+    return Strings.isNullOrEmpty(until) ? null : until;
+  }
+
+  /**
+   * Returns the query parameters, which the configured filters are pushed down to the dataset endpoint with,
+   * by parameter name.
+   */
+  public Map<String, String> getFilters() {
+    Map<String, String> filters = new LinkedHashMap<>();
+    putFilter(filters, GitHubRequestFactory.SHA_PARAMETER, sha);
+    putFilter(filters, GitHubRequestFactory.PATH_PARAMETER, path);
+    putFilter(filters, GitHubRequestFactory.AUTHOR_PARAMETER, author);
+    putFilter(filters, GitHubRequestFactory.COMMITTER_PARAMETER, committer);
+    putFilter(filters, GitHubRequestFactory.UNTIL_PARAMETER, until);
+    putFilter(filters, GitHubRequestFactory.SORT_PARAMETER, sort);
+    putFilter(filters, GitHubRequestFactory.REF_PARAMETER, deploymentRef);
+    putFilter(filters, GitHubRequestFactory.TASK_PARAMETER, deploymentTask);
+    putFilter(filters, GitHubRequestFactory.ENVIRONMENT_PARAMETER, deploymentEnvironment);
+    if (Boolean.TRUE.equals(protectedBranches)) {
+      filters.put(GitHubRequestFactory.PROTECTED_PARAMETER, Boolean.TRUE.toString());
+    }
+    return filters;
+  }
+
+  private static void putFilter(Map<String, String> filters, String parameter, @Nullable String value) {
+    if (!Strings.isNullOrEmpty(value)) {
+      filters.put(parameter, value.trim());
+    }
+  }
+
+  @Nullable
+  public String getWatermarkDirectory() {
+    return Strings.isNullOrEmpty(watermarkDirectory) ? null : watermarkDirectory;
+  }
+
+  public String getSplitStrategy() {
+    return Strings.isNullOrEmpty(splitStrategy) ? PAGES_SPLIT_STRATEGY : splitStrategy;
+  }
+
+  /**
+   * Returns whether the commits are split into windows of commit dates rather than ranges of pages.
+   */
+  public boolean isTimeWindowSplits() {
+    return TIME_WINDOWS_SPLIT_STRATEGY.equals(getSplitStrategy());
+  }
+
+  public int getPlanningThreads() {
+    return planningThreads == null ? GithubInputFormat.DEFAULT_PLANNING_THREADS : planningThreads;
+  }
+
+  public int getPlanningTimeout() {
+    return planningTimeout == null ? GithubInputFormat.DEFAULT_PLANNING_TIMEOUT_SECONDS : planningTimeout;
+  }
+
+  public int getPrefetchPages() {
+    return prefetchPages == null ? GithubPagePrefetcher.DEFAULT_BUFFER_SIZE : prefetchPages;
+  }
+
+  public int getMaxConnections() {
+    return maxConnections == null ? GitHubHttpTransport.DEFAULT_MAX_CONNECTIONS : maxConnections;
+  }
+
+  public int getConnectTimeout() {
+    return connectTimeout == null ? GitHubHttpTransport.DEFAULT_CONNECT_TIMEOUT_SECONDS : connectTimeout;
+  }
+
+  public int getReadTimeout() {
+    return readTimeout == null ? GitHubHttpTransport.DEFAULT_READ_TIMEOUT_SECONDS : readTimeout;
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts == null ? GitHubRetryPolicy.DEFAULT_MAX_ATTEMPTS : maxAttempts;
+  }
+
+  public int getBaseRetryDelay() {
+    return baseRetryDelay == null ? GitHubRetryPolicy.DEFAULT_BASE_DELAY_SECONDS : baseRetryDelay;
+  }
+
+  public int getMaxRetryDelay() {
+    return maxRetryDelay == null ? GitHubRetryPolicy.DEFAULT_MAX_DELAY_SECONDS : maxRetryDelay;
+  }
+
+  /**
+   * Returns the names of the top-level fields to read, or null if all of them are read.
+   */
+  @Nullable
+  public List<String> getSelectedFields() {
+    if (Strings.isNullOrEmpty(selectedFields)) {
+      return null;
+    }
+    List<String> fieldNames = Arrays.stream(selectedFields.split(","))
+      .map(String::trim)
+      .filter(fieldName -> !fieldName.isEmpty())
+      .distinct()
+      .collect(Collectors.toList());
+    return fieldNames.isEmpty() ? null : fieldNames;
+  }
+
   /**
    * Validates {@link GithubBatchSourceConfig} instance.
    */
   public void validate(FailureCollector failureCollector) {
-    if (!containsMacro(AUTHORIZATION_TOKEN) && Strings.isNullOrEmpty(authorizationToken)) {
+    if (!containsMacro(AUTHORIZATION_TOKEN) && !containsMacro(APP_ID) && getAuthorizationTokens().isEmpty()
+      && !isGitHubApp()) {
       failureCollector
-        .addFailure(String.format("%s must be specified.", AUTHORIZATION_TOKEN_DISPLAY_NAME), null)
+        .addFailure(String.format("%s must be specified.", AUTHORIZATION_TOKEN_DISPLAY_NAME),
+                    String.format("Alternatively, specify the %s to authorize as a GitHub App.", APP_ID_DISPLAY_NAME))
         .withConfigProperty(AUTHORIZATION_TOKEN);
     }
+    if (!containsMacro(APP_ID) && isGitHubApp()) {
+      validateGitHubApp(failureCollector);
+    }
     if (!containsMacro(REPOSITORY_OWNER) && Strings.isNullOrEmpty(repoOwner)) {
       failureCollector
         .addFailure(String.format("%s must be specified.", REPOSITORY_OWNER_DISPLAY_NAME), null)
         .withConfigProperty(REPOSITORY_OWNER);
     }
-    if (!containsMacro(REPOSITORY_NAME) && Strings.isNullOrEmpty(repoName)) {
+    if (!containsMacro(REPOSITORY_NAME) && getRepoNames().isEmpty()) {
       failureCollector
         .addFailure(String.format("%s must be specified.", REPOSITORY_NAME_DISPLAY_NAME), null)
         .withConfigProperty(REPOSITORY_NAME);
@@ -195,5 +714,249 @@ public class GithubBatchSourceConfig extends ReferencePluginConfig {
         .addFailure(String.format("%s must be specified.", DATASET_NAME_DISPLAY_NAME), null)
         .withConfigProperty(DATASET_NAME);
     }
+    if (!containsMacro(DATASET_NAME) && !containsMacro(SEARCH_QUERY) && GitHubSearch.isSearchDataset(datasetName)
+      && getSearchQuery() == null) {
+      failureCollector
+        .addFailure(String.format("%s must be specified for dataset '%s'.", SEARCH_QUERY_DISPLAY_NAME, datasetName),
+                    null)
+        .withConfigProperty(SEARCH_QUERY);
+    }
+    if (!containsMacro(SEARCH_QUERY) && getSearchQuery() != null
+      && getSearchQuery().toLowerCase().contains(GitHubSearch.CREATED_QUALIFIER)) {
+      failureCollector
+        .addFailure(String.format("%s must not contain a '%s' qualifier.", SEARCH_QUERY_DISPLAY_NAME,
+                                  GitHubSearch.CREATED_QUALIFIER),
+                    "Results are sliced by their creation dates.")
+        .withConfigProperty(SEARCH_QUERY);
+    }
+    if (!containsMacro(PAGES_PER_SPLIT) && pagesPerSplit != null && pagesPerSplit < 1) {
+      failureCollector
+        .addFailure(String.format("%s must be a positive number.", PAGES_PER_SPLIT_DISPLAY_NAME), null)
+        .withConfigProperty(PAGES_PER_SPLIT);
+    }
+    if (!containsMacro(MAX_SPLITS) && maxSplits != null && maxSplits < 1) {
+      failureCollector
+        .addFailure(String.format("%s must be a positive number.", MAX_SPLITS_DISPLAY_NAME), null)
+        .withConfigProperty(MAX_SPLITS);
+    }
+    if (!containsMacro(SPLIT_STRATEGY) && !PAGES_SPLIT_STRATEGY.equals(getSplitStrategy()) && !isTimeWindowSplits()) {
+      failureCollector
+        .addFailure(String.format("%s must be either '%s' or '%s'.", SPLIT_STRATEGY_DISPLAY_NAME,
+                                  PAGES_SPLIT_STRATEGY, TIME_WINDOWS_SPLIT_STRATEGY), null)
+        .withConfigProperty(SPLIT_STRATEGY);
+    }
+    if (!containsMacro(SPLIT_STRATEGY) && !containsMacro(DATASET_NAME) && !containsMacro(API) && isTimeWindowSplits()
+      && (isGraphQL() || !GitHubRequestFactory.SINCE_DATASETS.contains(datasetName))) {
+      failureCollector
+        .addFailure(String.format("%s '%s' is only supported for dataset 'Commits' read with the %s API.",
+                                  SPLIT_STRATEGY_DISPLAY_NAME, TIME_WINDOWS_SPLIT_STRATEGY, REST_API),
+                    String.format("Use the '%s' split strategy.", PAGES_SPLIT_STRATEGY))
+        .withConfigProperty(SPLIT_STRATEGY);
+    }
+    if (!containsMacro(PLANNING_THREADS) && planningThreads != null && planningThreads < 1) {
+      failureCollector
+        .addFailure(String.format("%s must be a positive number.", PLANNING_THREADS_DISPLAY_NAME), null)
+        .withConfigProperty(PLANNING_THREADS);
+    }
+    if (!containsMacro(PLANNING_TIMEOUT) && planningTimeout != null && planningTimeout < 0) {
+      failureCollector
+        .addFailure(String.format("%s must not be negative.", PLANNING_TIMEOUT_DISPLAY_NAME), "Use 0 for no timeout.")
+        .withConfigProperty(PLANNING_TIMEOUT);
+    }
+    if (!containsMacro(PREFETCH_PAGES) && prefetchPages != null && prefetchPages < 0) {
+      failureCollector
+        .addFailure(String.format("%s must not be negative.", PREFETCH_PAGES_DISPLAY_NAME),
+                    "Use 0 to disable prefetching.")
+        .withConfigProperty(PREFETCH_PAGES);
+    }
+    if (!containsMacro(MAX_CONNECTIONS) && maxConnections != null && maxConnections < 1) {
+      failureCollector
+        .addFailure(String.format("%s must be a positive number.", MAX_CONNECTIONS_DISPLAY_NAME), null)
+        .withConfigProperty(MAX_CONNECTIONS);
+    }
+    if (!containsMacro(CONNECT_TIMEOUT) && connectTimeout != null && connectTimeout < 0) {
+      failureCollector
+        .addFailure(String.format("%s must not be negative.", CONNECT_TIMEOUT_DISPLAY_NAME),
+                    "Use 0 for no timeout.")
+        .withConfigProperty(CONNECT_TIMEOUT);
+    }
+    if (!containsMacro(READ_TIMEOUT) && readTimeout != null && readTimeout < 0) {
+      failureCollector
+        .addFailure(String.format("%s must not be negative.", READ_TIMEOUT_DISPLAY_NAME), "Use 0 for no timeout.")
+        .withConfigProperty(READ_TIMEOUT);
+    }
+    if (!containsMacro(MAX_ATTEMPTS) && maxAttempts != null && maxAttempts < 1) {
+      failureCollector
+        .addFailure(String.format("%s must be a positive number.", MAX_ATTEMPTS_DISPLAY_NAME), null)
+        .withConfigProperty(MAX_ATTEMPTS);
+    }
+    if (!containsMacro(BASE_RETRY_DELAY) && baseRetryDelay != null && baseRetryDelay < 0) {
+      failureCollector
+        .addFailure(String.format("%s must not be negative.", BASE_RETRY_DELAY_DISPLAY_NAME), null)
+        .withConfigProperty(BASE_RETRY_DELAY);
+    }
+    if (!containsMacro(MAX_RETRY_DELAY) && maxRetryDelay != null && maxRetryDelay < 0) {
+      failureCollector
+        .addFailure(String.format("%s must not be negative.", MAX_RETRY_DELAY_DISPLAY_NAME), null)
+        .withConfigProperty(MAX_RETRY_DELAY);
+    }
+    if (!containsMacro(API) && !REST_API.equals(getApi()) && !GRAPHQL_API.equals(getApi())) {
+      failureCollector
+        .addFailure(String.format("%s must be either '%s' or '%s'.", API_DISPLAY_NAME, REST_API, GRAPHQL_API), null)
+        .withConfigProperty(API);
+    }
+    if (!containsMacro(API) && !containsMacro(DATASET_NAME) && isGraphQL() && !Strings.isNullOrEmpty(datasetName)
+      && GitHubGraphQLDataset.forDatasetName(datasetName) == null) {
+      failureCollector
+        .addFailure(String.format("Dataset '%s' is not supported by the GraphQL API.", datasetName),
+                    String.format("Use the %s API.", REST_API))
+        .withConfigProperty(API);
+    }
+    if (!containsMacro(SINCE) && !Strings.isNullOrEmpty(since)) {
+      try {
+        OffsetDateTime.parse(since);
+      } catch (DateTimeParseException e) {
+        failureCollector
+          .addFailure(String.format("%s must be an ISO-8601 timestamp.", SINCE_DISPLAY_NAME),
+                      "Use a timestamp like 2020-01-01T00:00:00Z.")
+          .withConfigProperty(SINCE);
+      }
+    }
+    if (!containsMacro(DATASET_NAME) && !Strings.isNullOrEmpty(datasetName)
+      && !GitHubRequestFactory.SINCE_DATASETS.contains(datasetName)) {
+      if (!Strings.isNullOrEmpty(since)) {
+        failureCollector
+          .addFailure(String.format("%s is not supported for dataset '%s'.", SINCE_DISPLAY_NAME, datasetName),
+                      null)
+          .withConfigProperty(SINCE);
+      }
+      if (!Strings.isNullOrEmpty(watermarkDirectory)) {
+        failureCollector
+          .addFailure(String.format("Incremental reads are not supported for dataset '%s'.", datasetName), null)
+          .withConfigProperty(WATERMARK_DIRECTORY);
+      }
+    }
+    if (!containsMacro(DATASET_NAME) && !containsMacro(SELECTED_FIELDS) && getSelectedFields() != null) {
+      validateSelectedFields(failureCollector);
+    }
+    validateFilters(failureCollector);
+  }
+
+  private void validateFilters(FailureCollector failureCollector) {
+    validateFilter(failureCollector, UNTIL, UNTIL_DISPLAY_NAME, GitHubRequestFactory.UNTIL_PARAMETER, until);
+    validateFilter(failureCollector, SHA, SHA_DISPLAY_NAME, GitHubRequestFactory.SHA_PARAMETER, sha);
+    validateFilter(failureCollector, PATH, PATH_DISPLAY_NAME, GitHubRequestFactory.PATH_PARAMETER, path);
+    validateFilter(failureCollector, AUTHOR, AUTHOR_DISPLAY_NAME, GitHubRequestFactory.AUTHOR_PARAMETER, author);
+    validateFilter(failureCollector, COMMITTER, COMMITTER_DISPLAY_NAME, GitHubRequestFactory.COMMITTER_PARAMETER,
+                   committer);
+    validateFilter(failureCollector, SORT, SORT_DISPLAY_NAME, GitHubRequestFactory.SORT_PARAMETER, sort);
+    validateFilter(failureCollector, PROTECTED_BRANCHES, PROTECTED_BRANCHES_DISPLAY_NAME,
+                   GitHubRequestFactory.PROTECTED_PARAMETER,
+                   Boolean.TRUE.equals(protectedBranches) ? Boolean.TRUE.toString() : null);
+    validateFilter(failureCollector, DEPLOYMENT_REF, DEPLOYMENT_REF_DISPLAY_NAME, GitHubRequestFactory.REF_PARAMETER,
+                   deploymentRef);
+    validateFilter(failureCollector, DEPLOYMENT_TASK, DEPLOYMENT_TASK_DISPLAY_NAME,
+                   GitHubRequestFactory.TASK_PARAMETER, deploymentTask);
+    validateFilter(failureCollector, DEPLOYMENT_ENVIRONMENT, DEPLOYMENT_ENVIRONMENT_DISPLAY_NAME,
+                   GitHubRequestFactory.ENVIRONMENT_PARAMETER, deploymentEnvironment);
+    if (!containsMacro(UNTIL) && getUntil() != null) {
+      if (!isTimestamp(until)) {
+        failureCollector
+          .addFailure(String.format("%s must be an ISO-8601 timestamp.", UNTIL_DISPLAY_NAME),
+                      "Use a timestamp like 2020-01-01T00:00:00Z.")
+          .withConfigProperty(UNTIL);
+      } else if (!containsMacro(SINCE) && getSince() != null && isTimestamp(since)
+        && OffsetDateTime.parse(until).isBefore(OffsetDateTime.parse(since))) {
+        failureCollector
+          .addFailure(String.format("%s must not be before %s.", UNTIL_DISPLAY_NAME, SINCE_DISPLAY_NAME), null)
+          .withConfigProperty(UNTIL);
+      }
+      if (!containsMacro(WATERMARK_DIRECTORY) && getWatermarkDirectory() != null) {
+        failureCollector
+          .addFailure(String.format("%s is not supported for incremental reads.", UNTIL_DISPLAY_NAME),
+                      "The watermark advances to the start of every run.")
+          .withConfigProperty(UNTIL);
+      }
+    }
+    if (!containsMacro(SORT) && !Strings.isNullOrEmpty(sort) && !FORKS_SORT_ORDERS.contains(sort.trim())) {
+      failureCollector
+        .addFailure(String.format("%s must be one of %s.", SORT_DISPLAY_NAME, String.join(", ", FORKS_SORT_ORDERS)),
+                    null)
+        .withConfigProperty(SORT);
+    }
+  }
+
+  /**
+   * Reports the given filter property, if it is set for a dataset, which endpoint does not support its query
+   * parameter.
+   */
+  private void validateFilter(FailureCollector failureCollector, String name, String displayName, String parameter,
+                              @Nullable String value) {
+    if (containsMacro(name) || Strings.isNullOrEmpty(value) || containsMacro(DATASET_NAME)
+      || Strings.isNullOrEmpty(datasetName)) {
+      return;
+    }
+    if (!GitHubRequestFactory.getFilterParameters(datasetName).contains(parameter)) {
+      failureCollector
+        .addFailure(String.format("%s is not supported for dataset '%s'.", displayName, datasetName), null)
+        .withConfigProperty(name);
+    } else if (!containsMacro(API) && isGraphQL()) {
+      failureCollector
+        .addFailure(String.format("%s is not supported by the %s API.", displayName, GRAPHQL_API),
+                    String.format("Use the %s API.", REST_API))
+        .withConfigProperty(name);
+    }
+  }
+
+  private static boolean isTimestamp(String value) {
+    try {
+      OffsetDateTime.parse(value);
+      return true;
+    } catch (DateTimeParseException e) {
+      return false;
+    }
+  }
+
+  private void validateGitHubApp(FailureCollector failureCollector) {
+    if (!containsMacro(INSTALLATION_ID) && getInstallationId() == null) {
+      failureCollector
+        .addFailure(String.format("%s must be specified for a GitHub App.", INSTALLATION_ID_DISPLAY_NAME), null)
+        .withConfigProperty(INSTALLATION_ID);
+    }
+    if (containsMacro(PRIVATE_KEY)) {
+      return;
+    }
+    if (getPrivateKey() == null) {
+      failureCollector
+        .addFailure(String.format("%s must be specified for a GitHub App.", PRIVATE_KEY_DISPLAY_NAME), null)
+        .withConfigProperty(PRIVATE_KEY);
+      return;
+    }
+    try {
+      GitHubAppTokenProvider.parsePrivateKey(privateKey);
+    } catch (IllegalArgumentException e) {
+      failureCollector
+        .addFailure(String.format("%s must be a PEM encoded RSA private key.", PRIVATE_KEY_DISPLAY_NAME),
+                    "Use the private key generated in the settings of the GitHub App.")
+        .withConfigProperty(PRIVATE_KEY);
+    }
+  }
+
+  private void validateSelectedFields(FailureCollector failureCollector) {
+    Class<? extends GitHubModel> datasetClass;
+    try {
+      datasetClass = getDatasetClass();
+    } catch (IllegalArgumentException e) {
+      return;
+    }
+    Schema datasetSchema = SchemaBuilder.getSchema(datasetName, datasetClass);
+    for (String fieldName : getSelectedFields()) {
+      if (datasetSchema.getField(fieldName) == null) {
+        failureCollector
+          .addFailure(String.format("%s contains field '%s', which dataset '%s' does not have.",
+                                    SELECTED_FIELDS_DISPLAY_NAME, fieldName, datasetName), null)
+          .withConfigProperty(SELECTED_FIELDS);
+      }
+    }
   }
 }
@@ -21,6 +21,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import io.cdap.cdap.api.data.batch.InputFormatProvider;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -29,6 +30,9 @@ import java.util.Map;
 public class GithubFormatProvider implements InputFormatProvider {
 
   public static final String PROPERTY_CONFIG_JSON = "cdap.github.config";
+  public static final String PROPERTY_STAGE_KEY = "cdap.github.stage";
+  public static final String PROPERTY_REPOSITORIES_JSON = "cdap.github.repositories";
+  public static final String PROPERTY_WATERMARKS_JSON = "cdap.github.watermarks";
   private static final Gson GSON = new GsonBuilder().create();
 
   private final Map<String, String> conf;
@@ -36,10 +40,17 @@ public class GithubFormatProvider implements InputFormatProvider {
   /**
    * Constructor for GithubFormatProvider object.
    * @param config the GithubBatchSourceConfig
+   * @param stageKey the key of the stage, which the readers count their requests into the metrics of
+   * @param repoNames the names of the repositories resolved from the configured list, which are read
+   * @param watermarks the stored watermarks by repository name, which the repositories are read from
    */
-  public GithubFormatProvider(GithubBatchSourceConfig config) {
+  public GithubFormatProvider(GithubBatchSourceConfig config, String stageKey, List<String> repoNames,
+                              Map<String, String> watermarks) {
     this.conf = new ImmutableMap.Builder<String, String>()
       .put(PROPERTY_CONFIG_JSON, GSON.toJson(config))
+      .put(PROPERTY_STAGE_KEY, stageKey)
+      .put(PROPERTY_REPOSITORIES_JSON, GSON.toJson(repoNames))
+      .put(PROPERTY_WATERMARKS_JSON, GSON.toJson(watermarks))
       .build();
   }
 
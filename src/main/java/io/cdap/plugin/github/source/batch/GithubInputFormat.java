@@ -16,102 +16,373 @@
 
 package io.cdap.plugin.github.source.batch;
 
-import com.google.api.client.http.HttpRequest;
-import com.google.api.client.http.HttpResponse;
+import com.google.common.base.Strings;
+import com.google.common.base.Ticker;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import io.cdap.plugin.github.source.common.GitHubGraphQLClient;
+import io.cdap.plugin.github.source.common.GitHubPage;
+import io.cdap.plugin.github.source.common.GitHubPageReader;
 import io.cdap.plugin.github.source.common.GitHubRequestFactory;
+import io.cdap.plugin.github.source.common.GitHubRequestMetrics;
+import io.cdap.plugin.github.source.common.GitHubResponseCache;
+import io.cdap.plugin.github.source.common.GitHubSearch;
+import io.cdap.plugin.github.source.common.model.GitHubModel;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.Nullable;
 
 /**
- * InputFormat for mapreduce job, which provides a single split of data.
+ * InputFormat for mapreduce job, which splits the dataset pages of every configured repository into ranges of
+ * consecutive pages. Datasets, which pages cannot be addressed by number, are read through the 'next' links by a
+ * single split per repository. The first pages of the repositories are fetched concurrently by a bounded number of
+ * threads, and the planning fails if a repository cannot be planned within the configured timeout. Commits can be
+ * split into windows of commit dates instead, and search results are always split into slices of creation dates,
+ * see {@link GithubTimeWindowPlanner}.
  */
-public class GithubInputFormat extends InputFormat {
+public class GithubInputFormat extends InputFormat<Text, GitHubModel> {
+
+  public static final int DEFAULT_PLANNING_THREADS = 8;
+  /**
+   * Planning waits for exhausted rate limits to reset, which may take up to an hour, so it has no timeout unless one
+   * is configured.
+   */
+  public static final int DEFAULT_PLANNING_TIMEOUT_SECONDS = 0;
 
   private static final Gson GSON = new GsonBuilder().create();
+  private static final Type REPOSITORIES_TYPE = new TypeToken<List<String>>() { }.getType();
+  private static final Type WATERMARKS_TYPE = new TypeToken<Map<String, String>>() { }.getType();
 
   @Override
   public List<InputSplit> getSplits(JobContext jobContext) throws IOException {
     Configuration conf = jobContext.getConfiguration();
     String configJson = conf.get(GithubFormatProvider.PROPERTY_CONFIG_JSON);
     GithubBatchSourceConfig config = GSON.fromJson(configJson, GithubBatchSourceConfig.class);
+    String watermarksJson = conf.get(GithubFormatProvider.PROPERTY_WATERMARKS_JSON);
+    Map<String, String> watermarks = watermarksJson == null ? Collections.emptyMap() :
+      GSON.fromJson(watermarksJson, WATERMARKS_TYPE);
+
+    long startMillis = System.currentTimeMillis();
+    GitHubResponseCache cache = config.getCacheDirectory() == null ? null :
+      new GitHubResponseCache(config.getCacheDirectory(), config.getCredentialsId(), conf);
+    if (cache != null) {
+      // evicted once per run, before any of its entries is used
+      cache.evictExpired();
+    }
+    String repoNamesJson = conf.get(GithubFormatProvider.PROPERTY_REPOSITORIES_JSON);
+    // the repositories are resolved by the source, unless the input format is used on its own
+    List<String> repoNames = repoNamesJson == null ? GithubRepositoryResolver.resolve(config) :
+      GSON.fromJson(repoNamesJson, REPOSITORIES_TYPE);
+    // the first pages of several repositories are fetched with a single GraphQL query
+    int batchSize = config.isGraphQL() ? GitHubGraphQLClient.MAX_REPOSITORIES_PER_QUERY : 1;
+    // time windows end at the start of the planning, so that commits pushed during the run are left to the next one
+    Instant until = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    boolean search = GitHubSearch.isSearchDataset(config.getDatasetName());
+    ExecutorService windowExecutor = config.isTimeWindowSplits() || search ?
+      createExecutor(config.getPlanningThreads(), "github-window-counter") : null;
+    List<InputSplit> splits;
+    try {
+      List<PlanningTask> tasks = new ArrayList<>();
+      for (List<String> batch : partition(repoNames, batchSize, watermarks)) {
+        GithubBatchSourceConfig batchConfig = withSince(config, watermarks.get(batch.get(0)));
+        tasks.add(new PlanningTask(config.getRepoOwner() + "/" + String.join(",", batch), () -> {
+          if (search) {
+            return GithubTimeWindowPlanner.createSearchSplits(batchConfig, batch.get(0), windowExecutor, until);
+          }
+          if (windowExecutor != null) {
+            return GithubTimeWindowPlanner.createSplits(batchConfig, batch.get(0), windowExecutor, until);
+          }
+          return planSplits(batchConfig, batch, cache);
+        }));
+      }
+      splits = planConcurrently(tasks, config.getPlanningThreads(),
+                                TimeUnit.SECONDS.toMillis(config.getPlanningTimeout()));
+    } finally {
+      if (windowExecutor != null) {
+        windowExecutor.shutdownNow();
+      }
+    }
+    String stageKey = conf.get(GithubFormatProvider.PROPERTY_STAGE_KEY);
+    if (stageKey != null) {
+      GithubPlanningMetrics.forStage(stageKey).countAll(GithubPlanningMetrics.collect(
+        config.getRequestMetrics(), repoNames.size(), splits.size(), System.currentTimeMillis() - startMillis));
+    }
+    return splits;
+  }
+
+  /**
+   * Partitions the given repositories into batches of at most the given size, which are queried together. Only
+   * repositories with the same watermark share a batch, as a query reads all of its repositories since the same time.
+   */
+  static List<List<String>> partition(List<String> repoNames, int batchSize, Map<String, String> watermarks) {
+    Map<String, List<String>> repoNamesByWatermark = new LinkedHashMap<>();
+    for (String repoName : repoNames) {
+      repoNamesByWatermark.computeIfAbsent(Strings.nullToEmpty(watermarks.get(repoName)), key -> new ArrayList<>())
+        .add(repoName);
+    }
+    List<List<String>> batches = new ArrayList<>();
+    for (List<String> sameWatermarkRepoNames : repoNamesByWatermark.values()) {
+      batches.addAll(Lists.partition(sameWatermarkRepoNames, batchSize));
+    }
+    return batches;
+  }
+
+  /**
+   * Returns the given config reading the dataset since the given watermark, or the config itself if there is none.
+   * The copy counts its requests into the metrics of the given config.
+   */
+  static GithubBatchSourceConfig withSince(GithubBatchSourceConfig config, @Nullable String watermark) {
+    if (watermark == null) {
+      return config;
+    }
+    GithubBatchSourceConfig copy = GSON.fromJson(GSON.toJson(config), GithubBatchSourceConfig.class);
+    copy.setSince(watermark);
+    copy.setRequestMetrics(config.getRequestMetrics());
+    return copy;
+  }
 
-    String url = GitHubRequestFactory.generateFirstCallUrl(config);
-    HttpRequest httpRequest = GitHubRequestFactory.buildRequest(url, config.getAuthorizationToken());
-    HttpResponse response = httpRequest.execute();
-    /**
-     * TODO - https://issues.cask.co/browse/PLUGIN-382
-     * Validate PaginationMetadata response for Single page use cases.
-     */
-    Object paginationMetadata = response.getHeaders().get("Link");
-    if (Objects.nonNull(paginationMetadata)) {
-      String paginationUrls = (String) ((List<?>) paginationMetadata).get(0);
-      String lastLink = getLastLink(paginationUrls);
-
-      Integer totalPagesCount = getTotalPagesCount(lastLink);
-      return IntStream.range(1, totalPagesCount)
-        .mapToObj(pageNumber -> {
-          String pageLink = transformLink(lastLink, pageNumber);
-          return new GithubSplit(pageLink);
-        })
-        .collect(Collectors.toList());
+  /**
+   * Runs the given planning tasks on at most the given number of threads and returns their splits in the order of
+   * the tasks. A task running longer than the given timeout, unless it is 0, fails the planning.
+   */
+  static List<InputSplit> planConcurrently(List<PlanningTask> tasks, int threads, long timeoutMillis)
+    throws IOException {
+    if (tasks.isEmpty()) {
+      return Collections.emptyList();
+    }
+    ExecutorService executor = createExecutor(Math.min(threads, tasks.size()), "github-split-planner");
+    try {
+      List<Future<List<InputSplit>>> plannedTasks = new ArrayList<>();
+      for (PlanningTask task : tasks) {
+        plannedTasks.add(executor.submit(task));
+      }
+      List<InputSplit> splits = new ArrayList<>();
+      for (int i = 0; i < tasks.size(); i++) {
+        splits.addAll(await(plannedTasks.get(i), tasks.get(i), timeoutMillis));
+      }
+      return splits;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while planning GitHub splits");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Failed to plan GitHub splits", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static ExecutorService createExecutor(int threads, String threadName) {
+    return Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, threadName);
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Waits for the given task to complete, at most until its timeout measured from the moment it started running,
+   * since it may wait for a thread first.
+   */
+  private static List<InputSplit> await(Future<List<InputSplit>> plannedTask, PlanningTask task, long timeoutMillis)
+    throws IOException, InterruptedException, ExecutionException {
+    if (timeoutMillis <= 0) {
+      return plannedTask.get();
+    }
+    while (true) {
+      long waitMillis = task.isStarted() ? timeoutMillis - task.getRunningMillis() : timeoutMillis;
+      if (waitMillis <= 0) {
+        throw new IOException(String.format("Planning the splits of '%s' timed out after %d seconds.",
+                                            task.getTarget(), TimeUnit.MILLISECONDS.toSeconds(timeoutMillis)));
+      }
+      try {
+        return plannedTask.get(waitMillis, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        // check again whether the task ran out of time or was only waiting for a thread
+      }
+    }
+  }
+
+  /**
+   * Fetches the first page of each of the given repositories and splits the pages of its dataset.
+   */
+  private static List<InputSplit> planSplits(GithubBatchSourceConfig config, List<String> repoNames,
+                                             @Nullable GitHubResponseCache cache) throws IOException {
+    List<InputSplit> splits = new ArrayList<>();
+    if (config.isGraphQL()) {
+      List<GitHubGraphQLClient.RepositoryCursor> repositories = new ArrayList<>();
+      for (String repoName : repoNames) {
+        repositories.add(new GitHubGraphQLClient.RepositoryCursor(config.getRepoOwner(), repoName, null));
+      }
+      String endpoint = GitHubGraphQLClient.getEndpoint(GitHubRequestFactory.getHostname(config));
+      List<GitHubPage> firstPages = GitHubGraphQLClient.fetchPages(endpoint, GitHubGraphQLClient.getDataset(config),
+                                                                   repositories, GitHubGraphQLClient.getSince(config),
+                                                                   config);
+      for (int i = 0; i < repoNames.size(); i++) {
+        try (GitHubPage firstPage = firstPages.get(i)) {
+          String url = GitHubGraphQLClient.generateFirstCallUrl(config, repoNames.get(i));
+          splits.addAll(createSplits(url, config.getRepoOwner() + "/" + repoNames.get(i), firstPage, config));
+        }
+      }
+    } else {
+      for (String repoName : repoNames) {
+        String url = GitHubRequestFactory.generateFirstCallUrl(config, repoName);
+        try (GitHubPage firstPage = GitHubRequestFactory.fetchRestPage(url, config, cache)) {
+          splits.addAll(createSplits(url, config.getRepoOwner() + "/" + repoName, firstPage, config));
+        }
+      }
+    }
+    return splits;
+  }
+
+  /**
+   * Splits the pages of the dataset of a single repository, which first page has the given url.
+   */
+  private static List<InputSplit> createSplits(String url, String repository, GitHubPage firstPage,
+                                               GithubBatchSourceConfig config) throws IOException {
+    byte[] firstPageContent = ByteStreams.toByteArray(firstPage.getContent());
+    String paginationUrls = firstPage.getLink();
+    String lastUrl = GitHubRequestFactory.getLinkUrl(paginationUrls, GitHubRequestFactory.LAST_LINK);
+    Integer totalPagesCount = lastUrl == null ? null : GitHubRequestFactory.getPageNumber(lastUrl);
+    List<InputSplit> splits;
+    if (totalPagesCount != null) {
+      splits = createSplits(url, totalPagesCount, config.getPagesPerSplit(), config.getMaxSplits());
+    } else if (GitHubRequestFactory.getLinkUrl(paginationUrls, GitHubRequestFactory.NEXT_LINK) != null) {
+      // the pages cannot be addressed by number, walk them through the 'next' links in a single split instead
+      splits = Collections.singletonList(GithubSplit.cursor(url));
     } else {
-      return Collections.singletonList(new GithubSplit(url));
+      GithubSplit split = new GithubSplit(url, 1, 1);
+      split.setRecordsCount(countRecords(firstPageContent, config));
+      splits = Collections.singletonList(split);
+    }
+    for (InputSplit split : splits) {
+      ((GithubSplit) split).setRepository(repository);
+    }
+    // hand the already fetched first page over to the split starting at it, so it is not requested twice
+    GithubSplit firstSplit = (GithubSplit) splits.get(0);
+    firstSplit.setFirstPageContent(firstPageContent);
+    firstSplit.setFirstPageLink(paginationUrls);
+    return splits;
+  }
+
+  /**
+   * Counts the records of the given page content without decoding them.
+   */
+  private static long countRecords(byte[] content, GithubBatchSourceConfig config) throws IOException {
+    String recordsMember = GitHubSearch.isSearchDataset(config.getDatasetName()) ? GitHubSearch.RECORDS_MEMBER : null;
+    long count = 0;
+    try (GitHubPageReader<? extends GitHubModel> reader = new GitHubPageReader<>(
+      new ByteArrayInputStream(content), StandardCharsets.UTF_8, config.getDatasetClass(), null, recordsMember)) {
+      while (reader.hasNext()) {
+        reader.skip();
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Distributes pages {@code 1..totalPagesCount} across splits of consecutive pages, so that every page is
+   * read exactly once. When both limits are given, the one producing fewer splits wins. The limits apply to the
+   * dataset of each repository separately. The splits are expected to read full pages.
+   */
+  static List<InputSplit> createSplits(String url, int totalPagesCount, @Nullable Integer pagesPerSplit,
+                                       @Nullable Integer maxSplits) {
+    int splitSize = pagesPerSplit == null ? 1 : pagesPerSplit;
+    if (maxSplits != null) {
+      splitSize = Math.max(splitSize, (totalPagesCount + maxSplits - 1) / maxSplits);
     }
+    List<InputSplit> splits = new ArrayList<>();
+    for (int startPage = 1; startPage <= totalPagesCount; startPage += splitSize) {
+      int endPage = Math.min(startPage + splitSize - 1, totalPagesCount);
+      GithubSplit split = new GithubSplit(url, startPage, endPage);
+      split.setRecordsCount((long) split.getPagesCount() * GitHubRequestFactory.DEFAULT_PAGE_SIZE);
+      splits.add(split);
+    }
+    return splits;
   }
 
   @Override
-  public RecordReader createRecordReader(InputSplit inputSplit, TaskAttemptContext taskAttemptContext) {
+  public RecordReader<Text, GitHubModel> createRecordReader(InputSplit inputSplit,
+                                                           TaskAttemptContext taskAttemptContext) {
     Configuration conf = taskAttemptContext.getConfiguration();
     String configJson = conf.get(GithubFormatProvider.PROPERTY_CONFIG_JSON);
     GithubBatchSourceConfig config = GSON.fromJson(configJson, GithubBatchSourceConfig.class);
-    return new GithubRecordReader(config, ((GithubSplit) inputSplit).getLink());
+    String stageKey = conf.get(GithubFormatProvider.PROPERTY_STAGE_KEY);
+    if (stageKey != null) {
+      // the requests are reported by the instances of the stage running in the same JVM
+      config.setRequestMetrics(GitHubRequestMetrics.forStage(stageKey));
+    }
+    return new GithubRecordReader(config, (GithubSplit) inputSplit);
   }
 
-  private String transformLink(String link, Integer pageNumber) {
-    int indexOfLastParamValue = link.lastIndexOf("=");
-    String substring = link.substring(0, indexOfLastParamValue + 1);
-    return substring + pageNumber;
-  }
+  /**
+   * Plans the splits of one or more repositories, which are queried together.
+   */
+  static class PlanningTask implements Callable<List<InputSplit>> {
+    private final String target;
+    private final Callable<List<InputSplit>> planner;
+    private final Ticker ticker;
+    private volatile boolean started;
+    private volatile long startNanos;
 
-  // TODO - Describe what this function does and how does paginationHeader Look like.
-  // https://issues.cask.co/browse/PLUGIN-384
+    PlanningTask(String target, Callable<List<InputSplit>> planner) {
+      this(target, planner, Ticker.systemTicker());
+    }
 
-  private String getLastLink(String paginationHeader) {
-    String[] links = paginationHeader.split(",");
-    for (String link : links) {
-      if (link.contains("last")) {
-        String[] parts = link.split(";");
-        String url = parts[0];
-        return url.substring(2, url.length() - 1);
-      }
+    PlanningTask(String target, Callable<List<InputSplit>> planner, Ticker ticker) {
+      this.target = target;
+      this.planner = planner;
+      this.ticker = ticker;
     }
-    return null;
-  }
 
-  private Integer getTotalPagesCount(String lastLink) {
-    String[] split = lastLink.split("\\?");
-    String paramsString = split[1];
-    String[] params = paramsString.split("&");
+    @Override
+    public List<InputSplit> call() throws Exception {
+      startNanos = ticker.read();
+      started = true;
+      return planner.call();
+    }
 
-    for (String param : params) {
-      String[] keyValueString = param.split("=");
-      if ("page".equals(keyValueString[0])) {
-        return Integer.valueOf(keyValueString[1]);
-      }
+    String getTarget() {
+      return target;
+    }
+
+    boolean isStarted() {
+      return started;
+    }
+
+    long getRunningMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(ticker.read() - startNanos);
     }
-    return null;
   }
 }
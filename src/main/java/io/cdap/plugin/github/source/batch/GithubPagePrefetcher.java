@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.github.source.batch;
+
+import io.cdap.plugin.github.source.common.GitHubPage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+
+/**
+ * Downloads the pages of a {@link GithubPageSequence} in the background, so that fetching the next pages overlaps
+ * with processing the records of the current one.
+ *
+ * At most {@code bufferSize} pages are downloaded ahead of the consumer, one at a time and in order, so that
+ * every download can follow the links of the page before it. Downloaded pages are held in memory, so the next
+ * download is only started once the consumer takes a page out of the full buffer.
+ *
+ * As prefetched pages are buffered instead of being decoded while they are streamed, prefetching is disabled by
+ * default and only pays off when the records take longer to process than the next page takes to download.
+ */
+public class GithubPagePrefetcher implements Closeable {
+
+  public static final int DEFAULT_BUFFER_SIZE = 0;
+
+  private final GithubPageSequence pageSequence;
+  private final PageLoader pageLoader;
+  private final int bufferSize;
+  private final ExecutorService executor;
+  private final Deque<Future<GitHubPage>> buffer = new ArrayDeque<>();
+
+  // only accessed by the download thread
+  private GitHubPage lastPage;
+  private volatile boolean exhausted;
+
+  /**
+   * Creates a prefetcher of the pages following the given, already read page, or of all the pages of the sequence
+   * if it is null.
+   */
+  public GithubPagePrefetcher(GithubPageSequence pageSequence, @Nullable GitHubPage previousPage, int bufferSize,
+                              PageLoader pageLoader) {
+    this.pageSequence = pageSequence;
+    this.pageLoader = pageLoader;
+    this.bufferSize = bufferSize;
+    this.lastPage = previousPage;
+    this.executor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "github-page-prefetcher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    fillBuffer();
+  }
+
+  /**
+   * Returns the next page of the sequence, waiting for its download to complete if needed, or null if there are
+   * no more pages.
+   */
+  @Nullable
+  public GitHubPage next() throws IOException {
+    Future<GitHubPage> nextPage = buffer.poll();
+    if (nextPage == null) {
+      return null;
+    }
+    fillBuffer();
+    try {
+      return nextPage.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for GitHub page");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Failed to prefetch GitHub page", e.getCause());
+    }
+  }
+
+  @Override
+  public void close() {
+    buffer.forEach(page -> page.cancel(true));
+    buffer.clear();
+    executor.shutdownNow();
+  }
+
+  private void fillBuffer() {
+    while (buffer.size() < bufferSize && !exhausted) {
+      buffer.add(executor.submit(this::downloadNextPage));
+    }
+  }
+
+  @Nullable
+  private GitHubPage downloadNextPage() throws IOException {
+    String nextUrl = exhausted ? null : pageSequence.nextUrl(lastPage);
+    if (nextUrl == null) {
+      exhausted = true;
+      return null;
+    }
+    lastPage = pageLoader.load(nextUrl).buffer();
+    return lastPage;
+  }
+
+  /**
+   * Fetches a page by its url.
+   */
+  public interface PageLoader {
+    GitHubPage load(String url) throws IOException;
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.github.source.batch;
+
+import io.cdap.plugin.github.source.common.GitHubPage;
+import io.cdap.plugin.github.source.common.GitHubRequestFactory;
+
+import javax.annotation.Nullable;
+
+/**
+ * Order in which a split walks the pages it covers, either by page number or by following the 'next' links.
+ */
+public interface GithubPageSequence {
+
+  /**
+   * Returns the url of the page following the given one, the url of the first page if no page has been read yet,
+   * or null if there are no more pages.
+   */
+  @Nullable
+  String nextUrl(@Nullable GitHubPage previousPage);
+
+  /**
+   * Returns the sequence of the pages in the given inclusive range of page numbers.
+   */
+  static GithubPageSequence numbered(String url, int startPage, int endPage) {
+    int[] nextPageNumber = {startPage};
+    return previousPage -> nextPageNumber[0] > endPage ? null :
+      GitHubRequestFactory.buildPageUrl(url, nextPageNumber[0]++);
+  }
+
+  /**
+   * Returns the sequence starting at the given page and following the 'next' links of the 'Link' headers.
+   */
+  static GithubPageSequence following(String url) {
+    return previousPage -> previousPage == null ? url :
+      GitHubRequestFactory.getLinkUrl(previousPage.getLink(), GitHubRequestFactory.NEXT_LINK);
+  }
+}
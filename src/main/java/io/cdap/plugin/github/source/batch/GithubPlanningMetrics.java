@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.github.source.batch;
+
+import io.cdap.plugin.github.source.common.GitHubRequestMetrics;
+
+import java.util.Map;
+
+/**
+ * Collects the metrics of a split planning, which runs in the driver before the stage can report metrics, so that
+ * they are kept for the stage and reported once by the driver when the run finishes, no matter how many attempts
+ * read the splits.
+ */
+public class GithubPlanningMetrics {
+
+  public static final String TIME_METRIC = "github.planning.time.ms";
+  public static final String REQUESTS_METRIC = "github.planning.requests";
+  public static final String REPOSITORIES_METRIC = "github.planning.repositories";
+  public static final String SPLITS_METRIC = "github.planning.splits";
+
+  private static final String PLANNING_STAGE_SUFFIX = ":planning";
+
+  private GithubPlanningMetrics() {
+  }
+
+  /**
+   * Returns the metrics of the plannings of the stage with the given key, which are kept apart from the metrics of
+   * its readers.
+   */
+  public static GitHubRequestMetrics forStage(String stageKey) {
+    return GitHubRequestMetrics.forStage(stageKey + PLANNING_STAGE_SUFFIX);
+  }
+
+  /**
+   * Returns the metrics of the requests made by a planning of the given number of repositories into the given
+   * number of splits, followed by the totals of the planning by metric name.
+   */
+  static Map<String, Long> collect(GitHubRequestMetrics requestMetrics, int repositories, int splits,
+                                   long timeMillis) {
+    Map<String, Long> metrics = collectRequests(requestMetrics);
+    metrics.put(REPOSITORIES_METRIC, (long) repositories);
+    metrics.put(SPLITS_METRIC, (long) splits);
+    metrics.put(TIME_METRIC, timeMillis);
+    return metrics;
+  }
+
+  /**
+   * Returns the metrics of the requests made for a planning, e.g. to list the repositories of the owner, followed by
+   * their total number, by metric name.
+   */
+  static Map<String, Long> collectRequests(GitHubRequestMetrics requestMetrics) {
+    Map<String, Long> metrics = requestMetrics.drain();
+    long requests = metrics.entrySet().stream()
+      .filter(metric -> metric.getKey().startsWith(GitHubRequestMetrics.REQUESTS_METRIC_PREFIX))
+      .mapToLong(Map.Entry::getValue)
+      .sum();
+    metrics.put(REQUESTS_METRIC, requests);
+    return metrics;
+  }
+}
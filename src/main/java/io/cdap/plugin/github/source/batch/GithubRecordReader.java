@@ -16,61 +16,96 @@
 
 package io.cdap.plugin.github.source.batch;
 
-import com.google.api.client.http.HttpRequest;
-import com.google.api.client.http.HttpResponse;
+import io.cdap.plugin.github.source.common.GitHubPage;
+import io.cdap.plugin.github.source.common.GitHubPageReader;
 import io.cdap.plugin.github.source.common.GitHubRequestFactory;
+import io.cdap.plugin.github.source.common.GitHubResponseCache;
+import io.cdap.plugin.github.source.common.GitHubSearch;
 import io.cdap.plugin.github.source.common.model.GitHubModel;
-import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
 import java.io.IOException;
-import java.lang.reflect.Array;
-import java.util.Arrays;
-import java.util.Iterator;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.Nullable;
 
-import static io.cdap.plugin.github.source.common.GitHubRequestFactory.DEFAULT_PAGE_SIZE;
 
 /**
  * RecordReader implementation, which reads {@link GitHubModel} instances from GitHub repository API for github.
+ * The key of every record is the 'owner/name' of the repository it was read from.
  */
-public class GithubRecordReader extends RecordReader<NullWritable, GitHubModel> {
+public class GithubRecordReader extends RecordReader<Text, GitHubModel> {
 
   private final GithubBatchSourceConfig config;
-  private final String link;
+  private final GithubSplit split;
+  private final Text repository;
 
-  private Iterator<GitHubModel> currentPage;
+  private GitHubResponseCache cache;
+  private GithubPageSequence pageSequence;
+  private GithubPagePrefetcher prefetcher;
+  private GitHubPage page;
+  private GitHubPageReader<? extends GitHubModel> currentPage;
   private GitHubModel currentRow;
   private Integer currentRowIndex = 0;
+  private boolean finished;
+  // time spent decoding the records of the current page, reported once the page is closed
+  private long pageDecodeNanos;
 
-  public GithubRecordReader(GithubBatchSourceConfig config, String link) {
+  public GithubRecordReader(GithubBatchSourceConfig config, GithubSplit split) {
     this.config = config;
-    this.link = link;
+    this.split = split;
+    this.repository = new Text(split.getRepository() == null ? "" : split.getRepository());
   }
 
   @Override
   public void initialize(InputSplit inputSplit, TaskAttemptContext taskAttemptContext) throws IOException {
-    HttpRequest httpRequest = GitHubRequestFactory.buildRequest(link, config.getAuthorizationToken());
-    HttpResponse response = httpRequest.execute();
-    Class<? extends GitHubModel[]> datasetClass = (Class<? extends GitHubModel[]>)
-      Array.newInstance(config.getDatasetClass(), 0).getClass();
-    currentPage = Arrays.stream(response.parseAs(datasetClass)).iterator();
+    if (config.getCacheDirectory() != null) {
+      cache = new GitHubResponseCache(config.getCacheDirectory(), config.getCredentialsId(),
+                                      taskAttemptContext.getConfiguration());
+    }
+    GitHubPage firstPage = null;
+    if (split.hasFirstPageContent()) {
+      firstPage = new GitHubPage(split.getFirstPageContent(), StandardCharsets.UTF_8, split.getFirstPageLink(), null);
+    }
+    if (split.isCursor()) {
+      pageSequence = GithubPageSequence.following(split.getLink());
+    } else {
+      int firstFetchedPage = firstPage == null ? split.getStartPage() : split.getStartPage() + 1;
+      pageSequence = GithubPageSequence.numbered(split.getLink(), firstFetchedPage, split.getEndPage());
+    }
+    // a split of a single page has nothing to download while it is read
+    if (config.getPrefetchPages() > 0 && (split.isCursor() || split.getPagesCount() > 1)) {
+      prefetcher = new GithubPagePrefetcher(pageSequence, firstPage, config.getPrefetchPages(), this::fetchPage);
+    }
+    if (firstPage != null) {
+      openPage(firstPage);
+    }
   }
 
   @Override
-  public boolean nextKeyValue() {
-    if (!currentPage.hasNext()) {
-      return false;
+  public boolean nextKeyValue() throws IOException {
+    while (currentPage == null || !hasNextRow()) {
+      GitHubPage previousPage = page;
+      closePage();
+      GitHubPage nextPage = prefetcher != null ? prefetcher.next() : fetchNextPage(previousPage);
+      if (nextPage == null) {
+        finished = true;
+        return false;
+      }
+      openPage(nextPage);
     }
     currentRowIndex++;
+    long startNanos = System.nanoTime();
     currentRow = currentPage.next();
+    pageDecodeNanos += System.nanoTime() - startNanos;
     return true;
   }
 
   @Override
-  public NullWritable getCurrentKey() {
-    return null;
+  public Text getCurrentKey() {
+    return repository;
   }
 
   @Override
@@ -80,11 +115,73 @@ public class GithubRecordReader extends RecordReader<NullWritable, GitHubModel>
 
   @Override
   public float getProgress() {
-    return currentRowIndex / (float) DEFAULT_PAGE_SIZE;
+    if (finished) {
+      return 1;
+    }
+    long recordsCount = split.getRecordsCount();
+    if (recordsCount <= 0) {
+      // the number of records is not known upfront
+      return 0;
+    }
+    // the expected count can be an upper bound, or be exceeded by records created after the planning
+    return Math.min(currentRowIndex / (float) recordsCount, 1);
+  }
+
+  /**
+   * Returns true if the pages of the split are downloaded in the background.
+   */
+  boolean isPrefetching() {
+    return prefetcher != null;
   }
 
   @Override
-  public void close() {
+  public void close() throws IOException {
+    closePage();
+    if (prefetcher != null) {
+      prefetcher.close();
+    }
+  }
 
+  private boolean hasNextRow() {
+    long startNanos = System.nanoTime();
+    boolean hasNext = currentPage.hasNext();
+    pageDecodeNanos += System.nanoTime() - startNanos;
+    return hasNext;
+  }
+
+  private void openPage(GitHubPage nextPage) throws IOException {
+    page = nextPage;
+    String recordsMember = GitHubSearch.isSearchDataset(config.getDatasetName()) ? GitHubSearch.RECORDS_MEMBER : null;
+    currentPage = new GitHubPageReader<>(page.getContent(), page.getCharset(), config.getDatasetClass(),
+                                         config.getSelectedFields(), recordsMember);
+  }
+
+  /**
+   * Fetches the page following the given one, or returns null if the split has no more pages.
+   */
+  @Nullable
+  private GitHubPage fetchNextPage(@Nullable GitHubPage previousPage) throws IOException {
+    String nextUrl = pageSequence.nextUrl(previousPage);
+    return nextUrl == null ? null : fetchPage(nextUrl);
+  }
+
+  private GitHubPage fetchPage(String url) throws IOException {
+    return GitHubRequestFactory.fetchPage(url, config, cache);
+  }
+
+  /**
+   * Releases the current page, so that the underlying connection can be reused for the next one.
+   */
+  private void closePage() throws IOException {
+    if (currentPage != null) {
+      currentPage.close();
+      currentPage = null;
+      config.getRequestMetrics().recordPage(pageDecodeNanos);
+      pageDecodeNanos = 0;
+    }
+    if (page != null) {
+      page.close();
+      page = null;
+    }
   }
 }
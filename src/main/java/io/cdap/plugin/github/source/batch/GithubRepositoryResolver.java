@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.github.source.batch;
+
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.HttpStatusCodes;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.gson.GsonFactory;
+import io.cdap.plugin.github.source.common.GitHubPage;
+import io.cdap.plugin.github.source.common.GitHubRequestFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * Resolves the configured list of repository names and glob patterns into the names of the repositories to read.
+ *
+ * Patterns are matched against the repositories of the owner, which are listed once through the organization
+ * repositories endpoint, or the user repositories endpoint if the owner is not an organization. The repositories are
+ * resolved once per run by the source, which hands them over to the planning.
+ */
+public class GithubRepositoryResolver {
+
+  private static final Pattern GLOB_CHARACTERS = Pattern.compile("[*?]");
+
+  /**
+   * Returns whether the given repository name is a glob pattern.
+   */
+  public static boolean isPattern(String repoName) {
+    return GLOB_CHARACTERS.matcher(repoName).find();
+  }
+
+  /**
+   * Returns the names of the configured repositories in the order they are listed in, without duplicates.
+   */
+  public static List<String> resolve(GithubBatchSourceConfig config) throws IOException {
+    List<String> repoNames = config.getRepoNames();
+    List<String> ownerRepoNames = repoNames.stream().anyMatch(GithubRepositoryResolver::isPattern)
+      ? listRepositories(config) : null;
+    return resolve(repoNames, ownerRepoNames);
+  }
+
+  static List<String> resolve(List<String> repoNames, List<String> ownerRepoNames) {
+    Set<String> result = new LinkedHashSet<>();
+    for (String repoName : repoNames) {
+      if (!isPattern(repoName)) {
+        result.add(repoName);
+        continue;
+      }
+      Pattern pattern = toRegex(repoName);
+      for (String ownerRepoName : ownerRepoNames) {
+        if (pattern.matcher(ownerRepoName).matches()) {
+          result.add(ownerRepoName);
+        }
+      }
+    }
+    return new ArrayList<>(result);
+  }
+
+  /**
+   * Returns the names of all repositories of the configured owner visible to the configured credentials. The
+   * repositories of a user, who is not the authenticated user, are listed through the public user repositories
+   * endpoint, which leaves out private repositories.
+   */
+  private static List<String> listRepositories(GithubBatchSourceConfig config) throws IOException {
+    String host = GitHubRequestFactory.getHostname(config);
+    String perPage = "?per_page=" + GitHubRequestFactory.DEFAULT_PAGE_SIZE;
+    try {
+      return listRepositories(host + "/orgs/" + config.getRepoOwner() + "/repos" + perPage, config);
+    } catch (HttpResponseException e) {
+      if (e.getStatusCode() != HttpStatusCodes.STATUS_CODE_NOT_FOUND) {
+        throw e;
+      }
+    }
+    // the owner is a user rather than an organization
+    if (config.getRepoOwner().equalsIgnoreCase(getAuthenticatedUser(host, config))) {
+      return listRepositories(host + "/user/repos" + perPage + "&affiliation=owner", config);
+    }
+    return listRepositories(host + "/users/" + config.getRepoOwner() + "/repos" + perPage, config);
+  }
+
+  /**
+   * Returns the login of the user the configured credentials authenticate as, or null if they do not authenticate
+   * as a user, e.g. as a GitHub App installation.
+   */
+  @Nullable
+  private static String getAuthenticatedUser(String host, GithubBatchSourceConfig config) throws IOException {
+    try (GitHubPage page = GitHubRequestFactory.fetchRestPage(host + "/user", config, null)) {
+      GenericJson user = GsonFactory.getDefaultInstance()
+        .fromInputStream(page.getContent(), page.getCharset(), GenericJson.class);
+      Object login = user.get("login");
+      return login == null ? null : login.toString();
+    } catch (HttpResponseException e) {
+      if (e.getStatusCode() == HttpStatusCodes.STATUS_CODE_UNAUTHORIZED
+        || e.getStatusCode() == HttpStatusCodes.STATUS_CODE_FORBIDDEN) {
+        return null;
+      }
+      throw e;
+    }
+  }
+
+  private static List<String> listRepositories(String url, GithubBatchSourceConfig config) throws IOException {
+    List<String> repoNames = new ArrayList<>();
+    String nextUrl = url;
+    while (nextUrl != null) {
+      try (GitHubPage page = GitHubRequestFactory.fetchRestPage(nextUrl, config, null)) {
+        GenericJson[] repositories = GsonFactory.getDefaultInstance()
+          .fromInputStream(page.getContent(), page.getCharset(), GenericJson[].class);
+        for (GenericJson repository : repositories) {
+          repoNames.add(String.valueOf(repository.get("name")));
+        }
+        nextUrl = GitHubRequestFactory.getLinkUrl(page.getLink(), GitHubRequestFactory.NEXT_LINK);
+      }
+    }
+    return repoNames;
+  }
+
+  /**
+   * Converts the given glob pattern, in which '*' matches any number of characters and '?' a single one, into a
+   * case-insensitive regular expression, as GitHub treats repository names.
+   */
+  static Pattern toRegex(String glob) {
+    StringBuilder regex = new StringBuilder();
+    Matcher matcher = GLOB_CHARACTERS.matcher(glob);
+    int start = 0;
+    while (matcher.find()) {
+      regex.append(Pattern.quote(glob.substring(start, matcher.start())));
+      regex.append(matcher.group().equals("*") ? ".*" : ".");
+      start = matcher.end();
+    }
+    regex.append(Pattern.quote(glob.substring(start)));
+    return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+  }
+}
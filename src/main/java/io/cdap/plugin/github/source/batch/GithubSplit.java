@@ -19,38 +19,104 @@ package io.cdap.plugin.github.source.batch;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.InputSplit;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
 
 /**
- * A no-op split.
+ * A split that covers a contiguous, inclusive range of pages of a GitHub dataset, or, in cursor mode, all the
+ * pages reachable from its first page through the 'next' links.
  */
 public class GithubSplit extends InputSplit implements Writable {
 
+  /**
+   * Pages larger than this once compressed are not inlined into the split and are fetched by the reader instead.
+   */
+  private static final int MAX_INLINED_PAGE_SIZE = 1024 * 1024;
+
   private String link;
+  private int startPage;
+  private int endPage;
+  private boolean cursor;
+  private byte[] firstPageContent;
+  private String firstPageLink;
+  private String repository;
+  private long recordsCount = -1;
 
   public GithubSplit() {
     // For serialization
   }
 
-  public GithubSplit(String link) {
+  public GithubSplit(String link, int startPage, int endPage) {
     this.link = link;
+    this.startPage = startPage;
+    this.endPage = endPage;
+  }
+
+  /**
+   * Creates a split reading the pages reachable from the given page by following the 'next' links, used when the
+   * number of pages is not known upfront.
+   */
+  public static GithubSplit cursor(String link) {
+    GithubSplit split = new GithubSplit(link, 1, 1);
+    split.cursor = true;
+    return split;
   }
 
   @Override
   public void write(DataOutput dataOutput) throws IOException {
     dataOutput.writeUTF(link);
+    dataOutput.writeInt(startPage);
+    dataOutput.writeInt(endPage);
+    dataOutput.writeBoolean(cursor);
+    if (firstPageContent == null) {
+      dataOutput.writeInt(-1);
+    } else {
+      dataOutput.writeInt(firstPageContent.length);
+      dataOutput.write(firstPageContent);
+    }
+    dataOutput.writeBoolean(firstPageLink != null);
+    if (firstPageLink != null) {
+      dataOutput.writeUTF(firstPageLink);
+    }
+    dataOutput.writeBoolean(repository != null);
+    if (repository != null) {
+      dataOutput.writeUTF(repository);
+    }
+    dataOutput.writeLong(recordsCount);
   }
 
   @Override
   public void readFields(DataInput dataInput) throws IOException {
     this.link = dataInput.readUTF();
+    this.startPage = dataInput.readInt();
+    this.endPage = dataInput.readInt();
+    this.cursor = dataInput.readBoolean();
+    int firstPageContentLength = dataInput.readInt();
+    if (firstPageContentLength < 0) {
+      this.firstPageContent = null;
+    } else {
+      this.firstPageContent = new byte[firstPageContentLength];
+      dataInput.readFully(firstPageContent);
+    }
+    this.firstPageLink = dataInput.readBoolean() ? dataInput.readUTF() : null;
+    this.repository = dataInput.readBoolean() ? dataInput.readUTF() : null;
+    this.recordsCount = dataInput.readLong();
   }
 
+  /**
+   * Returns the expected number of records of the split, or 0 if it is not known, so that the largest splits can
+   * be scheduled first.
+   */
   @Override
   public long getLength() {
-    return 0;
+    return Math.max(recordsCount, 0);
   }
 
   @Override
@@ -61,4 +127,84 @@ public class GithubSplit extends InputSplit implements Writable {
   public String getLink() {
     return link;
   }
+
+  public int getStartPage() {
+    return startPage;
+  }
+
+  public int getEndPage() {
+    return endPage;
+  }
+
+  /**
+   * Returns true if the split follows the 'next' links instead of reading a range of page numbers.
+   */
+  public boolean isCursor() {
+    return cursor;
+  }
+
+  /**
+   * Returns the repository the split reads, as 'owner/name', or null if it was not set.
+   */
+  @Nullable
+  public String getRepository() {
+    return repository;
+  }
+
+  public void setRepository(@Nullable String repository) {
+    this.repository = repository;
+  }
+
+  public int getPagesCount() {
+    return endPage - startPage + 1;
+  }
+
+  /**
+   * Returns the number of records the split is expected to read, or -1 if it is not known. It is exact for the
+   * splits of counted records, and an upper bound assuming full pages otherwise, as the last page may be short.
+   * Records created after the planning are read as well, so the split may still read a few more.
+   */
+  public long getRecordsCount() {
+    return recordsCount;
+  }
+
+  public void setRecordsCount(long recordsCount) {
+    this.recordsCount = recordsCount;
+  }
+
+  /**
+   * Inlines the already fetched raw content of the first page of the range in compressed form, so that the
+   * reader does not have to request it again. Content exceeding {@link #MAX_INLINED_PAGE_SIZE} is dropped.
+   */
+  public void setFirstPageContent(byte[] content) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(content);
+    }
+    firstPageContent = compressed.size() > MAX_INLINED_PAGE_SIZE ? null : compressed.toByteArray();
+  }
+
+  public boolean hasFirstPageContent() {
+    return firstPageContent != null;
+  }
+
+  /**
+   * Returns the 'Link' header of the inlined first page, or null if it has none.
+   */
+  @Nullable
+  public String getFirstPageLink() {
+    return firstPageLink;
+  }
+
+  public void setFirstPageLink(@Nullable String firstPageLink) {
+    this.firstPageLink = firstPageLink;
+  }
+
+  /**
+   * Returns the uncompressed content of the first page of the range, or null if it was not inlined.
+   */
+  @Nullable
+  public InputStream getFirstPageContent() throws IOException {
+    return firstPageContent == null ? null : new GZIPInputStream(new ByteArrayInputStream(firstPageContent));
+  }
 }
@@ -0,0 +1,501 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.github.source.batch;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.gson.GsonFactory;
+import io.cdap.plugin.github.source.common.GitHubPage;
+import io.cdap.plugin.github.source.common.GitHubRequestFactory;
+import io.cdap.plugin.github.source.common.GitHubSearch;
+import org.apache.hadoop.mapreduce.InputSplit;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+
+/**
+ * Splits the commits of a repository into windows of commit dates, which are read by independent splits.
+ *
+ * The range between the 'since' timestamp, or the date of the oldest commit, and the start of the planning is
+ * divided in proportion to the number of commits it holds, and windows still holding more commits than a split
+ * should read are divided again, so that busy periods get narrow windows and quiet ones wide windows. The commits
+ * of a window are counted with a single request for pages of one commit, which 'last' link carries the count.
+ * Without a 'since' timestamp, the oldest window has no lower bound, as commit dates are not ordered like the
+ * commits are listed, and the date of the last commit listed only estimates where the commits start. The windows
+ * must hold all the commits counted in the range, or the planning fails.
+ * Every split reads its window through the 'next' links. As the windows are closed, commits pushed during the run
+ * do not shift the pages of a split, unlike with page number ranges.
+ *
+ * Search results are sliced the same way by their creation dates, into slices of at most
+ * {@link GitHubSearch#MAX_RESULTS} results, which are counted by the total count of the search.
+ */
+public class GithubTimeWindowPlanner {
+
+  static final String SINCE_PARAMETER = "since";
+  static final String UNTIL_PARAMETER = "until";
+  /**
+   * Number of windows the records are divided into, if neither the records of a window nor the number of splits
+   * are limited, so that the planning takes a fraction of the requests of the read.
+   */
+  static final int DEFAULT_WINDOWS_COUNT = 32;
+
+  private final WindowCounter counter;
+  private final ExecutorService executor;
+  private final Long maxCount;
+  private final Integer maxSplits;
+
+  /**
+   * Creates a planner of windows holding at most the given number of records, unless more are needed to stay
+   * within the given maximum number of splits. Without a maximum number of records, the records are divided into
+   * the maximum number of splits, or {@link #DEFAULT_WINDOWS_COUNT} windows, of at least a page each.
+   */
+  GithubTimeWindowPlanner(WindowCounter counter, ExecutorService executor, @Nullable Long maxCount,
+                          @Nullable Integer maxSplits) {
+    this.counter = counter;
+    this.executor = executor;
+    this.maxCount = maxCount;
+    this.maxSplits = maxSplits;
+  }
+
+  /**
+   * Creates a split for every window of the commits of the given repository committed until the given time, or
+   * until the configured time, if it is earlier. The commits of the windows are counted concurrently with the given
+   * executor.
+   */
+  static List<InputSplit> createSplits(GithubBatchSourceConfig config, String repoName, ExecutorService executor,
+                                       Instant until) throws IOException {
+    String url = GitHubRequestFactory.generateFirstCallUrl(config, repoName);
+    return createSplits(config, repoName, url, new RestCommitCounter(url, config), executor, until);
+  }
+
+  /**
+   * Creates a split for every window of the records of the given dataset url, which are counted with the given
+   * counter.
+   */
+  static List<InputSplit> createSplits(GithubBatchSourceConfig config, String repoName, String url,
+                                       WindowCounter counter, ExecutorService executor, Instant until)
+    throws IOException {
+    Long maxCount = config.getPagesPerSplit() == null ? null :
+      (long) config.getPagesPerSplit() * GitHubRequestFactory.DEFAULT_PAGE_SIZE;
+    GithubTimeWindowPlanner planner = new GithubTimeWindowPlanner(counter, executor, maxCount, config.getMaxSplits());
+    Instant since = config.getSince() == null ? null : OffsetDateTime.parse(config.getSince()).toInstant();
+    if (config.getUntil() != null) {
+      Instant configuredUntil = OffsetDateTime.parse(config.getUntil()).toInstant();
+      until = configuredUntil.isBefore(until) ? configuredUntil : until;
+    }
+    List<InputSplit> splits = new ArrayList<>();
+    for (TimeWindow window : planner.plan(since, until)) {
+      GithubSplit split = GithubSplit.cursor(buildWindowUrl(url, window.getSince(), window.getUntil()));
+      split.setRepository(config.getRepoOwner() + "/" + repoName);
+      split.setRecordsCount(window.getCount());
+      splits.add(split);
+    }
+    return splits;
+  }
+
+  /**
+   * Creates the splits of the search results of the given repository created until the given time, which read the
+   * pages of a slice of the results each. The results of the slices are counted concurrently with the given
+   * executor.
+   */
+  static List<InputSplit> createSearchSplits(GithubBatchSourceConfig config, String repoName,
+                                             ExecutorService executor, Instant until) throws IOException {
+    String url = GitHubRequestFactory.generateFirstCallUrl(config, repoName);
+    GithubTimeWindowPlanner planner = new GithubTimeWindowPlanner(new SearchResultCounter(url, config), executor,
+                                                                  (long) GitHubSearch.MAX_RESULTS, null);
+    List<InputSplit> splits = new ArrayList<>();
+    for (TimeWindow window : planner.plan(null, until)) {
+      // results beyond the limit of a slice lasting a single second cannot be read
+      long count = Math.min(window.getCount(), GitHubSearch.MAX_RESULTS);
+      int pagesCount = (int) ((count + GitHubRequestFactory.DEFAULT_PAGE_SIZE - 1) /
+        GitHubRequestFactory.DEFAULT_PAGE_SIZE);
+      String sliceUrl = GitHubSearch.buildSliceUrl(url, window.getSince(), window.getUntil());
+      for (InputSplit inputSplit : GithubInputFormat.createSplits(sliceUrl, pagesCount, config.getPagesPerSplit(),
+                                                                  null)) {
+        GithubSplit split = (GithubSplit) inputSplit;
+        split.setRepository(config.getRepoOwner() + "/" + repoName);
+        // only the last page of the slice is short
+        long pageSize = GitHubRequestFactory.DEFAULT_PAGE_SIZE;
+        split.setRecordsCount(Math.min(count, split.getEndPage() * pageSize) - (split.getStartPage() - 1) * pageSize);
+        splits.add(split);
+      }
+    }
+    return splits;
+  }
+
+  /**
+   * Returns the non-empty windows of the commits committed between the given times, in chronological order.
+   * The windows hold at most the commits of the configured number of pages, unless they last a single second or
+   * have to be merged to stay within the maximum number of splits. Without a 'since' time, the oldest window has
+   * no lower bound.
+   */
+  List<TimeWindow> plan(@Nullable Instant since, Instant until) throws IOException {
+    long untilSecond = until.getEpochSecond();
+    if (since != null && since.getEpochSecond() > untilSecond) {
+      return new ArrayList<>();
+    }
+    long totalCount = counter.count(since, until);
+    if (totalCount == 0) {
+      return new ArrayList<>();
+    }
+    boolean openStart = since == null;
+    long sinceSecond = openStart ? Math.min(counter.getOldestDate(until).getEpochSecond(), untilSecond) :
+      since.getEpochSecond();
+    long maxCount = getMaxCount(totalCount);
+
+    List<TimeWindow> windows = new ArrayList<>();
+    List<TimeWindow> pendingWindows = new ArrayList<>();
+    pendingWindows.add(new TimeWindow(sinceSecond, untilSecond, totalCount, openStart));
+    while (!pendingWindows.isEmpty()) {
+      List<TimeWindow> subWindows = new ArrayList<>();
+      for (TimeWindow window : pendingWindows) {
+        if (window.getCount() <= maxCount || window.getSeconds() == 1) {
+          windows.add(window);
+        } else {
+          subWindows.addAll(window.divide((int) Math.min((window.getCount() + maxCount - 1) / maxCount,
+                                                         window.getSeconds())));
+        }
+      }
+      pendingWindows = count(subWindows);
+    }
+    windows.sort(Comparator.comparingLong(TimeWindow::getSinceSecond));
+    if (openStart && !windows.isEmpty() && !windows.get(0).isOpenStart()) {
+      // the open window was empty, so the oldest remaining window covers the records dated before it instead
+      TimeWindow oldest = windows.get(0);
+      windows.set(0, new TimeWindow(oldest.getSinceSecond(), oldest.getUntilSecond(), oldest.getCount(), true));
+    }
+    if (maxSplits != null) {
+      mergeWindows(windows, maxSplits);
+    }
+    checkCount(windows, since, until, totalCount);
+    return windows;
+  }
+
+  private long getMaxCount(long totalCount) {
+    int windowsCount = maxSplits == null ? DEFAULT_WINDOWS_COUNT : maxSplits;
+    long splitCount = (totalCount + windowsCount - 1) / windowsCount;
+    if (maxCount == null) {
+      return Math.max(splitCount, GitHubRequestFactory.DEFAULT_PAGE_SIZE);
+    }
+    return maxSplits == null ? maxCount : Math.max(maxCount, splitCount);
+  }
+
+  /**
+   * Checks that the given windows hold all the records counted between the given times, counting them again once
+   * in case records were added or removed during the planning.
+   */
+  private void checkCount(List<TimeWindow> windows, @Nullable Instant since, Instant until, long totalCount)
+    throws IOException {
+    long windowsCount = windows.stream().mapToLong(TimeWindow::getCount).sum();
+    if (windowsCount == totalCount) {
+      return;
+    }
+    long recountedCount = counter.count(since, until);
+    if (windowsCount != recountedCount) {
+      throw new IOException(String.format("The windows until %s hold %d records, but %d were counted in total.",
+                                          until, windowsCount, recountedCount));
+    }
+  }
+
+  /**
+   * Merges the adjacent windows holding the fewest commits together until there are at most the given number,
+   * as the division in proportion to the count can leave a few more windows than needed.
+   */
+  private static void mergeWindows(List<TimeWindow> windows, int maxWindows) {
+    while (windows.size() > maxWindows) {
+      int lightestPair = 0;
+      for (int i = 1; i < windows.size() - 1; i++) {
+        if (windows.get(i).getCount() + windows.get(i + 1).getCount()
+          < windows.get(lightestPair).getCount() + windows.get(lightestPair + 1).getCount()) {
+          lightestPair = i;
+        }
+      }
+      TimeWindow first = windows.get(lightestPair);
+      TimeWindow second = windows.remove(lightestPair + 1);
+      // the gap between the windows holds no commits
+      windows.set(lightestPair, new TimeWindow(first.getSinceSecond(), second.getUntilSecond(),
+                                               first.getCount() + second.getCount(), first.isOpenStart()));
+    }
+  }
+
+  /**
+   * Counts the commits of the given windows concurrently and returns the non-empty ones.
+   */
+  private List<TimeWindow> count(List<TimeWindow> windows) throws IOException {
+    List<Future<TimeWindow>> countedWindows = new ArrayList<>();
+    for (TimeWindow window : windows) {
+      Callable<TimeWindow> countWindow = () -> new TimeWindow(window.getSinceSecond(), window.getUntilSecond(),
+                                                              counter.count(window.getSince(), window.getUntil()),
+                                                              window.isOpenStart());
+      countedWindows.add(executor.submit(countWindow));
+    }
+    List<TimeWindow> result = new ArrayList<>();
+    try {
+      for (Future<TimeWindow> countedWindow : countedWindows) {
+        TimeWindow window = countedWindow.get();
+        if (window.getCount() > 0) {
+          result.add(window);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while counting GitHub commits");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Failed to count GitHub commits", e.getCause());
+    } finally {
+      countedWindows.forEach(countedWindow -> countedWindow.cancel(true));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the given dataset url restricted to the commits committed between the given times, both inclusive.
+   */
+  static String buildWindowUrl(String url, @Nullable Instant since, Instant until) {
+    GenericUrl windowUrl = new GenericUrl(url);
+    if (since == null) {
+      windowUrl.remove(SINCE_PARAMETER);
+    } else {
+      windowUrl.set(SINCE_PARAMETER, DateTimeFormatter.ISO_INSTANT.format(since));
+    }
+    windowUrl.set(UNTIL_PARAMETER, DateTimeFormatter.ISO_INSTANT.format(until));
+    return windowUrl.build();
+  }
+
+  /**
+   * Counts the records of a repository, which are ordered by a date, like the commit date of commits.
+   */
+  interface WindowCounter {
+    /**
+     * Returns the number of records dated between the given times, both inclusive.
+     */
+    long count(@Nullable Instant since, Instant until) throws IOException;
+
+    /**
+     * Returns the date of the oldest record dated until the given time, which exists.
+     */
+    Instant getOldestDate(Instant until) throws IOException;
+  }
+
+  /**
+   * Counts the commits of a repository with the REST API, by the number of pages of a single commit.
+   */
+  private static class RestCommitCounter implements WindowCounter {
+    private final String url;
+    private final GithubBatchSourceConfig config;
+
+    private RestCommitCounter(String url, GithubBatchSourceConfig config) {
+      this.url = url;
+      this.config = config;
+    }
+
+    @Override
+    public long count(@Nullable Instant since, Instant until) throws IOException {
+      String lastUrl;
+      try (GitHubPage page = fetchCommit(buildWindowUrl(url, since, until))) {
+        lastUrl = GitHubRequestFactory.getLinkUrl(page.getLink(), GitHubRequestFactory.LAST_LINK);
+        if (lastUrl == null) {
+          return readCommits(page).length;
+        }
+      }
+      Integer pageNumber = GitHubRequestFactory.getPageNumber(lastUrl);
+      if (pageNumber == null) {
+        throw new IOException(String.format("GitHub returned a 'last' link without page number: %s", lastUrl));
+      }
+      return pageNumber;
+    }
+
+    @Override
+    public Instant getOldestDate(Instant until) throws IOException {
+      String oldestCommitUrl = buildWindowUrl(url, null, until);
+      try (GitHubPage page = fetchCommit(oldestCommitUrl)) {
+        String lastUrl = GitHubRequestFactory.getLinkUrl(page.getLink(), GitHubRequestFactory.LAST_LINK);
+        if (lastUrl == null) {
+          return getCommitDate(readCommits(page));
+        }
+        oldestCommitUrl = lastUrl;
+      }
+      try (GitHubPage page = fetchCommit(oldestCommitUrl)) {
+        return getCommitDate(readCommits(page));
+      }
+    }
+
+    private GitHubPage fetchCommit(String commitUrl) throws IOException {
+      GenericUrl singleCommitUrl = new GenericUrl(commitUrl);
+      singleCommitUrl.set("per_page", 1);
+      return GitHubRequestFactory.fetchRestPage(singleCommitUrl.build(), config, null);
+    }
+
+    private static GenericJson[] readCommits(GitHubPage page) throws IOException {
+      return GsonFactory.getDefaultInstance().fromInputStream(page.getContent(), page.getCharset(),
+                                                              GenericJson[].class);
+    }
+
+    /**
+     * Returns the committer date of the only commit of the given page, which the 'since' and 'until' filters apply to.
+     */
+    private static Instant getCommitDate(GenericJson[] commits) throws IOException {
+      Object date = null;
+      if (commits.length > 0 && commits[0].get("commit") instanceof Map) {
+        Object committer = ((Map<?, ?>) commits[0].get("commit")).get("committer");
+        date = committer instanceof Map ? ((Map<?, ?>) committer).get("date") : null;
+      }
+      if (date == null) {
+        throw new IOException("GitHub returned a commit without committer date.");
+      }
+      try {
+        return Instant.parse(date.toString());
+      } catch (DateTimeParseException e) {
+        throw new IOException(String.format("GitHub returned invalid commit date '%s'.", date), e);
+      }
+    }
+  }
+
+  /**
+   * Counts the results of a search by their creation dates, with the total count of a page of a single result.
+   */
+  private static class SearchResultCounter implements WindowCounter {
+    private final String url;
+    private final GithubBatchSourceConfig config;
+
+    private SearchResultCounter(String url, GithubBatchSourceConfig config) {
+      this.url = url;
+      this.config = config;
+    }
+
+    @Override
+    public long count(@Nullable Instant since, Instant until) throws IOException {
+      Object totalCount = search(since, until).get(GitHubSearch.TOTAL_COUNT_MEMBER);
+      if (!(totalCount instanceof Number)) {
+        throw new IOException("GitHub returned search results without total count.");
+      }
+      return ((Number) totalCount).longValue();
+    }
+
+    @Override
+    public Instant getOldestDate(Instant until) throws IOException {
+      // the results are sorted from the oldest to the newest
+      Object items = search(null, until).get(GitHubSearch.RECORDS_MEMBER);
+      Object createdAt = null;
+      if (items instanceof List && !((List<?>) items).isEmpty() && ((List<?>) items).get(0) instanceof Map) {
+        createdAt = ((Map<?, ?>) ((List<?>) items).get(0)).get("created_at");
+      }
+      if (createdAt == null) {
+        throw new IOException("GitHub returned a search result without creation date.");
+      }
+      try {
+        return Instant.parse(createdAt.toString());
+      } catch (DateTimeParseException e) {
+        throw new IOException(String.format("GitHub returned invalid creation date '%s'.", createdAt), e);
+      }
+    }
+
+    private GenericJson search(@Nullable Instant since, Instant until) throws IOException {
+      GenericUrl singleResultUrl = new GenericUrl(GitHubSearch.buildSliceUrl(url, since, until));
+      singleResultUrl.set("per_page", 1);
+      try (GitHubPage page = GitHubRequestFactory.fetchRestPage(singleResultUrl.build(), config, null)) {
+        return GsonFactory.getDefaultInstance().fromInputStream(page.getContent(), page.getCharset(),
+                                                                GenericJson.class);
+      }
+    }
+  }
+
+  /**
+   * Records dated between two seconds, both inclusive. A window with an open start also holds the records dated
+   * before its first second, which is then only used to divide it.
+   */
+  static class TimeWindow {
+    private final long sinceSecond;
+    private final long untilSecond;
+    private final long count;
+    private final boolean openStart;
+
+    TimeWindow(long sinceSecond, long untilSecond, long count) {
+      this(sinceSecond, untilSecond, count, false);
+    }
+
+    TimeWindow(long sinceSecond, long untilSecond, long count, boolean openStart) {
+      this.sinceSecond = sinceSecond;
+      this.untilSecond = untilSecond;
+      this.count = count;
+      this.openStart = openStart;
+    }
+
+    long getSinceSecond() {
+      return sinceSecond;
+    }
+
+    long getUntilSecond() {
+      return untilSecond;
+    }
+
+    /**
+     * Returns the first second of the window, or null if it has an open start.
+     */
+    @Nullable
+    Instant getSince() {
+      return openStart ? null : Instant.ofEpochSecond(sinceSecond);
+    }
+
+    Instant getUntil() {
+      return Instant.ofEpochSecond(untilSecond);
+    }
+
+    long getCount() {
+      return count;
+    }
+
+    boolean isOpenStart() {
+      return openStart;
+    }
+
+    long getSeconds() {
+      return untilSecond - sinceSecond + 1;
+    }
+
+    /**
+     * Divides the window into the given number of adjacent windows of equal length, which commits are not counted.
+     */
+    List<TimeWindow> divide(int parts) {
+      List<TimeWindow> windows = new ArrayList<>(parts);
+      long start = sinceSecond;
+      for (int i = 1; i <= parts; i++) {
+        long end = i == parts ? untilSecond : sinceSecond + getSeconds() * i / parts - 1;
+        // only the first part keeps the open start
+        windows.add(new TimeWindow(start, end, -1, openStart && i == 1));
+        start = end + 1;
+      }
+      return windows;
+    }
+  }
+}
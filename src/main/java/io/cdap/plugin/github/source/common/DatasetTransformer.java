@@ -19,66 +19,209 @@ import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.plugin.github.source.common.model.GitHubModel;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
 
 /**
  * This is helper class for transforming {@link GitHubModel} instance to {@link StructuredRecord}.
+ *
+ * The fields of a model class are resolved once per model class and schema into a cached conversion plan of
+ * method handles, so that transforming a record does not involve any reflective lookups.
  */
 public class DatasetTransformer {
 
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final ConcurrentMap<PlanKey, RecordPlan> PLANS = new ConcurrentHashMap<>();
+
   /**
    * Transforms {@link GitHubModel} instance to {@link StructuredRecord} instance accordingly to given schema.
    */
   public static StructuredRecord transform(Object model, Schema schema) {
-    try {
-      StructuredRecord.Builder builder = StructuredRecord.builder(schema);
-      Class<?> clazz = model.getClass();
-      List<Schema.Field> schemaFields = schema.getFields();
-      for (Schema.Field schemaField : schemaFields) {
-        Schema.Type schemaType = schemaField.getSchema().getType();
-        /**
-         *TODO - Check for Field NULL and implement validation
-         * https://issues.cask.co/browse/PLUGIN-383
-         */
-        Field field = getFieldByName(schemaField.getName(), clazz);
-        if (schemaType.isSimpleType() || Schema.Type.UNION.equals(schemaType)) {
-          builder.set(schemaField.getName(), field.get(model));
-        } else if (Schema.Type.ARRAY.equals(schemaType)) {
-          Schema componentSchema = schemaField.getSchema().getComponentSchema();
-          Object result = field.get(model);
-          if (Objects.nonNull(componentSchema) && !componentSchema.isSimpleOrNullableSimple()) {
-            result = ((List<?>) result).stream()
-              .map(arrItem -> transform(arrItem, componentSchema))
-              .collect(Collectors.toList());
-          }
-          builder.set(schemaField.getName(), result);
-        } else {
-          StructuredRecord structuredRecord = transform(field.get(model), schemaField.getSchema());
-          builder.set(schemaField.getName(), structuredRecord);
+    return getPlan(model.getClass(), schema).transform(model, null);
+  }
+
+  /**
+   * Transforms {@link GitHubModel} instance to {@link StructuredRecord} instance accordingly to given schema, which
+   * {@link SchemaBuilder#SOURCE_REPOSITORY_FIELD} is set to the given repository.
+   */
+  public static StructuredRecord transform(Object model, Schema schema, String sourceRepository) {
+    return getPlan(model.getClass(), schema).transform(model, sourceRepository);
+  }
+
+  private static RecordPlan getPlan(Class<?> clazz, Schema schema) {
+    PlanKey key = new PlanKey(clazz, schema);
+    RecordPlan plan = PLANS.get(key);
+    if (plan == null) {
+      // not computeIfAbsent, compiling a plan compiles the plans of nested records as well
+      plan = compile(clazz, schema);
+      RecordPlan existing = PLANS.putIfAbsent(key, plan);
+      plan = existing == null ? plan : existing;
+    }
+    return plan;
+  }
+
+  private static RecordPlan compile(Class<?> clazz, Schema schema) {
+    List<Schema.Field> schemaFields = Objects.requireNonNull(schema.getFields());
+    FieldPlan[] fieldPlans = new FieldPlan[schemaFields.size()];
+    for (int i = 0; i < fieldPlans.length; i++) {
+      Schema.Field schemaField = schemaFields.get(i);
+      Schema.Type schemaType = schemaField.getSchema().getType();
+      /**
+       *TODO - Check for Field NULL and implement validation
+       * https://issues.cask.co/browse/PLUGIN-383
+       */
+      Field field = findFieldByName(schemaField.getName(), clazz);
+      if (field == null && SchemaBuilder.SOURCE_REPOSITORY_FIELD.equals(schemaField.getName())) {
+        // not a field of the model, filled in with the repository the record was read from
+        fieldPlans[i] = new FieldPlan(schemaField.getName(), null, null);
+        continue;
+      }
+      if (field == null) {
+        throw new IllegalStateException(String.format("%s has no field %s", clazz.getSimpleName(),
+                                                      schemaField.getName()));
+      }
+      ValueConverter converter = null;
+      if (Schema.Type.ARRAY.equals(schemaType)) {
+        Schema componentSchema = schemaField.getSchema().getComponentSchema();
+        if (Objects.nonNull(componentSchema) && !componentSchema.isSimpleOrNullableSimple()) {
+          Class<?> componentClass = (Class<?>)
+            ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+          RecordPlan componentPlan = getPlan(componentClass, componentSchema);
+          converter = value -> {
+            List<?> items = (List<?>) value;
+            List<StructuredRecord> records = new ArrayList<>(items.size());
+            for (Object item : items) {
+              records.add(componentPlan.transform(item, null));
+            }
+            return records;
+          };
         }
+      } else if (!schemaType.isSimpleType() && !Schema.Type.UNION.equals(schemaType)) {
+        RecordPlan nestedPlan = getPlan(field.getType(), schemaField.getSchema());
+        converter = value -> nestedPlan.transform(value, null);
       }
-      return builder.build();
+      fieldPlans[i] = new FieldPlan(schemaField.getName(), getGetter(field), converter);
+    }
+    return new RecordPlan(schema, fieldPlans);
+  }
+
+  private static MethodHandle getGetter(Field field) {
+    try {
+      field.setAccessible(true);
+      return MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
     } catch (IllegalAccessException e) {
-      throw new IllegalStateException(String.format("Exception when transforming %s to StructuredRecord",
-                                                    model.getClass().getSimpleName()), e);
+      throw new IllegalStateException(String.format("Cannot access field %s of %s", field.getName(),
+                                                    field.getDeclaringClass().getSimpleName()), e);
     }
   }
 
-  private static Field getFieldByName(String fieldName, Class<?> clazz) {
-    Field declaredField = null;
+  @Nullable
+  private static Field findFieldByName(String fieldName, Class<?> clazz) {
     Class<?> currentClass = clazz;
     while (currentClass != Object.class) {
-      try {
-        declaredField = currentClass.getDeclaredField(fieldName);
-        declaredField.setAccessible(true);
-        return declaredField;
-      } catch (NoSuchFieldException e) {
-        currentClass = currentClass.getSuperclass();
+      for (Field declaredField : currentClass.getDeclaredFields()) {
+        if (declaredField.getName().equals(fieldName)) {
+          return declaredField;
+        }
       }
+      currentClass = currentClass.getSuperclass();
+    }
+    return null;
+  }
+
+  /**
+   * Converts the value of a model field to the value of a record field.
+   */
+  private interface ValueConverter {
+    Object convert(Object value);
+  }
+
+  /**
+   * Pre-resolved accessor and conversion of a single record field.
+   */
+  private static class FieldPlan {
+    private final String name;
+    private final MethodHandle getter;
+    private final ValueConverter converter;
+
+    private FieldPlan(String name, MethodHandle getter, ValueConverter converter) {
+      this.name = name;
+      this.getter = getter;
+      this.converter = converter;
+    }
+  }
+
+  /**
+   * Conversion plan of a model class into records of a given schema.
+   */
+  private static class RecordPlan {
+    private final Schema schema;
+    private final FieldPlan[] fields;
+
+    private RecordPlan(Schema schema, FieldPlan[] fields) {
+      this.schema = schema;
+      this.fields = fields;
+    }
+
+    private StructuredRecord transform(Object model, @Nullable String sourceRepository) {
+      StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+      for (FieldPlan field : fields) {
+        if (field.getter == null) {
+          builder.set(field.name, sourceRepository);
+          continue;
+        }
+        Object value;
+        try {
+          value = (Object) field.getter.invokeExact(model);
+        } catch (Throwable e) {
+          throw new IllegalStateException(String.format("Exception when transforming %s to StructuredRecord",
+                                                        model.getClass().getSimpleName()), e);
+        }
+        if (value != null && field.converter != null) {
+          value = field.converter.convert(value);
+        }
+        builder.set(field.name, value);
+      }
+      return builder.build();
+    }
+  }
+
+  /**
+   * Key of a cached {@link RecordPlan}.
+   */
+  private static class PlanKey {
+    private final Class<?> clazz;
+    private final Schema schema;
+
+    private PlanKey(Class<?> clazz, Schema schema) {
+      this.clazz = clazz;
+      this.schema = schema;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      PlanKey that = (PlanKey) o;
+      return clazz.equals(that.clazz) && schema.equals(that.schema);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * clazz.hashCode() + schema.hashCode();
     }
-    return declaredField;
   }
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.github.source.common;
+
+import com.google.common.hash.Hashing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Credential GitHub requests are authorized with, which has its own rate limit budget.
+ */
+public interface GitHubCredential {
+
+  /**
+   * Returns the name identifying the credential and its rate limit budget, which does not change over time. The name
+   * is kept as the key of shared rate limiters and token pools, so it must not contain any secret.
+   */
+  String getName();
+
+  /**
+   * Returns the value of the 'Authorization' header of the next request.
+   */
+  String getAuthorization() throws IOException;
+
+  /**
+   * Returns the credential of the given personal access or OAuth token.
+   */
+  static GitHubCredential token(String token) {
+    return new GitHubCredential() {
+      @Override
+      public String getName() {
+        return "token:" + fingerprint(token);
+      }
+
+      @Override
+      public String getAuthorization() {
+        return "token " + token;
+      }
+    };
+  }
+
+  /**
+   * Returns a non-reversible id of the given secret, the first 16 hex digits of its SHA-256 hash, which tells
+   * secrets apart without revealing them.
+   */
+  static String fingerprint(String secret) {
+    return Hashing.sha256().hashString(secret, StandardCharsets.UTF_8).toString().substring(0, 16);
+  }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.json.JsonHttpContent;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.gson.GsonFactory;
+import io.cdap.plugin.github.source.batch.GithubBatchSourceConfig;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * Fetches dataset pages with the GraphQL API, an alternative to the REST requests of {@link GitHubRequestFactory}.
+ *
+ * A page of the GraphQL API is addressed by a url of the GraphQL endpoint, which carries the repository, the
+ * 'since' filter and the cursor of the page in its query parameters. The page content is the JSON array of the
+ * REST API objects of its records and the cursor of the following page is passed on in a 'next' link, so GraphQL
+ * pages are read and followed exactly like REST pages. The connections of several repositories can be fetched
+ * with a single query, in which each repository is selected under its own alias.
+ */
+public class GitHubGraphQLClient {
+
+  public static final String OWNER_PARAMETER = "owner";
+  public static final String REPOSITORY_PARAMETER = "repo";
+  public static final String SINCE_PARAMETER = "since";
+  public static final String AFTER_PARAMETER = "after";
+  /**
+   * Number of repositories, which first pages are fetched with a single query when planning the splits.
+   */
+  public static final int MAX_REPOSITORIES_PER_QUERY = 10;
+
+  private static final String ENTERPRISE_API_SUFFIX = "/api/v3";
+  private static final String GRAPHQL_PATH = "/graphql";
+  private static final String REPOSITORY_ALIAS_PREFIX = "r";
+
+  /**
+   * Returns the GraphQL endpoint of the GitHub host with the given REST API url, e.g. 'https://api.github.com' or
+   * 'https://github.example.com/api/v3' for GitHub Enterprise.
+   */
+  public static String getEndpoint(String hostname) {
+    if (hostname.endsWith("/")) {
+      hostname = hostname.substring(0, hostname.length() - 1);
+    }
+    if (hostname.endsWith(ENTERPRISE_API_SUFFIX)) {
+      return hostname.substring(0, hostname.length() - "/v3".length()) + GRAPHQL_PATH;
+    }
+    return hostname + GRAPHQL_PATH;
+  }
+
+  /**
+   * Returns true if the given url is the GraphQL endpoint of a GitHub host, which requests count against the
+   * separate GraphQL rate limit.
+   */
+  public static boolean isGraphQLUrl(String url) {
+    return new GenericUrl(url).getRawPath().endsWith(GRAPHQL_PATH);
+  }
+
+  public static String generateFirstCallUrl(GithubBatchSourceConfig config, String repoName) {
+    return buildPageUrl(getEndpoint(GitHubRequestFactory.getHostname(config)),
+                        new RepositoryCursor(config.getRepoOwner(), repoName, null), getSince(config));
+  }
+
+  /**
+   * Returns the 'since' filter of the configured dataset, or null if it is not filtered.
+   */
+  @Nullable
+  public static String getSince(GithubBatchSourceConfig config) {
+    return GitHubRequestFactory.SINCE_DATASETS.contains(config.getDatasetName()) ? config.getSince() : null;
+  }
+
+  /**
+   * Fetches the page of the configured dataset with the given url.
+   */
+  public static GitHubPage fetchPage(String url, GithubBatchSourceConfig config) throws IOException {
+    GenericUrl pageUrl = new GenericUrl(url);
+    RepositoryCursor repository = new RepositoryCursor(getParameter(pageUrl, OWNER_PARAMETER),
+                                                       getParameter(pageUrl, REPOSITORY_PARAMETER),
+                                                       getParameter(pageUrl, AFTER_PARAMETER));
+    String endpoint = url.contains("?") ? url.substring(0, url.indexOf('?')) : url;
+    return fetchPages(endpoint, getDataset(config), Collections.singletonList(repository),
+                      getParameter(pageUrl, SINCE_PARAMETER), config).get(0);
+  }
+
+  /**
+   * Fetches the pages of the given repositories with a single query, in the order of the repositories.
+   */
+  public static List<GitHubPage> fetchPages(String endpoint, GitHubGraphQLDataset dataset,
+                                            List<RepositoryCursor> repositories, @Nullable String since,
+                                            GithubBatchSourceConfig config) throws IOException {
+    String query = buildQuery(dataset, repositories, since);
+    JsonHttpContent content = new JsonHttpContent(GsonFactory.getDefaultInstance(),
+                                                  Collections.singletonMap("query", query));
+    HttpRequest httpRequest = GitHubRequestFactory.buildPostRequest(endpoint, content, config);
+    HttpResponse response = GitHubRequestFactory.getRetryPolicy(config, GitHubTokenPool.GRAPHQL_RESOURCE)
+      .execute(httpRequest);
+    try {
+      if (!response.isSuccessStatusCode()) {
+        throw new HttpResponseException(response);
+      }
+      GenericJson result = GsonFactory.getDefaultInstance().fromInputStream(
+        config.getRequestMetrics().countUncompressed(response.getContent()), response.getContentCharset(),
+        GenericJson.class);
+      return toPages(result, dataset, endpoint, repositories, since, GitHubRequestFactory.getHostname(config));
+    } finally {
+      response.disconnect();
+    }
+  }
+
+  /**
+   * Returns the dataset of the given source, which must be readable with the GraphQL API.
+   */
+  public static GitHubGraphQLDataset getDataset(GithubBatchSourceConfig config) {
+    GitHubGraphQLDataset dataset = GitHubGraphQLDataset.forDatasetName(config.getDatasetName());
+    if (dataset == null) {
+      throw new IllegalArgumentException(
+        String.format("Dataset '%s' is not supported by the GraphQL API.", config.getDatasetName()));
+    }
+    return dataset;
+  }
+
+  /**
+   * Returns the query selecting the next page of the dataset connection of every given repository.
+   */
+  static String buildQuery(GitHubGraphQLDataset dataset, List<RepositoryCursor> repositories,
+                           @Nullable String since) {
+    StringBuilder query = new StringBuilder("query {");
+    for (int i = 0; i < repositories.size(); i++) {
+      RepositoryCursor repository = repositories.get(i);
+      StringBuilder arguments = new StringBuilder("first: ").append(GitHubRequestFactory.DEFAULT_PAGE_SIZE);
+      if (repository.getAfter() != null) {
+        arguments.append(", after: ").append(quote(repository.getAfter()));
+      }
+      if (since != null) {
+        arguments.append(", since: ").append(quote(since));
+      }
+      query.append(' ').append(REPOSITORY_ALIAS_PREFIX).append(i)
+        .append(": repository(owner: ").append(quote(repository.getOwner()))
+        .append(", name: ").append(quote(repository.getName())).append(") { ")
+        .append(dataset.getConnection(arguments.toString())).append(" }");
+    }
+    query.append(" }");
+    if (query.indexOf("...UserFields") >= 0) {
+      query.append(' ').append(GitHubGraphQLDataset.USER_FRAGMENT);
+    }
+    return query.toString();
+  }
+
+  /**
+   * Splits the given query result into the pages of the given repositories.
+   */
+  static List<GitHubPage> toPages(GenericJson result, GitHubGraphQLDataset dataset, String endpoint,
+                                  List<RepositoryCursor> repositories, @Nullable String since, String hostname)
+    throws IOException {
+    Object errors = GitHubGraphQLDataset.getValue(result, "errors");
+    if (errors instanceof List && !((List<?>) errors).isEmpty()) {
+      List<String> messages = new ArrayList<>();
+      for (Object error : (List<?>) errors) {
+        messages.add(error instanceof Map ? Objects.toString(((Map<?, ?>) error).get("message")) : error.toString());
+      }
+      throw new IOException("GitHub GraphQL query failed: " + String.join("; ", messages));
+    }
+    Map<String, Object> data = GitHubGraphQLDataset.getObject(result, "data");
+    List<GitHubPage> pages = new ArrayList<>();
+    for (int i = 0; i < repositories.size(); i++) {
+      RepositoryCursor repository = repositories.get(i);
+      Map<String, Object> connection = GitHubGraphQLDataset.getObject(data, REPOSITORY_ALIAS_PREFIX + i);
+      if (connection == null) {
+        throw new IOException(String.format("GitHub repository '%s/%s' not found.",
+                                            repository.getOwner(), repository.getName()));
+      }
+      // an empty repository has no default branch, so the path to its commits ends early
+      for (String field : dataset.getConnectionPath()) {
+        connection = GitHubGraphQLDataset.getObject(connection, field);
+      }
+
+      String repositoryUrl = hostname + "/repos/" + repository.getOwner() + "/" + repository.getName();
+      List<Map<String, Object>> records = new ArrayList<>();
+      for (Map<String, Object> node : GitHubGraphQLDataset.getNodes(connection)) {
+        records.add(dataset.toRestObject(node, repositoryUrl, hostname));
+      }
+      byte[] content = GsonFactory.getDefaultInstance().toByteArray(records);
+
+      Map<String, Object> pageInfo = GitHubGraphQLDataset.getObject(connection, "pageInfo");
+      String endCursor = GitHubGraphQLDataset.getString(pageInfo, "endCursor");
+      String link = null;
+      if (Boolean.TRUE.equals(GitHubGraphQLDataset.getValue(pageInfo, "hasNextPage")) && endCursor != null) {
+        RepositoryCursor next = new RepositoryCursor(repository.getOwner(), repository.getName(), endCursor);
+        link = String.format("<%s>; rel=\"%s\"", buildPageUrl(endpoint, next, since), GitHubRequestFactory.NEXT_LINK);
+      }
+      pages.add(new GitHubPage(new ByteArrayInputStream(content), StandardCharsets.UTF_8, link, null));
+    }
+    return pages;
+  }
+
+  static String buildPageUrl(String endpoint, RepositoryCursor repository, @Nullable String since) {
+    GenericUrl pageUrl = new GenericUrl(endpoint);
+    pageUrl.set(OWNER_PARAMETER, repository.getOwner());
+    pageUrl.set(REPOSITORY_PARAMETER, repository.getName());
+    if (since != null) {
+      pageUrl.set(SINCE_PARAMETER, since);
+    }
+    if (repository.getAfter() != null) {
+      pageUrl.set(AFTER_PARAMETER, repository.getAfter());
+    }
+    return pageUrl.build();
+  }
+
+  @Nullable
+  private static String getParameter(GenericUrl url, String name) {
+    Object value = url.getFirst(name);
+    return value == null ? null : value.toString();
+  }
+
+  /**
+   * Returns the given string as a GraphQL string literal, which escapes characters like JSON does.
+   */
+  private static String quote(String value) {
+    try {
+      return GsonFactory.getDefaultInstance().toString(value);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to quote GraphQL string", e);
+    }
+  }
+
+  /**
+   * Repository and the cursor after which the next page of its dataset connection starts.
+   */
+  public static class RepositoryCursor {
+    private final String owner;
+    private final String name;
+    private final String after;
+
+    public RepositoryCursor(String owner, String name, @Nullable String after) {
+      this.owner = owner;
+      this.name = name;
+      this.after = after;
+    }
+
+    public String getOwner() {
+      return owner;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    @Nullable
+    public String getAfter() {
+      return after;
+    }
+  }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.util.Data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Datasets, which can be read with the GraphQL API.
+ *
+ * Every dataset knows the connection of a repository that lists its records and how to turn a node of that
+ * connection into the JSON object the REST API returns for the same record, so that records read with either API
+ * are decoded into the same {@link io.cdap.plugin.github.source.common.model.GitHubModel} and have the same schema.
+ * Nested objects, like the authors of commits or the assets of releases, are selected with the node. Commits also
+ * select their associated pull requests and check status, where the REST API needs further calls per commit, which
+ * are added as the fields of {@link io.cdap.plugin.github.source.common.model.impl.GraphQLCommit}.
+ */
+public enum GitHubGraphQLDataset {
+
+  COMMITS("Commits", Arrays.asList("defaultBranchRef", "target", "history")) {
+    @Override
+    String getConnection(String arguments) {
+      return "defaultBranchRef { target { ... on Commit { history(" + arguments + ") { " + PAGE_INFO +
+        " nodes { oid id url message comments { totalCount } " +
+        "author { name email date user { ...UserFields } } " +
+        "committer { name email date user { ...UserFields } } " +
+        "tree { oid } parents(first: " + NESTED_PAGE_SIZE + ") { nodes { oid } } " +
+        "signature { isValid state signature payload } " +
+        "associatedPullRequests(first: " + PULL_REQUESTS_PAGE_SIZE + ") { " +
+        "nodes { number title state url mergedAt } } " +
+        "statusCheckRollup { state } } } } } }";
+    }
+
+    @Override
+    Map<String, Object> toRestObject(Map<String, Object> node, String repositoryUrl, String hostname) {
+      String sha = getString(node, "oid");
+      String commitUrl = repositoryUrl + "/commits/" + sha;
+      Map<String, Object> commit = new LinkedHashMap<>();
+      commit.put("url", repositoryUrl + "/git/commits/" + sha);
+      commit.put("author", toCommitUser(getObject(node, "author")));
+      commit.put("committer", toCommitUser(getObject(node, "committer")));
+      commit.put("message", getValue(node, "message"));
+      commit.put("tree", toTree(getObject(node, "tree"), repositoryUrl + "/git/trees/"));
+      commit.put("comment_count", getValue(getObject(node, "comments"), "totalCount"));
+      commit.put("verification", toVerification(getObject(node, "signature")));
+
+      List<Object> parents = new ArrayList<>();
+      for (Map<String, Object> parent : getNodes(getObject(node, "parents"))) {
+        parents.add(toTree(parent, repositoryUrl + "/commits/"));
+      }
+
+      Map<String, Object> result = new LinkedHashMap<>();
+      result.put("url", commitUrl);
+      result.put("sha", sha);
+      result.put("node_id", getValue(node, "id"));
+      result.put("html_url", getValue(node, "url"));
+      result.put("comments_url", commitUrl + "/comments");
+      result.put("commit", commit);
+      result.put("author", toUser(getObject(getObject(node, "author"), "user"), hostname));
+      result.put("committer", toUser(getObject(getObject(node, "committer"), "user"), hostname));
+      result.put("parents", parents);
+      result.put("pull_requests", toPullRequests(getObject(node, "associatedPullRequests")));
+      String checkStatus = getString(getObject(node, "statusCheckRollup"), "state");
+      result.put("check_status", checkStatus == null ? null : checkStatus.toLowerCase(Locale.ROOT));
+      return result;
+    }
+  },
+
+  BRANCHES("Branches", Collections.singletonList("refs")) {
+    @Override
+    String getConnection(String arguments) {
+      return "refs(refPrefix: \"refs/heads/\", " + arguments + ") { " + PAGE_INFO +
+        " nodes { name target { oid } " +
+        "branchProtectionRule { requiresStatusChecks requiredStatusCheckContexts isAdminEnforced } } }";
+    }
+
+    @Override
+    Map<String, Object> toRestObject(Map<String, Object> node, String repositoryUrl, String hostname) {
+      String name = getString(node, "name");
+      Map<String, Object> rule = getObject(node, "branchProtectionRule");
+      String sha = getString(getObject(node, "target"), "oid");
+
+      Map<String, Object> commit = new LinkedHashMap<>();
+      commit.put("sha", sha);
+      commit.put("url", repositoryUrl + "/commits/" + sha);
+
+      Map<String, Object> requiredStatusChecks = new LinkedHashMap<>();
+      boolean statusChecksRequired = rule != null && Boolean.TRUE.equals(getValue(rule, "requiresStatusChecks"));
+      requiredStatusChecks.put("enforcement_level", getEnforcementLevel(rule, statusChecksRequired));
+      requiredStatusChecks.put("contexts", statusChecksRequired ? getValue(rule, "requiredStatusCheckContexts")
+        : Collections.emptyList());
+      Map<String, Object> protection = new LinkedHashMap<>();
+      protection.put("enabled", rule != null);
+      protection.put("required_status_checks", requiredStatusChecks);
+
+      Map<String, Object> result = new LinkedHashMap<>();
+      result.put("name", name);
+      result.put("commit", commit);
+      result.put("protected", rule != null);
+      result.put("protection", protection);
+      result.put("protection_url", repositoryUrl + "/branches/" + name + "/protection");
+      return result;
+    }
+  },
+
+  RELEASES("Releases", Collections.singletonList("releases")) {
+    @Override
+    String getConnection(String arguments) {
+      return "releases(" + arguments + ", orderBy: {field: CREATED_AT, direction: DESC}) { " + PAGE_INFO +
+        " nodes { databaseId id tagName tagCommit { oid } name description isDraft isPrerelease createdAt " +
+        "publishedAt url author { ...UserFields } releaseAssets(first: " + NESTED_PAGE_SIZE + ") { nodes { " +
+        "id name contentType size downloadCount createdAt updatedAt downloadUrl uploadedBy { ...UserFields } } } } }";
+    }
+
+    @Override
+    Map<String, Object> toRestObject(Map<String, Object> node, String repositoryUrl, String hostname) {
+      String releaseUrl = repositoryUrl + "/releases/" + getValue(node, "databaseId");
+      String tagName = getString(node, "tagName");
+
+      List<Object> assets = new ArrayList<>();
+      for (Map<String, Object> assetNode : getNodes(getObject(node, "releaseAssets"))) {
+        Map<String, Object> asset = new LinkedHashMap<>();
+        asset.put("browser_download_url", getValue(assetNode, "downloadUrl"));
+        asset.put("node_id", getValue(assetNode, "id"));
+        asset.put("name", getValue(assetNode, "name"));
+        asset.put("state", "uploaded");
+        asset.put("content_type", getValue(assetNode, "contentType"));
+        asset.put("size", getValue(assetNode, "size"));
+        asset.put("download_count", getValue(assetNode, "downloadCount"));
+        asset.put("created_at", getValue(assetNode, "createdAt"));
+        asset.put("updated_at", getValue(assetNode, "updatedAt"));
+        asset.put("uploader", toUser(getObject(assetNode, "uploadedBy"), hostname));
+        assets.add(asset);
+      }
+
+      Map<String, Object> result = new LinkedHashMap<>();
+      result.put("url", releaseUrl);
+      result.put("html_url", getValue(node, "url"));
+      result.put("assets_url", releaseUrl + "/assets");
+      result.put("tarball_url", repositoryUrl + "/tarball/" + tagName);
+      result.put("zipball_url", repositoryUrl + "/zipball/" + tagName);
+      result.put("id", getValue(node, "databaseId"));
+      result.put("node_id", getValue(node, "id"));
+      result.put("tag_name", tagName);
+      result.put("target_commitish", getValue(getObject(node, "tagCommit"), "oid"));
+      result.put("name", getValue(node, "name"));
+      result.put("body", getValue(node, "description"));
+      result.put("draft", getValue(node, "isDraft"));
+      result.put("prerelease", getValue(node, "isPrerelease"));
+      result.put("created_at", getValue(node, "createdAt"));
+      result.put("published_at", getValue(node, "publishedAt"));
+      result.put("author", toUser(getObject(node, "author"), hostname));
+      result.put("assets", assets);
+      return result;
+    }
+  };
+
+  /**
+   * Fields of the users referenced by the nodes, declared once per query.
+   */
+  static final String USER_FRAGMENT =
+    "fragment UserFields on User { databaseId id login avatarUrl url isSiteAdmin }";
+
+  private static final String PAGE_INFO = "pageInfo { hasNextPage endCursor }";
+  private static final int NESTED_PAGE_SIZE = 100;
+  /**
+   * Commits are rarely associated with more pull requests, while every pull request selected for the commits of a
+   * page adds to the cost of the query.
+   */
+  private static final int PULL_REQUESTS_PAGE_SIZE = 10;
+
+  private final String datasetName;
+  private final List<String> connectionPath;
+
+  GitHubGraphQLDataset(String datasetName, List<String> connectionPath) {
+    this.datasetName = datasetName;
+    this.connectionPath = connectionPath;
+  }
+
+  public String getDatasetName() {
+    return datasetName;
+  }
+
+  /**
+   * Returns the fields leading from a repository to the connection of the dataset records.
+   */
+  List<String> getConnectionPath() {
+    return connectionPath;
+  }
+
+  /**
+   * Returns the selection of the connection of the dataset records with the given pagination arguments.
+   */
+  abstract String getConnection(String arguments);
+
+  /**
+   * Returns the REST API representation of the given connection node.
+   */
+  abstract Map<String, Object> toRestObject(Map<String, Object> node, String repositoryUrl, String hostname);
+
+  /**
+   * Returns the dataset with the given name, or null if it cannot be read with the GraphQL API.
+   */
+  @Nullable
+  public static GitHubGraphQLDataset forDatasetName(String datasetName) {
+    for (GitHubGraphQLDataset dataset : values()) {
+      if (dataset.datasetName.equals(datasetName)) {
+        return dataset;
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private static Map<String, Object> toUser(@Nullable Map<String, Object> user, String hostname) {
+    if (user == null) {
+      return null;
+    }
+    String userUrl = hostname + "/users/" + getValue(user, "login");
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("id", getValue(user, "databaseId"));
+    result.put("node_id", getValue(user, "id"));
+    result.put("avatar_url", getValue(user, "avatarUrl"));
+    result.put("gravatar_id", "");
+    result.put("url", userUrl);
+    result.put("html_url", getValue(user, "url"));
+    result.put("followers_url", userUrl + "/followers");
+    result.put("following_url", userUrl + "/following{/other_user}");
+    result.put("gists_url", userUrl + "/gists{/gist_id}");
+    result.put("starred_url", userUrl + "/starred{/owner}{/repo}");
+    result.put("subscriptions_url", userUrl + "/subscriptions");
+    result.put("organizations_url", userUrl + "/orgs");
+    result.put("repos_url", userUrl + "/repos");
+    result.put("events_url", userUrl + "/events{/privacy}");
+    result.put("received_events_url", userUrl + "/received_events");
+    result.put("type", "User");
+    result.put("site_admin", getValue(user, "isSiteAdmin"));
+    return result;
+  }
+
+  /**
+   * Returns the enforcement level of the required status checks of the given branch protection rule, as the REST
+   * API reports it: 'everyone' if the checks are enforced for administrators as well, otherwise 'non_admins'.
+   */
+  private static String getEnforcementLevel(@Nullable Map<String, Object> rule, boolean statusChecksRequired) {
+    if (!statusChecksRequired) {
+      return "off";
+    }
+    return Boolean.TRUE.equals(getValue(rule, "isAdminEnforced")) ? "everyone" : "non_admins";
+  }
+
+  private static List<Object> toPullRequests(@Nullable Map<String, Object> connection) {
+    List<Object> result = new ArrayList<>();
+    for (Map<String, Object> node : getNodes(connection)) {
+      Map<String, Object> pullRequest = new LinkedHashMap<>();
+      pullRequest.put("number", getValue(node, "number"));
+      pullRequest.put("title", getValue(node, "title"));
+      // the REST API reports merged pull requests as closed ones with a merge date
+      String state = getString(node, "state");
+      if ("MERGED".equals(state)) {
+        state = "CLOSED";
+      }
+      pullRequest.put("state", state == null ? null : state.toLowerCase(Locale.ROOT));
+      pullRequest.put("html_url", getValue(node, "url"));
+      pullRequest.put("merged_at", getValue(node, "mergedAt"));
+      result.add(pullRequest);
+    }
+    return result;
+  }
+
+  @Nullable
+  private static Map<String, Object> toCommitUser(@Nullable Map<String, Object> actor) {
+    if (actor == null) {
+      return null;
+    }
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("name", getValue(actor, "name"));
+    result.put("email", getValue(actor, "email"));
+    result.put("date", getValue(actor, "date"));
+    return result;
+  }
+
+  @Nullable
+  private static Map<String, Object> toTree(@Nullable Map<String, Object> tree, String urlPrefix) {
+    if (tree == null) {
+      return null;
+    }
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("url", urlPrefix + getValue(tree, "oid"));
+    result.put("sha", getValue(tree, "oid"));
+    return result;
+  }
+
+  private static Map<String, Object> toVerification(@Nullable Map<String, Object> signature) {
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("verified", signature != null && Boolean.TRUE.equals(getValue(signature, "isValid")));
+    String state = signature == null ? "unsigned" : getString(signature, "state");
+    result.put("reason", state == null ? null : state.toLowerCase(Locale.ROOT));
+    result.put("signature", getValue(signature, "signature"));
+    result.put("payload", getValue(signature, "payload"));
+    return result;
+  }
+
+  /**
+   * Returns the value of the given member of a parsed JSON object, or null if the object or its value is null.
+   */
+  @Nullable
+  static Object getValue(@Nullable Map<String, Object> object, String name) {
+    Object value = object == null ? null : object.get(name);
+    return Data.isNull(value) ? null : value;
+  }
+
+  @Nullable
+  static String getString(@Nullable Map<String, Object> object, String name) {
+    Object value = getValue(object, name);
+    return value == null ? null : value.toString();
+  }
+
+  @Nullable
+  @SuppressWarnings("unchecked")
+  static Map<String, Object> getObject(@Nullable Map<String, Object> object, String name) {
+    Object value = getValue(object, name);
+    return value instanceof Map ? (Map<String, Object>) value : null;
+  }
+
+  @SuppressWarnings("unchecked")
+  static List<Map<String, Object>> getNodes(@Nullable Map<String, Object> connection) {
+    Object nodes = getValue(connection, "nodes");
+    if (!(nodes instanceof List)) {
+      return Collections.emptyList();
+    }
+    List<Map<String, Object>> result = new ArrayList<>();
+    for (Object node : (List<Object>) nodes) {
+      if (node instanceof Map) {
+        result.add((Map<String, Object>) node);
+      }
+    }
+    return result;
+  }
+}
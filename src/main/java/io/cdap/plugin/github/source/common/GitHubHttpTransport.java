@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.HttpClient;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Provides HTTP transports backed by a bounded pool of keep-alive connections.
+ *
+ * Transports are shared by all readers of a JVM, so that pages are fetched over warm connections without
+ * repeating the TCP and TLS handshakes. Sessions of the TLS connections are resumed through the default SSL
+ * context, which all the pooled connections share.
+ */
+public class GitHubHttpTransport {
+
+  public static final int DEFAULT_MAX_CONNECTIONS = 10;
+  public static final int DEFAULT_CONNECT_TIMEOUT_SECONDS = 20;
+  public static final int DEFAULT_READ_TIMEOUT_SECONDS = 20;
+
+  /**
+   * Time after which an idle pooled connection is checked before it is reused.
+   */
+  private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+  private static final ConcurrentMap<Integer, HttpTransport> TRANSPORTS = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the shared transport holding at most the given number of connections.
+   */
+  public static HttpTransport forMaxConnections(int maxConnections) {
+    return TRANSPORTS.computeIfAbsent(maxConnections, GitHubHttpTransport::createPooledTransport);
+  }
+
+  private static HttpTransport createPooledTransport(int maxConnections) {
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(maxConnections);
+    // all the requests go to the same host
+    connectionManager.setDefaultMaxPerRoute(maxConnections);
+    // pooled connections may have been closed by the server while idle
+    connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+    HttpClient httpClient = ApacheHttpTransport.newDefaultHttpClientBuilder()
+      .setConnectionManager(connectionManager)
+      // responses are decompressed later by HttpResponse.getContent(), so the bytes counted here are the ones received
+      .disableContentCompression()
+      .addInterceptorLast((HttpResponseInterceptor) (response, context) -> {
+        GitHubRequestMetrics metrics = GitHubRequestMetrics.getExecuting();
+        if (response.getEntity() != null && metrics != null) {
+          response.setEntity(new CountingEntity(response.getEntity(), metrics));
+        }
+      })
+      .build();
+    return new ApacheHttpTransport(httpClient);
+  }
+
+  /**
+   * Response entity counting the bytes read from its content as compressed response bytes of the metrics of the
+   * request it answers, no matter which thread reads it.
+   */
+  private static class CountingEntity extends HttpEntityWrapper {
+    private final GitHubRequestMetrics metrics;
+
+    private CountingEntity(HttpEntity entity, GitHubRequestMetrics metrics) {
+      super(entity);
+      this.metrics = metrics;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+      InputStream content = super.getContent();
+      return content == null ? null : metrics.countCompressed(content);
+    }
+  }
+}
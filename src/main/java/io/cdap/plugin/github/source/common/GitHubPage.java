@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.http.HttpResponse;
+import com.google.common.io.ByteStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import javax.annotation.Nullable;
+
+/**
+ * Raw content of a single GitHub page, either downloaded or served from the {@link GitHubResponseCache}.
+ */
+public class GitHubPage implements Closeable {
+
+  private final InputStream content;
+  private final Charset charset;
+  private final String link;
+  private final HttpResponse response;
+
+  public GitHubPage(InputStream content, Charset charset, @Nullable String link, @Nullable HttpResponse response) {
+    this.content = content;
+    this.charset = charset;
+    this.link = link;
+    this.response = response;
+  }
+
+  public InputStream getContent() {
+    return content;
+  }
+
+  public Charset getCharset() {
+    return charset;
+  }
+
+  /**
+   * Returns the value of the 'Link' pagination header of the page, or null if the dataset has a single page.
+   */
+  @Nullable
+  public String getLink() {
+    return link;
+  }
+
+  /**
+   * Reads the whole content of the page into memory and releases the page, so that the returned copy can be
+   * held without keeping a connection open.
+   */
+  public GitHubPage buffer() throws IOException {
+    try {
+      return new GitHubPage(new ByteArrayInputStream(ByteStreams.toByteArray(content)), charset, link, null);
+    } finally {
+      close();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    content.close();
+    if (response != null) {
+      response.ignore();
+    }
+  }
+}
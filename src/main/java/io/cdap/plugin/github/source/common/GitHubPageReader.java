@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.ClassInfo;
+import com.google.api.client.util.FieldInfo;
+import com.google.api.client.util.Types;
+import io.cdap.plugin.github.source.common.model.GitHubModel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
+
+/**
+ * Decodes {@link GitHubModel} instances from a GitHub JSON page one at a time, so that only the current
+ * record has to be held in memory.
+ * Responses holding a single JSON object instead of an array are read as a page of one record, unless the records
+ * are the array of a member of the object, like the 'items' of search results.
+ * When only some fields of the model are selected, the JSON members of the other fields are skipped without
+ * being decoded.
+ *
+ * @param <T> the model type
+ */
+public class GitHubPageReader<T> implements Closeable {
+
+  private final JsonParser parser;
+  private final Class<T> modelClass;
+  private final Map<String, FieldInfo> selectedMembers;
+  private final boolean singleObject;
+
+  private JsonToken currentToken;
+
+  public GitHubPageReader(InputStream content, Charset charset, Class<T> modelClass) throws IOException {
+    this(content, charset, modelClass, null);
+  }
+
+  public GitHubPageReader(InputStream content, Charset charset, Class<T> modelClass,
+                          @Nullable Collection<String> selectedFields) throws IOException {
+    this(content, charset, modelClass, selectedFields, null);
+  }
+
+  /**
+   * Creates a reader of the records of the given page, which are the array of the given member of the response
+   * object, if it is not null.
+   */
+  public GitHubPageReader(InputStream content, Charset charset, Class<T> modelClass,
+                          @Nullable Collection<String> selectedFields, @Nullable String recordsMember)
+    throws IOException {
+    this.parser = GsonFactory.getDefaultInstance().createJsonParser(content, charset);
+    this.modelClass = modelClass;
+    this.selectedMembers = selectedFields == null ? null : getSelectedMembers(modelClass, selectedFields);
+    JsonToken firstToken = parser.nextToken();
+    if (recordsMember != null && firstToken == JsonToken.START_OBJECT) {
+      firstToken = skipToMember(recordsMember);
+    }
+    this.singleObject = firstToken != JsonToken.START_ARRAY;
+    this.currentToken = singleObject ? firstToken : parser.nextToken();
+  }
+
+  /**
+   * Skips the members of the response object preceding the given one and returns the first token of its value,
+   * or null if the object has no such member.
+   */
+  @Nullable
+  private JsonToken skipToMember(String member) throws IOException {
+    JsonToken token = parser.nextToken();
+    while (token == JsonToken.FIELD_NAME) {
+      boolean found = member.equals(parser.getText());
+      token = parser.nextToken();
+      if (found) {
+        return token;
+      }
+      parser.skipChildren();
+      token = parser.nextToken();
+    }
+    return null;
+  }
+
+  /**
+   * Returns true if the page has more records to decode.
+   */
+  public boolean hasNext() {
+    return currentToken == JsonToken.START_OBJECT;
+  }
+
+  /**
+   * Decodes the next record of the page.
+   */
+  public T next() throws IOException {
+    if (!hasNext()) {
+      throw new NoSuchElementException("No more records in the page");
+    }
+    T model = selectedMembers == null ? parser.parse(modelClass) : parseSelected();
+    currentToken = singleObject ? null : parser.nextToken();
+    return model;
+  }
+
+  /**
+   * Skips the next record of the page without decoding it.
+   */
+  public void skip() throws IOException {
+    if (!hasNext()) {
+      throw new NoSuchElementException("No more records in the page");
+    }
+    parser.skipChildren();
+    currentToken = singleObject ? null : parser.nextToken();
+  }
+
+  private T parseSelected() throws IOException {
+    T model = Types.newInstance(modelClass);
+    JsonToken token = parser.nextToken();
+    while (token == JsonToken.FIELD_NAME) {
+      FieldInfo fieldInfo = selectedMembers.get(parser.getText());
+      parser.nextToken();
+      if (fieldInfo == null) {
+        parser.skipChildren();
+      } else {
+        fieldInfo.setValue(model, parser.parse(fieldInfo.getGenericType(), false));
+      }
+      token = parser.nextToken();
+    }
+    return model;
+  }
+
+  /**
+   * Maps the JSON member names of the selected model fields to the fields they are decoded into.
+   */
+  private static Map<String, FieldInfo> getSelectedMembers(Class<?> modelClass, Collection<String> selectedFields) {
+    ClassInfo classInfo = ClassInfo.of(modelClass);
+    Map<String, FieldInfo> members = new HashMap<>();
+    for (String memberName : classInfo.getNames()) {
+      FieldInfo fieldInfo = classInfo.getFieldInfo(memberName);
+      if (selectedFields.contains(fieldInfo.getField().getName())) {
+        members.put(memberName, fieldInfo);
+      }
+    }
+    return members;
+  }
+
+  @Override
+  public void close() throws IOException {
+    parser.close();
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseInterceptor;
+import com.google.api.client.util.Clock;
+import com.google.api.client.util.Sleeper;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Paces GitHub requests made with a single token according to the rate limit headers GitHub returns.
+ *
+ * Requests run at full speed while the budget is healthy. Once less than {@link #LOW_BUDGET_RATIO} of the
+ * budget is left, the remaining requests are spread evenly until the budget resets, and when the budget is
+ * exhausted or GitHub asks to back off with 'Retry-After', requests are paused until the budget allows them.
+ * Retrying the requests rejected meanwhile is left to the {@link GitHubRetryPolicy}.
+ * A single instance is shared by all readers of the JVM using the same token.
+ */
+public class GitHubRateLimiter implements HttpExecuteInterceptor, HttpResponseInterceptor {
+
+  public static final String LIMIT_HEADER = "X-RateLimit-Limit";
+  public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+  public static final String RESET_HEADER = "X-RateLimit-Reset";
+  public static final String RETRY_AFTER_HEADER = "Retry-After";
+  /**
+   * Names the rate limit, e.g. 'core', 'search' or 'graphql', which the other rate limit headers describe.
+   */
+  public static final String RESOURCE_HEADER = "X-RateLimit-Resource";
+
+  private static final double LOW_BUDGET_RATIO = 0.1;
+  private static final ConcurrentMap<String, GitHubRateLimiter> RATE_LIMITERS = new ConcurrentHashMap<>();
+
+  private final Clock clock;
+  private final Sleeper sleeper;
+
+  private long limit = -1;
+  private long remaining = -1;
+  private long resetMillis;
+  private long pauseUntilMillis;
+
+  GitHubRateLimiter(Clock clock, Sleeper sleeper) {
+    this.clock = clock;
+    this.sleeper = sleeper;
+  }
+
+  /**
+   * Returns the rate limiter shared by all requests made with the credential of the given name, see
+   * {@link GitHubCredential#getName()}.
+   */
+  public static GitHubRateLimiter forCredential(String credentialName) {
+    return RATE_LIMITERS.computeIfAbsent(credentialName, name -> new GitHubRateLimiter(Clock.SYSTEM, Sleeper.DEFAULT));
+  }
+
+  /**
+   * Returns the number of requests left in the current rate limit window, or -1 if it is not known yet.
+   */
+  public synchronized long getRemaining() {
+    return remaining;
+  }
+
+  /**
+   * Returns how long the next request would have to wait, without counting it against the budget.
+   */
+  public synchronized long getDelayMillis() {
+    return getDelayMillis(clock.currentTimeMillis());
+  }
+
+  @Override
+  public void intercept(HttpRequest request) throws IOException {
+    long delayMillis = reserve();
+    if (delayMillis > 0) {
+      try {
+        sleeper.sleep(delayMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for GitHub rate limit", e);
+      }
+    }
+  }
+
+  @Override
+  public void interceptResponse(HttpResponse response) {
+    update(response.getHeaders());
+  }
+
+  /**
+   * Returns how long the next request has to wait and counts it against the known budget.
+   */
+  synchronized long reserve() {
+    long delayMillis = getDelayMillis(clock.currentTimeMillis());
+    if (remaining > 0) {
+      remaining--;
+    }
+    return delayMillis;
+  }
+
+  synchronized void update(HttpHeaders headers) {
+    long now = clock.currentTimeMillis();
+    Long limitValue = getLongHeader(headers, LIMIT_HEADER);
+    Long remainingValue = getLongHeader(headers, REMAINING_HEADER);
+    Long resetValue = getLongHeader(headers, RESET_HEADER);
+    Long retryAfterValue = getLongHeader(headers, RETRY_AFTER_HEADER);
+    if (limitValue != null) {
+      limit = limitValue;
+    }
+    if (remainingValue != null) {
+      remaining = remainingValue;
+    }
+    if (resetValue != null) {
+      resetMillis = TimeUnit.SECONDS.toMillis(resetValue);
+    }
+    if (retryAfterValue != null) {
+      pauseUntilMillis = Math.max(pauseUntilMillis, now + TimeUnit.SECONDS.toMillis(retryAfterValue));
+    }
+  }
+
+  private long getDelayMillis(long now) {
+    if (pauseUntilMillis > now) {
+      return pauseUntilMillis - now;
+    }
+    if (remaining < 0 || resetMillis <= now) {
+      // budget is unknown or its window has already been reset
+      return 0;
+    }
+    if (remaining == 0) {
+      return resetMillis - now;
+    }
+    if (limit > 0 && remaining > limit * LOW_BUDGET_RATIO) {
+      return 0;
+    }
+    return (resetMillis - now) / remaining;
+  }
+
+  @Nullable
+  static Long getLongHeader(HttpHeaders headers, String name) {
+    String value = headers.getFirstHeaderStringValue(name);
+    if (value == null) {
+      return null;
+    }
+    try {
+      return Long.valueOf(value.trim());
+    } catch (NumberFormatException e) {
+      // e.g. 'Retry-After' given as an HTTP date, which GitHub does not use
+      return null;
+    }
+  }
+}
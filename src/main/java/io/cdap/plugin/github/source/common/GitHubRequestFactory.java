@@ -16,41 +16,294 @@
 package io.cdap.plugin.github.source.common;
 
 import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpContent;
 import com.google.api.client.http.HttpRequest;
-import com.google.api.client.http.HttpRequestFactory;
-import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.HttpStatusCodes;
 import com.google.api.client.json.JsonObjectParser;
 import com.google.api.client.json.gson.GsonFactory;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.cdap.plugin.github.source.batch.GithubBatchSourceConfig;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 
 /**
  * Helper class to create GitHub data requests.
  */
 public class GitHubRequestFactory {
 
+  public static final String DEFAULT_HOSTNAME = "https://api.github.com";
   public static final Integer DEFAULT_PAGE_SIZE = 100;
+  public static final String NEXT_LINK = "next";
+  public static final String LAST_LINK = "last";
 
-  private static HttpRequestFactory requestFactory = new NetHttpTransport()
-    .createRequestFactory((HttpRequest request) ->
-                            request.setParser(new JsonObjectParser(GsonFactory.getDefaultInstance())));
+  private static final Pattern LINK_PATTERN = Pattern.compile("<([^>]*)>\\s*;\\s*rel=\"([^\"]*)\"");
+
+  /**
+   * Datasets, which endpoints support filtering by the 'since' timestamp.
+   */
+  public static final Set<String> SINCE_DATASETS = Collections.singleton("Commits");
+
+  public static final String SHA_PARAMETER = "sha";
+  public static final String PATH_PARAMETER = "path";
+  public static final String AUTHOR_PARAMETER = "author";
+  public static final String COMMITTER_PARAMETER = "committer";
+  public static final String UNTIL_PARAMETER = "until";
+  public static final String SORT_PARAMETER = "sort";
+  public static final String PROTECTED_PARAMETER = "protected";
+  public static final String REF_PARAMETER = "ref";
+  public static final String TASK_PARAMETER = "task";
+  public static final String ENVIRONMENT_PARAMETER = "environment";
+
+  /**
+   * Query parameters, which the endpoints of the datasets filter or order their records by, by dataset name.
+   */
+  private static final Map<String, Set<String>> FILTER_PARAMETERS = ImmutableMap.of(
+    "Branches", ImmutableSet.of(PROTECTED_PARAMETER),
+    "Commits", ImmutableSet.of(SHA_PARAMETER, PATH_PARAMETER, AUTHOR_PARAMETER, COMMITTER_PARAMETER, UNTIL_PARAMETER),
+    "Forks", ImmutableSet.of(SORT_PARAMETER),
+    "Deployments", ImmutableSet.of(SHA_PARAMETER, REF_PARAMETER, TASK_PARAMETER, ENVIRONMENT_PARAMETER));
 
   public static String generateFirstCallUrl(GithubBatchSourceConfig config) {
-    String host = config.getHostname() != null ? config.getHostname() : "https://api.github.com";
-    return host + "/repos" + "/" + config.getRepoOwner() + "/" + config.getRepoName() + "/" +
+    return generateFirstCallUrl(config, config.getRepoName());
+  }
+
+  /**
+   * Returns the url of the first page of the configured dataset of the given repository of the configured owner.
+   */
+  public static String generateFirstCallUrl(GithubBatchSourceConfig config, String repoName) {
+    if (config.isGraphQL()) {
+      return GitHubGraphQLClient.generateFirstCallUrl(config, repoName);
+    }
+    if (GitHubSearch.isSearchDataset(config.getDatasetName())) {
+      return GitHubSearch.generateFirstCallUrl(config, repoName, getPathByDatasetName(config.getDatasetName()));
+    }
+    String host = getHostname(config);
+    String url = host + "/repos" + "/" + config.getRepoOwner() + "/" + repoName + "/" +
       getPathByDatasetName(config.getDatasetName()) + "?per_page=" + DEFAULT_PAGE_SIZE;
+    GenericUrl filteredUrl = new GenericUrl(url);
+    if (config.getSince() != null && SINCE_DATASETS.contains(config.getDatasetName())) {
+      filteredUrl.set("since", config.getSince());
+    }
+    // filter on the server, so that only the records needed are fetched
+    Set<String> filterParameters = getFilterParameters(config.getDatasetName());
+    config.getFilters().forEach((parameter, value) -> {
+      if (filterParameters.contains(parameter)) {
+        filteredUrl.set(parameter, value);
+      }
+    });
+    return filteredUrl.build();
+  }
+
+  /**
+   * Returns the query parameters, which the endpoint of the given dataset filters or orders its records by.
+   */
+  public static Set<String> getFilterParameters(String datasetName) {
+    return FILTER_PARAMETERS.getOrDefault(datasetName, Collections.emptySet());
+  }
+
+  /**
+   * Returns the base url of the REST API of the configured GitHub host.
+   */
+  public static String getHostname(GithubBatchSourceConfig config) {
+    return config.getHostname() != null ? config.getHostname() : DEFAULT_HOSTNAME;
+  }
+
+  /**
+   * Returns the given dataset url pointing to the given page number.
+   */
+  public static String buildPageUrl(String url, int pageNumber) {
+    GenericUrl pageUrl = new GenericUrl(url);
+    pageUrl.set("page", pageNumber);
+    return pageUrl.build();
+  }
+
+  /**
+   * Returns the url of the given relation in the given 'Link' pagination header, e.g.
+   * {@code <https://api.github.com/repositories/1/commits?page=2>; rel="next"}, or null if there is none.
+   */
+  @Nullable
+  public static String getLinkUrl(@Nullable String linkHeader, String relation) {
+    if (linkHeader == null) {
+      return null;
+    }
+    Matcher matcher = LINK_PATTERN.matcher(linkHeader);
+    while (matcher.find()) {
+      if (Arrays.asList(matcher.group(2).trim().split("\\s+")).contains(relation)) {
+        return matcher.group(1);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the value of the numeric 'page' parameter of the given url, or null if it has none.
+   */
+  @Nullable
+  public static Integer getPageNumber(String url) {
+    Object page = new GenericUrl(url).getFirst("page");
+    if (page == null) {
+      return null;
+    }
+    try {
+      return Integer.valueOf(page.toString());
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  public static HttpRequest buildRequest(String url, GithubBatchSourceConfig config) throws IOException {
+    HttpRequest httpRequest = GitHubHttpTransport.forMaxConnections(config.getMaxConnections())
+      .createRequestFactory()
+      .buildGetRequest(new GenericUrl(url));
+    configureRequest(httpRequest, config);
+    return httpRequest;
   }
 
-  public static HttpRequest buildRequest(String url, String authToken) throws IOException {
-    HttpRequest httpRequest = requestFactory.buildGetRequest(new GenericUrl(url));
-    addHeaders(httpRequest, authToken);
+  /**
+   * Returns a POST request of the given content, configured like the GET requests of {@link #buildRequest}.
+   */
+  public static HttpRequest buildPostRequest(String url, HttpContent content, GithubBatchSourceConfig config)
+    throws IOException {
+    HttpRequest httpRequest = GitHubHttpTransport.forMaxConnections(config.getMaxConnections())
+      .createRequestFactory()
+      .buildPostRequest(new GenericUrl(url), content);
+    configureRequest(httpRequest, config);
     return httpRequest;
   }
 
-  private static void addHeaders(HttpRequest httpRequest, String authToken) {
-    httpRequest.getHeaders().setAuthorization("token " + authToken);
+  private static void configureRequest(HttpRequest httpRequest, GithubBatchSourceConfig config) {
+    httpRequest.setParser(new JsonObjectParser(GsonFactory.getDefaultInstance()));
+    httpRequest.setConnectTimeout((int) TimeUnit.SECONDS.toMillis(config.getConnectTimeout()));
+    httpRequest.setReadTimeout((int) TimeUnit.SECONDS.toMillis(config.getReadTimeout()));
+    addHeaders(httpRequest);
+    // the token is picked when the request is executed, so that a retry can move on to another token
+    GitHubTokenPool tokenPool = getTokenPool(config, getRateLimitResource(httpRequest.getUrl().build()));
+    httpRequest.setInterceptor(tokenPool);
+    httpRequest.setResponseInterceptor(tokenPool);
+  }
+
+  /**
+   * Returns the retry policy configured for the given source.
+   */
+  public static GitHubRetryPolicy getRetryPolicy(GithubBatchSourceConfig config) {
+    return getRetryPolicy(config, GitHubTokenPool.CORE_RESOURCE);
+  }
+
+  /**
+   * Returns the retry policy configured for the given source, which waits for the rate limit of the given resource.
+   */
+  public static GitHubRetryPolicy getRetryPolicy(GithubBatchSourceConfig config, String resource) {
+    return new GitHubRetryPolicy(config.getMaxAttempts(), TimeUnit.SECONDS.toMillis(config.getBaseRetryDelay()),
+                                 TimeUnit.SECONDS.toMillis(config.getMaxRetryDelay()),
+                                 getTokenPool(config, resource), config.getRequestMetrics());
+  }
+
+  /**
+   * Returns the rate limit resource, which a request of the given url counts against.
+   */
+  public static String getRateLimitResource(String url) {
+    if (GitHubGraphQLClient.isGraphQLUrl(url)) {
+      return GitHubTokenPool.GRAPHQL_RESOURCE;
+    }
+    return GitHubSearch.isSearchUrl(url) ? GitHubTokenPool.SEARCH_RESOURCE : GitHubTokenPool.CORE_RESOURCE;
+  }
+
+  /**
+   * Returns the pool of the configured tokens and GitHub App installation, which requests are authorized with.
+   */
+  public static GitHubTokenPool getTokenPool(GithubBatchSourceConfig config) {
+    return getTokenPool(config, GitHubTokenPool.CORE_RESOURCE);
+  }
+
+  /**
+   * Returns the pool of the configured credentials, which tracks their budget of the rate limit of the given
+   * resource.
+   */
+  public static GitHubTokenPool getTokenPool(GithubBatchSourceConfig config, String resource) {
+    List<GitHubCredential> credentials = new ArrayList<>();
+    for (String token : config.getAuthorizationTokens()) {
+      credentials.add(GitHubCredential.token(token));
+    }
+    if (config.isGitHubApp()) {
+      // the installation token is requested without the pool, which it is a member of
+      GitHubRetryPolicy retryPolicy = new GitHubRetryPolicy(
+        config.getMaxAttempts(), TimeUnit.SECONDS.toMillis(config.getBaseRetryDelay()),
+        TimeUnit.SECONDS.toMillis(config.getMaxRetryDelay()));
+      credentials.add(GitHubAppTokenProvider.forInstallation(
+        getHostname(config), config.getAppId(), config.getInstallationId(), config.getPrivateKey(),
+        GitHubHttpTransport.forMaxConnections(config.getMaxConnections()), retryPolicy));
+    }
+    return GitHubTokenPool.forCredentials(credentials, resource);
+  }
+
+  /**
+   * Fetches the given GitHub page, retrying transient failures according to the configured retry policy.
+   * If a cache is given, the request is made conditional on the cached ETag and a '304 Not Modified' response
+   * is served from the cache, while new content is stored in it. Pages of the GraphQL API are not cached.
+   */
+  public static GitHubPage fetchPage(String url, GithubBatchSourceConfig config, @Nullable GitHubResponseCache cache)
+    throws IOException {
+    if (config.isGraphQL()) {
+      return GitHubGraphQLClient.fetchPage(url, config);
+    }
+    return fetchRestPage(url, config, cache);
+  }
+
+  /**
+   * Fetches the given page of the REST API, no matter which API the dataset is read with.
+   */
+  public static GitHubPage fetchRestPage(String url, GithubBatchSourceConfig config,
+                                         @Nullable GitHubResponseCache cache) throws IOException {
+    HttpRequest httpRequest = buildRequest(url, config);
+    GitHubResponseCache.Entry cachedEntry = cache == null ? null : cache.lookup(url);
+    if (cachedEntry != null) {
+      httpRequest.getHeaders().setIfNoneMatch(cachedEntry.getETag());
+    }
+    HttpResponse response = getRetryPolicy(config, getRateLimitResource(url)).execute(httpRequest);
+    if (cachedEntry != null && response.getStatusCode() == HttpStatusCodes.STATUS_CODE_NOT_MODIFIED) {
+      response.ignore();
+      return new GitHubPage(cache.openContent(cachedEntry), StandardCharsets.UTF_8, cachedEntry.getLink(), null);
+    }
+    if (!response.isSuccessStatusCode()) {
+      try {
+        throw new HttpResponseException(response);
+      } finally {
+        response.disconnect();
+      }
+    }
+    String link = response.getHeaders().getFirstHeaderStringValue("Link");
+    InputStream content = response.getContent();
+    if (content == null) {
+      content = new ByteArrayInputStream(new byte[0]);
+    }
+    content = config.getRequestMetrics().countUncompressed(content);
+    String eTag = response.getHeaders().getETag();
+    if (cache != null && eTag != null) {
+      content = cache.store(url, eTag, link, content);
+    }
+    return new GitHubPage(content, response.getContentCharset(), link, response);
+  }
+
+  private static void addHeaders(HttpRequest httpRequest) {
     httpRequest.getHeaders().setUserAgent("curl/7.37.0");
+    // compressed responses are decoded by HttpResponse.getContent()
+    httpRequest.getHeaders().setAcceptEncoding("gzip");
   }
 
   private static String getPathByDatasetName(String dataset) {
@@ -88,6 +341,9 @@ public class GitHubRequestFactory {
       case "Releases": {
         return "releases";
       }
+      case GitHubSearch.ISSUES_DATASET: {
+        return "search/issues";
+      }
       case "Traffic:Referrers": {
         return "traffic/popular/referrers";
       }
@@ -0,0 +1,236 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Counts the requests made for a source and the work done on their responses, so that they can be reported as
+ * metrics of the source stage.
+ *
+ * Every instance of the source config counts into its own metrics, so the work of concurrent readers and stages is
+ * never mixed up. Readers count into the metrics of their stage, which are found with {@link #forStage(String)},
+ * while the planning counts into the metrics of its own config, which are reported by the driver.
+ *
+ * Stage metrics have no histograms, so the latency of the requests, measured until their headers are received, is
+ * counted in buckets of upper bounds, e.g. 'github.request.latency.ms.le_250' for requests of 100 to 250 ms.
+ * Compressed bytes are counted as received from the connection, uncompressed bytes as decoded from the pages.
+ * Decode time is the time readers spend parsing the records of the pages, including waiting for the content still
+ * being streamed.
+ */
+public class GitHubRequestMetrics {
+
+  public static final String REQUESTS_METRIC_PREFIX = "github.requests.";
+  public static final String RETRIES_METRIC_PREFIX = "github.retries.";
+  public static final String LATENCY_METRIC = "github.request.latency.ms";
+  public static final String LATENCY_BUCKET_METRIC_PREFIX = LATENCY_METRIC + ".";
+  public static final String COMPRESSED_BYTES_METRIC = "github.response.bytes.compressed";
+  public static final String UNCOMPRESSED_BYTES_METRIC = "github.response.bytes.uncompressed";
+  public static final String PAGES_METRIC = "github.pages";
+  public static final String DECODE_TIME_METRIC = "github.decode.time.ms";
+  /**
+   * Upper bounds of the latency buckets in milliseconds. Slower requests are counted in an overflow bucket.
+   */
+  static final long[] LATENCY_BUCKETS_MILLIS = {100, 250, 500, 1000, 2500, 5000, 10000};
+
+  private static final ConcurrentMap<String, GitHubRequestMetrics> STAGE_METRICS = new ConcurrentHashMap<>();
+  /**
+   * Metrics of the request being executed by the current thread, which its response content is counted into.
+   */
+  private static final ThreadLocal<GitHubRequestMetrics> EXECUTING = new ThreadLocal<>();
+
+  private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+  private final AtomicLong compressedBytes = new AtomicLong();
+  private final AtomicLong uncompressedBytes = new AtomicLong();
+  private final AtomicLong decodeNanos = new AtomicLong();
+
+  /**
+   * Returns the metrics shared by the readers and the instances of the stage with the given key, which are
+   * reported by whichever instance of the stage reports next.
+   */
+  public static GitHubRequestMetrics forStage(String stageKey) {
+    return STAGE_METRICS.computeIfAbsent(stageKey, key -> new GitHubRequestMetrics());
+  }
+
+  /**
+   * Executes the given request, counting the compressed bytes of its response into these metrics.
+   */
+  public HttpResponse execute(HttpRequest request) throws IOException {
+    GitHubRequestMetrics previous = EXECUTING.get();
+    EXECUTING.set(this);
+    try {
+      return request.execute();
+    } finally {
+      if (previous == null) {
+        EXECUTING.remove();
+      } else {
+        EXECUTING.set(previous);
+      }
+    }
+  }
+
+  /**
+   * Returns the metrics of the request executed by the current thread, if any.
+   */
+  @Nullable
+  public static GitHubRequestMetrics getExecuting() {
+    return EXECUTING.get();
+  }
+
+  /**
+   * Counts a request answered with the given status code, or failed with {@link GitHubRetryPolicy#IO_ERROR},
+   * after the given time.
+   */
+  public void recordRequest(String status, long latencyMillis) {
+    count(REQUESTS_METRIC_PREFIX + status, 1);
+    count(LATENCY_METRIC, latencyMillis);
+    count(getLatencyBucketMetric(latencyMillis), 1);
+  }
+
+  /**
+   * Counts a retry of a request answered with the given status code, or failed with
+   * {@link GitHubRetryPolicy#IO_ERROR}.
+   */
+  public void recordRetry(String status) {
+    count(RETRIES_METRIC_PREFIX + status, 1);
+  }
+
+  /**
+   * Counts a page opened by a reader, which records took the given time to decode.
+   */
+  public void recordPage(long decodeNanos) {
+    count(PAGES_METRIC, 1);
+    this.decodeNanos.addAndGet(decodeNanos);
+  }
+
+  /**
+   * Returns the given compressed response content, which counts the bytes read from it.
+   */
+  public InputStream countCompressed(InputStream content) {
+    return new CountingInputStream(content, compressedBytes);
+  }
+
+  /**
+   * Returns the given decoded response content, which counts the bytes read from it.
+   */
+  public InputStream countUncompressed(InputStream content) {
+    return new CountingInputStream(content, uncompressedBytes);
+  }
+
+  /**
+   * Adds the given value to the metric with the given name.
+   */
+  public void count(String name, long value) {
+    counters.computeIfAbsent(name, key -> new AtomicLong()).addAndGet(value);
+  }
+
+  /**
+   * Adds the given metrics by metric name, e.g. the metrics drained from another instance.
+   */
+  public void countAll(Map<String, Long> metrics) {
+    metrics.forEach(this::count);
+  }
+
+  /**
+   * Returns the metrics counted since the previous call by metric name, so that every request is reported once,
+   * no matter how many instances of the stage report them.
+   */
+  public Map<String, Long> drain() {
+    Map<String, Long> metrics = new HashMap<>();
+    counters.forEach((name, counter) -> drain(metrics, name, counter));
+    drain(metrics, COMPRESSED_BYTES_METRIC, compressedBytes);
+    drain(metrics, UNCOMPRESSED_BYTES_METRIC, uncompressedBytes);
+    // the remainder below a millisecond is kept for the next call
+    long decodeMillis = TimeUnit.NANOSECONDS.toMillis(decodeNanos.get());
+    if (decodeMillis > 0) {
+      decodeNanos.addAndGet(-TimeUnit.MILLISECONDS.toNanos(decodeMillis));
+      metrics.put(DECODE_TIME_METRIC, decodeMillis);
+    }
+    return metrics;
+  }
+
+  static String getLatencyBucketMetric(long latencyMillis) {
+    for (long bucket : LATENCY_BUCKETS_MILLIS) {
+      if (latencyMillis <= bucket) {
+        return LATENCY_BUCKET_METRIC_PREFIX + "le_" + bucket;
+      }
+    }
+    return LATENCY_BUCKET_METRIC_PREFIX + "gt_" + LATENCY_BUCKETS_MILLIS[LATENCY_BUCKETS_MILLIS.length - 1];
+  }
+
+  private static void drain(Map<String, Long> metrics, String name, AtomicLong counter) {
+    long value = counter.getAndSet(0);
+    if (value > 0) {
+      metrics.put(name, value);
+    }
+  }
+
+  /**
+   * Stream adding the number of bytes read from it to a counter.
+   */
+  private static class CountingInputStream extends FilterInputStream {
+    private final AtomicLong counter;
+
+    private CountingInputStream(InputStream in, AtomicLong counter) {
+      super(in);
+      this.counter = counter;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int result = in.read();
+      if (result >= 0) {
+        counter.incrementAndGet();
+      }
+      return result;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int result = in.read(b, off, len);
+      if (result > 0) {
+        counter.addAndGet(result);
+      }
+      return result;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long result = in.skip(n);
+      counter.addAndGet(result);
+      return result;
+    }
+
+    @Override
+    public boolean markSupported() {
+      // bytes read again after a reset would be counted twice
+      return false;
+    }
+  }
+}
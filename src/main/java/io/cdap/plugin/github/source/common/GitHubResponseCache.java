@@ -0,0 +1,245 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.util.Clock;
+import com.google.common.hash.Hashing;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileContext;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Options;
+import org.apache.hadoop.fs.Path;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Persistent cache of GitHub responses and their ETags, kept in a local or HDFS directory between runs.
+ *
+ * Entries are keyed by request url and credentials, so that conditional requests can be answered with
+ * '304 Not Modified', which GitHub does not count against the rate limit. Every entry consists of a metadata file
+ * holding the ETag, the 'Link' header and the name of the file holding the response body. Every body is written to
+ * a file of its own, and the metadata file is replaced at once, so that a concurrent lookup finds either the old or
+ * the new entry. Files, which have not been stored or served for {@link #DEFAULT_MAX_AGE_DAYS} days, are evicted,
+ * including the bodies of replaced entries.
+ */
+public class GitHubResponseCache {
+
+  public static final int DEFAULT_MAX_AGE_DAYS = 7;
+
+  private static final String METADATA_SUFFIX = ".meta";
+  private static final String CONTENT_SUFFIX = ".json";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private final FileSystem fileSystem;
+  private final FileContext fileContext;
+  private final Path rootDirectory;
+  private final Path directory;
+  private final long maxAgeMillis;
+  private final Clock clock;
+
+  public GitHubResponseCache(String directory, String credentialsId, Configuration conf) throws IOException {
+    this(directory, credentialsId, conf, TimeUnit.DAYS.toMillis(DEFAULT_MAX_AGE_DAYS), Clock.SYSTEM);
+  }
+
+  GitHubResponseCache(String directory, String credentialsId, Configuration conf, long maxAgeMillis, Clock clock)
+    throws IOException {
+    this.rootDirectory = new Path(directory);
+    this.fileSystem = rootDirectory.getFileSystem(conf);
+    this.fileContext = FileContext.getFileContext(fileSystem.getUri(), conf);
+    // credentials are never written to the cache, only their hashes
+    this.directory = new Path(rootDirectory, hash(credentialsId));
+    this.maxAgeMillis = maxAgeMillis;
+    this.clock = clock;
+  }
+
+  /**
+   * Returns the cached entry for the given url, or null if there is none.
+   */
+  @Nullable
+  public Entry lookup(String url) throws IOException {
+    String key = hash(url);
+    Path metadataPath = new Path(directory, key + METADATA_SUFFIX);
+    try (BufferedReader reader = new BufferedReader(
+      new InputStreamReader(fileSystem.open(metadataPath), StandardCharsets.UTF_8))) {
+      if (isExpired(fileSystem.getFileStatus(metadataPath))) {
+        return null;
+      }
+      String eTag = reader.readLine();
+      String link = reader.readLine();
+      String contentName = reader.readLine();
+      if (eTag == null || eTag.isEmpty() || contentName == null || contentName.isEmpty()) {
+        return null;
+      }
+      Path contentPath = new Path(directory, contentName);
+      if (!fileSystem.exists(contentPath)) {
+        return null;
+      }
+      return new Entry(eTag, link == null || link.isEmpty() ? null : link, metadataPath, contentPath);
+    } catch (FileNotFoundException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Opens the cached response body of the given entry, which is kept for another maximum age, as it is still valid.
+   */
+  public InputStream openContent(Entry entry) throws IOException {
+    long now = clock.currentTimeMillis();
+    fileSystem.setTimes(entry.contentPath, now, -1);
+    fileSystem.setTimes(entry.metadataPath, now, -1);
+    return fileSystem.open(entry.contentPath);
+  }
+
+  /**
+   * Wraps the given response body, so that it is written to the cache while being read.
+   * The entry is only stored once the whole body has been read and the returned stream is closed.
+   */
+  public InputStream store(String url, String eTag, @Nullable String link, InputStream content) throws IOException {
+    String key = hash(url);
+    Path contentPath = new Path(directory, key + "." + UUID.randomUUID() + CONTENT_SUFFIX);
+    OutputStream cacheOutput = fileSystem.create(contentPath, true);
+    return new FilterInputStream(content) {
+      private boolean closed;
+
+      @Override
+      public int read() throws IOException {
+        int value = super.read();
+        if (value >= 0) {
+          cacheOutput.write(value);
+        }
+        return value;
+      }
+
+      @Override
+      public int read(byte[] buffer, int offset, int length) throws IOException {
+        int count = super.read(buffer, offset, length);
+        if (count > 0) {
+          cacheOutput.write(buffer, offset, count);
+        }
+        return count;
+      }
+
+      @Override
+      public void close() throws IOException {
+        if (closed) {
+          return;
+        }
+        closed = true;
+        boolean committed = false;
+        try {
+          // readers stop at the end of the JSON document, consume whatever is left to cache the complete body
+          byte[] buffer = new byte[8192];
+          while (read(buffer, 0, buffer.length) >= 0) {
+            // keep draining
+          }
+          cacheOutput.close();
+          commit(key, eTag, link, contentPath);
+          committed = true;
+        } finally {
+          cacheOutput.close();
+          if (!committed) {
+            fileSystem.delete(contentPath, false);
+          }
+          super.close();
+        }
+      }
+    };
+  }
+
+  /**
+   * Deletes the files of all credentials, which have not been stored or served within the maximum age, so that the
+   * cache does not grow without bound across runs.
+   */
+  public void evictExpired() throws IOException {
+    if (!fileSystem.exists(rootDirectory)) {
+      return;
+    }
+    for (FileStatus credentialsDirectory : fileSystem.listStatus(rootDirectory)) {
+      if (!credentialsDirectory.isDirectory()) {
+        continue;
+      }
+      for (FileStatus file : fileSystem.listStatus(credentialsDirectory.getPath())) {
+        if (file.isFile() && isExpired(file)) {
+          fileSystem.delete(file.getPath(), false);
+        }
+      }
+    }
+  }
+
+  private boolean isExpired(FileStatus file) {
+    return file.getModificationTime() < clock.currentTimeMillis() - maxAgeMillis;
+  }
+
+  /**
+   * Points the metadata of the given key at the given body, replacing the previous metadata at once. The body of the
+   * previous entry is left to the eviction, as a concurrent reader may still be about to open it.
+   */
+  private void commit(String key, String eTag, @Nullable String link, Path contentPath) throws IOException {
+    Path metadataPath = new Path(directory, key + METADATA_SUFFIX);
+    Path tempMetadataPath = new Path(directory, key + "." + UUID.randomUUID() + METADATA_SUFFIX + TEMP_SUFFIX);
+    try (OutputStream metadataOutput = fileSystem.create(tempMetadataPath, true)) {
+      String metadata = eTag + "\n" + (link == null ? "" : link) + "\n" + contentPath.getName() + "\n";
+      metadataOutput.write(metadata.getBytes(StandardCharsets.UTF_8));
+    }
+    try {
+      fileContext.rename(tempMetadataPath, metadataPath, Options.Rename.OVERWRITE);
+    } catch (IOException e) {
+      fileSystem.delete(tempMetadataPath, false);
+      throw e;
+    }
+  }
+
+  private static String hash(String value) {
+    return Hashing.sha256().hashBytes(value.getBytes(StandardCharsets.UTF_8)).toString();
+  }
+
+  /**
+   * Cached GitHub response.
+   */
+  public static class Entry {
+    private final String eTag;
+    private final String link;
+    private final Path metadataPath;
+    private final Path contentPath;
+
+    private Entry(String eTag, @Nullable String link, Path metadataPath, Path contentPath) {
+      this.eTag = eTag;
+      this.link = link;
+      this.metadataPath = metadataPath;
+      this.contentPath = contentPath;
+    }
+
+    public String getETag() {
+      return eTag;
+    }
+
+    @Nullable
+    public String getLink() {
+      return link;
+    }
+  }
+}
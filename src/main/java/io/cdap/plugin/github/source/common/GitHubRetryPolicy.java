@@ -0,0 +1,209 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.HttpStatusCodes;
+import com.google.api.client.util.Clock;
+import com.google.api.client.util.Sleeper;
+import com.google.api.client.util.StringUtils;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * Executes GitHub requests, retrying transient failures with exponential backoff and full jitter.
+ *
+ * Server errors, '429 Too Many Requests' and I/O errors are retried after a random delay of up to
+ * {@code baseDelay * 2^(attempt - 1)}, capped at the maximum delay. Rate limited '403 Forbidden' responses are
+ * retried after the delay GitHub asks for with 'Retry-After' or the rate limit reset, and secondary rate limits
+ * without such hints are retried after at least {@link #SECONDARY_RATE_LIMIT_DELAY_MILLIS}.
+ * Requests and their retries are counted per status code into the metrics of the source, if given.
+ */
+public class GitHubRetryPolicy {
+
+  public static final int DEFAULT_MAX_ATTEMPTS = 5;
+  public static final int DEFAULT_BASE_DELAY_SECONDS = 1;
+  public static final int DEFAULT_MAX_DELAY_SECONDS = 60;
+  /**
+   * Key under which retries of requests failed with an I/O error are counted.
+   */
+  public static final String IO_ERROR = "io";
+
+  static final long SECONDARY_RATE_LIMIT_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private static final int TOO_MANY_REQUESTS = 429;
+  private static final Pattern SECONDARY_RATE_LIMIT_MESSAGE =
+    Pattern.compile("secondary rate limit|abuse detection", Pattern.CASE_INSENSITIVE);
+
+  private final int maxAttempts;
+  private final long baseDelayMillis;
+  private final long maxDelayMillis;
+  private final GitHubTokenPool tokenPool;
+  private final GitHubRequestMetrics metrics;
+  private final Clock clock;
+  private final Sleeper sleeper;
+  private final Random random;
+
+  public GitHubRetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+    this(maxAttempts, baseDelayMillis, maxDelayMillis, null, null);
+  }
+
+  /**
+   * Creates a retry policy of requests authorized by the given token pool, which retries rate limited requests
+   * as soon as any token of the pool can be used, and counts the requests into the given metrics.
+   */
+  public GitHubRetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis,
+                           @Nullable GitHubTokenPool tokenPool, @Nullable GitHubRequestMetrics metrics) {
+    this(maxAttempts, baseDelayMillis, maxDelayMillis, tokenPool, metrics, Clock.SYSTEM, Sleeper.DEFAULT,
+         new Random());
+  }
+
+  GitHubRetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, @Nullable GitHubTokenPool tokenPool,
+                    @Nullable GitHubRequestMetrics metrics, Clock clock, Sleeper sleeper, Random random) {
+    this.maxAttempts = maxAttempts;
+    this.tokenPool = tokenPool;
+    // requests, which are not made for a source, are counted into metrics nobody reports
+    this.metrics = metrics == null ? new GitHubRequestMetrics() : metrics;
+    this.baseDelayMillis = baseDelayMillis;
+    this.maxDelayMillis = maxDelayMillis;
+    this.clock = clock;
+    this.sleeper = sleeper;
+    this.random = random;
+  }
+
+  /**
+   * Executes the given request until it succeeds, fails permanently or runs out of attempts.
+   * The response of the last attempt is returned even if it is not successful.
+   */
+  public HttpResponse execute(HttpRequest request) throws IOException {
+    request.setThrowExceptionOnExecuteError(false);
+    int attempt = 0;
+    while (true) {
+      attempt++;
+      HttpResponse response;
+      long startMillis = clock.currentTimeMillis();
+      try {
+        response = metrics.execute(request);
+        metrics.recordRequest(String.valueOf(response.getStatusCode()), clock.currentTimeMillis() - startMillis);
+      } catch (IOException e) {
+        metrics.recordRequest(IO_ERROR, clock.currentTimeMillis() - startMillis);
+        if (attempt >= maxAttempts) {
+          throw e;
+        }
+        retryAfter(IO_ERROR, getBackoffMillis(attempt));
+        continue;
+      }
+      if (attempt >= maxAttempts) {
+        return response;
+      }
+      long delayMillis = getRetryDelayMillis(response, attempt);
+      if (delayMillis < 0) {
+        return response;
+      }
+      response.ignore();
+      retryAfter(String.valueOf(response.getStatusCode()), delayMillis);
+    }
+  }
+
+  /**
+   * Returns how long to wait before retrying the given response, or -1 if it must not be retried.
+   */
+  private long getRetryDelayMillis(HttpResponse response, int attempt) throws IOException {
+    int statusCode = response.getStatusCode();
+    if (response.isSuccessStatusCode() || statusCode == HttpStatusCodes.STATUS_CODE_NOT_MODIFIED) {
+      return -1;
+    }
+    HttpHeaders headers = response.getHeaders();
+    Long retryAfterSeconds = GitHubRateLimiter.getLongHeader(headers, GitHubRateLimiter.RETRY_AFTER_HEADER);
+    if (statusCode == HttpStatusCodes.STATUS_CODE_FORBIDDEN || statusCode == TOO_MANY_REQUESTS) {
+      if (retryAfterSeconds != null) {
+        return getRateLimitDelayMillis(TimeUnit.SECONDS.toMillis(retryAfterSeconds));
+      }
+      Long remaining = GitHubRateLimiter.getLongHeader(headers, GitHubRateLimiter.REMAINING_HEADER);
+      Long resetSeconds = GitHubRateLimiter.getLongHeader(headers, GitHubRateLimiter.RESET_HEADER);
+      if (remaining != null && remaining == 0 && resetSeconds != null) {
+        return getRateLimitDelayMillis(Math.max(0, TimeUnit.SECONDS.toMillis(resetSeconds) -
+          clock.currentTimeMillis()));
+      }
+      if (statusCode == TOO_MANY_REQUESTS) {
+        return getBackoffMillis(attempt);
+      }
+      return isSecondaryRateLimit(response)
+        ? Math.max(SECONDARY_RATE_LIMIT_DELAY_MILLIS, getBackoffMillis(attempt)) : -1;
+    }
+    if (statusCode >= HttpStatusCodes.STATUS_CODE_SERVER_ERROR) {
+      return retryAfterSeconds != null ? TimeUnit.SECONDS.toMillis(retryAfterSeconds) : getBackoffMillis(attempt);
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the delay before retrying a request, which token has run out of budget for the given time.
+   * Other tokens of the pool may still have budget left, in which case the retry does not have to wait.
+   */
+  private long getRateLimitDelayMillis(long tokenDelayMillis) {
+    return tokenPool == null ? tokenDelayMillis : Math.min(tokenDelayMillis, tokenPool.getDelayMillis());
+  }
+
+  /**
+   * Checks the body of a '403 Forbidden' response for the secondary rate limit message. As the body is consumed,
+   * a response, which is not rate limited, is turned into an exception carrying the body instead.
+   */
+  private static boolean isSecondaryRateLimit(HttpResponse response) throws IOException {
+    String content = response.parseAsString();
+    if (SECONDARY_RATE_LIMIT_MESSAGE.matcher(content).find()) {
+      return true;
+    }
+    StringBuilder message = HttpResponseException.computeMessageBuffer(response);
+    if (!content.isEmpty()) {
+      message.append(StringUtils.LINE_SEPARATOR).append(content);
+    }
+    throw new HttpResponseException.Builder(response.getStatusCode(), response.getStatusMessage(),
+                                            response.getHeaders())
+      .setContent(content)
+      .setMessage(message.toString())
+      .build();
+  }
+
+  /**
+   * Returns a random delay between zero and the exponentially growing, capped backoff of the given attempt.
+   */
+  long getBackoffMillis(int attempt) {
+    int exponent = Math.min(attempt - 1, 30);
+    long ceiling = Math.min(maxDelayMillis, baseDelayMillis * (1L << exponent));
+    return (long) (random.nextDouble() * ceiling);
+  }
+
+  private void retryAfter(String status, long delayMillis) throws IOException {
+    metrics.recordRetry(status);
+    if (delayMillis <= 0) {
+      return;
+    }
+    try {
+      sleeper.sleep(delayMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting to retry GitHub request", e);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.http.GenericUrl;
+import io.cdap.plugin.github.source.batch.GithubBatchSourceConfig;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Builds the requests of the datasets read with the search API.
+ *
+ * A search returns at most {@link #MAX_RESULTS} results, so a dataset is read in slices of the configured query
+ * restricted to ranges of creation dates, each small enough to be read completely. The results are sorted by
+ * creation date, so that the pages of a slice do not change while it is read. The search API has its own, much
+ * lower rate limit, which is tracked apart from the one of the other requests.
+ */
+public class GitHubSearch {
+
+  public static final String ISSUES_DATASET = "Search:Issues";
+  public static final Set<String> SEARCH_DATASETS = Collections.singleton(ISSUES_DATASET);
+  /**
+   * Maximum number of results GitHub returns for a single search query.
+   */
+  public static final int MAX_RESULTS = 1000;
+  /**
+   * Member of the search response holding the array of results.
+   */
+  public static final String RECORDS_MEMBER = "items";
+  public static final String TOTAL_COUNT_MEMBER = "total_count";
+  public static final String QUERY_PARAMETER = "q";
+  public static final String CREATED_QUALIFIER = "created:";
+
+  private static final String SEARCH_PATH = "/search/";
+
+  public static boolean isSearchDataset(@Nullable String datasetName) {
+    return SEARCH_DATASETS.contains(datasetName);
+  }
+
+  /**
+   * Returns whether the given url is a request of the search API.
+   */
+  public static boolean isSearchUrl(String url) {
+    return new GenericUrl(url).getRawPath().contains(SEARCH_PATH);
+  }
+
+  /**
+   * Returns the url of the first page of results of the configured query within the given repository of the
+   * configured owner, sorted from the oldest to the newest result.
+   */
+  public static String generateFirstCallUrl(GithubBatchSourceConfig config, String repoName, String path) {
+    GenericUrl url = new GenericUrl(GitHubRequestFactory.getHostname(config) + "/" + path);
+    url.set(QUERY_PARAMETER, String.format("%s repo:%s/%s", config.getSearchQuery(), config.getRepoOwner(),
+                                           repoName));
+    url.set("sort", "created");
+    url.set("order", "asc");
+    url.set("per_page", GitHubRequestFactory.DEFAULT_PAGE_SIZE);
+    return url.build();
+  }
+
+  /**
+   * Returns the given search url restricted to the results created between the given times, both inclusive.
+   */
+  public static String buildSliceUrl(String url, @Nullable Instant since, Instant until) {
+    GenericUrl sliceUrl = new GenericUrl(url);
+    String range = (since == null ? "*" : DateTimeFormatter.ISO_INSTANT.format(since)) + ".." +
+      DateTimeFormatter.ISO_INSTANT.format(until);
+    sliceUrl.set(QUERY_PARAMETER, sliceUrl.getFirst(QUERY_PARAMETER) + " " + CREATED_QUALIFIER + range);
+    return sliceUrl.build();
+  }
+}
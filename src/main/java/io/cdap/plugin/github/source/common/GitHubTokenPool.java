@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseInterceptor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Spreads GitHub requests across several credentials, each with its own rate limit budget.
+ *
+ * Every request is authorized, when it is executed, with the credential that can be used the soonest and, among
+ * those, the one with the most budget left, as tracked by the {@link GitHubRateLimiter} of the credential.
+ * Credentials, which budget is not known yet, are preferred, so that every credential is tried early. As retries
+ * are executed again, a retry of a rate limited request moves on to another credential. A single instance is
+ * shared by all readers of the JVM using the same credentials for the same rate limit resource, and it ignores the
+ * rate limit headers of responses, which name another resource.
+ */
+public class GitHubTokenPool implements HttpExecuteInterceptor, HttpResponseInterceptor {
+
+  /**
+   * Rate limit of most requests of the REST API.
+   */
+  public static final String CORE_RESOURCE = "core";
+  /**
+   * Separate, much lower rate limit of the search API.
+   */
+  public static final String SEARCH_RESOURCE = "search";
+  /**
+   * Separate, point based rate limit of the GraphQL API.
+   */
+  public static final String GRAPHQL_RESOURCE = "graphql";
+
+  private static final ConcurrentMap<List<String>, GitHubTokenPool> TOKEN_POOLS = new ConcurrentHashMap<>();
+
+  private final String resource;
+  private final Map<GitHubCredential, GitHubRateLimiter> rateLimiters = new LinkedHashMap<>();
+  // the response of a request is intercepted by the thread, which executed it
+  private final ThreadLocal<GitHubCredential> requestCredential = new ThreadLocal<>();
+
+  GitHubTokenPool(List<GitHubCredential> credentials, Function<String, GitHubRateLimiter> rateLimiterFactory) {
+    this(credentials, CORE_RESOURCE, rateLimiterFactory);
+  }
+
+  GitHubTokenPool(List<GitHubCredential> credentials, String resource,
+                  Function<String, GitHubRateLimiter> rateLimiterFactory) {
+    this.resource = resource;
+    if (credentials.isEmpty()) {
+      throw new IllegalArgumentException("At least one GitHub credential is required.");
+    }
+    for (GitHubCredential credential : credentials) {
+      rateLimiters.put(credential, rateLimiterFactory.apply(credential.getName()));
+    }
+  }
+
+  /**
+   * Returns the token pool shared by all requests made with the given credentials.
+   */
+  public static GitHubTokenPool forCredentials(List<GitHubCredential> credentials) {
+    return forCredentials(credentials, CORE_RESOURCE);
+  }
+
+  /**
+   * Returns the token pool shared by all requests made with the given credentials, which count against the rate
+   * limit of the given resource, like {@link #SEARCH_RESOURCE}.
+   */
+  public static GitHubTokenPool forCredentials(List<GitHubCredential> credentials, String resource) {
+    List<String> names = credentials.stream().map(GitHubCredential::getName).collect(Collectors.toList());
+    List<String> key = new ArrayList<>(names);
+    key.add(resource);
+    return TOKEN_POOLS.computeIfAbsent(key, k -> new GitHubTokenPool(
+      credentials, resource,
+      name -> GitHubRateLimiter.forCredential(CORE_RESOURCE.equals(resource) ? name : resource + ":" + name)));
+  }
+
+  /**
+   * Returns the credential the next request is made with.
+   */
+  public synchronized GitHubCredential select() {
+    GitHubCredential selectedCredential = null;
+    long selectedDelay = Long.MAX_VALUE;
+    long selectedRemaining = -1;
+    for (Map.Entry<GitHubCredential, GitHubRateLimiter> entry : rateLimiters.entrySet()) {
+      long delay = entry.getValue().getDelayMillis();
+      long remaining = entry.getValue().getRemaining();
+      if (remaining < 0) {
+        // budget of a credential, which has not been used yet, is assumed to be full
+        remaining = Long.MAX_VALUE;
+      }
+      if (delay < selectedDelay || (delay == selectedDelay && remaining > selectedRemaining)) {
+        selectedCredential = entry.getKey();
+        selectedDelay = delay;
+        selectedRemaining = remaining;
+      }
+    }
+    return selectedCredential;
+  }
+
+  /**
+   * Returns how long the next request has to wait for the credential, which can be used the soonest.
+   */
+  public long getDelayMillis() {
+    long delayMillis = Long.MAX_VALUE;
+    for (GitHubRateLimiter rateLimiter : rateLimiters.values()) {
+      delayMillis = Math.min(delayMillis, rateLimiter.getDelayMillis());
+    }
+    return delayMillis;
+  }
+
+  /**
+   * Returns the number of requests left in the current rate limit windows of all credentials, or -1 if none is
+   * known.
+   */
+  public long getRemaining() {
+    long total = -1;
+    for (GitHubRateLimiter rateLimiter : rateLimiters.values()) {
+      long remaining = rateLimiter.getRemaining();
+      if (remaining >= 0) {
+        total = Math.max(total, 0) + remaining;
+      }
+    }
+    return total;
+  }
+
+  @Override
+  public void intercept(HttpRequest request) throws IOException {
+    GitHubCredential credential = select();
+    requestCredential.set(credential);
+    request.getHeaders().setAuthorization(credential.getAuthorization());
+    rateLimiters.get(credential).intercept(request);
+  }
+
+  @Override
+  public void interceptResponse(HttpResponse response) {
+    GitHubCredential credential = requestCredential.get();
+    String responseResource = response.getHeaders().getFirstHeaderStringValue(GitHubRateLimiter.RESOURCE_HEADER);
+    if (responseResource != null && !responseResource.equals(resource)) {
+      // the headers describe the budget of another rate limit than the one this pool paces
+      return;
+    }
+    if (credential != null) {
+      rateLimiters.get(credential).interceptResponse(response);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.github.source.common;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the high-watermark timestamp of incremental reads of a repository dataset in a local or HDFS directory.
+ */
+public class GitHubWatermarkStore {
+
+  private final FileSystem fileSystem;
+  private final Path watermarkPath;
+
+  public GitHubWatermarkStore(String directory, String repoOwner, String repoName, String datasetName,
+                              Configuration conf) throws IOException {
+    Path rootDirectory = new Path(directory);
+    this.fileSystem = rootDirectory.getFileSystem(conf);
+    this.watermarkPath = new Path(rootDirectory, String.format("%s/%s/%s.watermark", sanitize(repoOwner),
+                                                               sanitize(repoName), sanitize(datasetName)));
+  }
+
+  /**
+   * Returns the stored watermark, or null if no run has completed yet.
+   */
+  @Nullable
+  public String read() throws IOException {
+    if (!fileSystem.exists(watermarkPath)) {
+      return null;
+    }
+    try (BufferedReader reader = new BufferedReader(
+      new InputStreamReader(fileSystem.open(watermarkPath), StandardCharsets.UTF_8))) {
+      String watermark = reader.readLine();
+      return watermark == null || watermark.trim().isEmpty() ? null : watermark.trim();
+    }
+  }
+
+  /**
+   * Replaces the stored watermark with the given one.
+   */
+  public void write(String watermark) throws IOException {
+    Path tempPath = watermarkPath.suffix("." + UUID.randomUUID());
+    try (OutputStream output = fileSystem.create(tempPath, true)) {
+      output.write((watermark + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+    fileSystem.delete(watermarkPath, false);
+    if (!fileSystem.rename(tempPath, watermarkPath)) {
+      fileSystem.delete(tempPath, false);
+      throw new IOException(String.format("Failed to store watermark in %s", watermarkPath));
+    }
+  }
+
+  private static String sanitize(String name) {
+    return name.replaceAll("[^A-Za-z0-9._-]", "_");
+  }
+}
@@ -21,12 +21,91 @@ import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * Helper class to map GitHub repository fields sets to final {@link Schema}.
  */
 public class SchemaBuilder {
+
+  /**
+   * Field holding the 'owner/name' of the repository a record was read from, when several repositories are read.
+   */
+  public static final String SOURCE_REPOSITORY_FIELD = "sourceRepository";
+
+  private static final ConcurrentMap<List<?>, Schema> SCHEMAS = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the schema of the given model, which is built once per JVM and shared by all its callers.
+   * @param schemaName the given schema name
+   * @param model the model
+   * @return the shared instance of Schema
+   */
+  public static Schema getSchema(String schemaName, Class<?> model) {
+    return getSchema(schemaName, model, null);
+  }
+
+  /**
+   * Returns the schema of the given model pruned to the selected top-level fields, which is built once per JVM
+   * and shared by all its callers.
+   * @param schemaName the given schema name
+   * @param model the model
+   * @param selectedFields names of the fields to keep, or null to keep all of them
+   * @return the shared instance of Schema
+   */
+  public static Schema getSchema(String schemaName, Class<?> model, @Nullable Collection<String> selectedFields) {
+    return getSchema(schemaName, model, selectedFields, false);
+  }
+
+  /**
+   * Returns the schema of the given model pruned to the selected top-level fields, with the
+   * {@link #SOURCE_REPOSITORY_FIELD} appended if requested, which is built once per JVM and shared by all its
+   * callers.
+   * @param schemaName the given schema name
+   * @param model the model
+   * @param selectedFields names of the fields to keep, or null to keep all of them
+   * @param sourceRepository whether the records hold the repository they were read from
+   * @return the shared instance of Schema
+   */
+  public static Schema getSchema(String schemaName, Class<?> model, @Nullable Collection<String> selectedFields,
+                                 boolean sourceRepository) {
+    List<?> key = Arrays.asList(schemaName, model, selectedFields, sourceRepository);
+    return SCHEMAS.computeIfAbsent(key, k -> {
+      Schema schema = buildSchema(schemaName, model);
+      schema = selectedFields == null ? schema : selectFields(schema, selectedFields);
+      return sourceRepository ? addSourceRepository(schema) : schema;
+    });
+  }
+
+  /**
+   * Returns a copy of the given record schema with the {@link #SOURCE_REPOSITORY_FIELD} appended.
+   * @param schema the record schema
+   * @return the extended instance of Schema
+   */
+  public static Schema addSourceRepository(Schema schema) {
+    List<Schema.Field> fields = new ArrayList<>(schema.getFields());
+    fields.add(Schema.Field.of(SOURCE_REPOSITORY_FIELD, Schema.of(Schema.Type.STRING)));
+    return Schema.recordOf(schema.getRecordName(), fields);
+  }
+
+  /**
+   * Returns a copy of the given record schema holding only the selected fields, in the order of the schema.
+   * @param schema the record schema
+   * @param selectedFields names of the fields to keep
+   * @return the pruned instance of Schema
+   */
+  public static Schema selectFields(Schema schema, Collection<String> selectedFields) {
+    List<Schema.Field> fields = schema.getFields().stream()
+      .filter(field -> selectedFields.contains(field.getName()))
+      .collect(Collectors.toList());
+    return Schema.recordOf(schema.getRecordName(), fields);
+  }
+
   /**
    * Returns selected Schema.
    * @param schemaName the given schema name with
@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.github.source.common.model.impl;
+
+import com.google.api.client.util.Key;
+
+import java.util.List;
+
+/**
+ * Commit model for github read with the GraphQL API, which selects the pull requests and the check status of the
+ * commits together with them, where the REST API needs a call per commit.
+ */
+public class GraphQLCommit extends Commit {
+
+  @Key("pull_requests")
+  private List<PullRequest> pullRequests;
+  @Key("check_status")
+  private String checkStatus;
+
+  /**
+   * GraphQLCommit.PullRequest model
+   */
+  public static class PullRequest {
+    @Key
+    private Integer number;
+    @Key
+    private String title;
+    @Key
+    private String state;
+    @Key("html_url")
+    private String htmlUrl;
+    @Key("merged_at")
+    private String mergedAt;
+  }
+}
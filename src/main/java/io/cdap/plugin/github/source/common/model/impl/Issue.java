@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.github.source.common.model.impl;
+
+import com.google.api.client.util.Key;
+import io.cdap.plugin.github.source.common.model.GitHubModel;
+import io.cdap.plugin.github.source.common.model.impl.user.User;
+
+import java.util.List;
+
+/**
+ * Issue model for github, which is also the model of pull requests found by the search API.
+ */
+public class Issue implements GitHubModel {
+
+  @Key
+  private String url;
+  @Key("repository_url")
+  private String repositoryUrl;
+  @Key("html_url")
+  private String htmlUrl;
+  @Key
+  private Long id;
+  @Key("node_id")
+  private String nodeId;
+  @Key
+  private Integer number;
+  @Key
+  private String title;
+  @Key
+  private User user;
+  @Key
+  private List<Label> labels;
+  @Key
+  private String state;
+  @Key
+  private Boolean locked;
+  @Key
+  private List<User> assignees;
+  @Key
+  private Integer comments;
+  @Key("created_at")
+  private String createdAt;
+  @Key("updated_at")
+  private String updatedAt;
+  @Key("closed_at")
+  private String closedAt;
+  @Key("author_association")
+  private String authorAssociation;
+  @Key
+  private String body;
+
+  /**
+   * Issue.Label model
+   */
+  public static class Label {
+    @Key
+    private Long id;
+    @Key("node_id")
+    private String nodeId;
+    @Key
+    private String url;
+    @Key
+    private String name;
+    @Key
+    private String color;
+    @Key
+    private String description;
+  }
+}
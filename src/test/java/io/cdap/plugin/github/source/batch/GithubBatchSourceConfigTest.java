@@ -1,17 +1,42 @@
 package io.cdap.plugin.github.source.batch;
 
+import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.etl.api.validation.ValidationFailure;
 import io.cdap.cdap.etl.mock.validation.MockFailureCollector;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.API;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.AUTHOR;
 import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.AUTHORIZATION_TOKEN;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.BASE_RETRY_DELAY;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.CONNECT_TIMEOUT;
 import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.DATASET_NAME;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.DEPLOYMENT_ENVIRONMENT;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.MAX_ATTEMPTS;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.MAX_CONNECTIONS;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.MAX_RETRY_DELAY;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.MAX_SPLITS;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.PAGES_PER_SPLIT;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.PATH;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.PLANNING_THREADS;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.PLANNING_TIMEOUT;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.PRIVATE_KEY;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.PROTECTED_BRANCHES;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.READ_TIMEOUT;
 import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.REPOSITORY_NAME;
 import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.REPOSITORY_OWNER;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.SELECTED_FIELDS;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.SINCE;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.SORT;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.UNTIL;
+import static io.cdap.plugin.github.source.batch.GithubBatchSourceConfig.WATERMARK_DIRECTORY;
 
 public class GithubBatchSourceConfigTest {
 
@@ -71,6 +96,57 @@ public class GithubBatchSourceConfigTest {
     Assert.assertTrue(isStartDateFailure);
   }
 
+  @Test
+  public void testGetAuthorizationTokens() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    config.authorizationToken = "first, second\nthird,first";
+
+    //then
+    Assert.assertEquals(Arrays.asList("first", "second", "third"), config.getAuthorizationTokens());
+  }
+
+  @Test
+  public void testValidateConfigCaseAuthTokensBlank() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    MockFailureCollector failureCollector = new MockFailureCollector();
+    config.authorizationToken = " , ";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "dataset";
+
+    //when
+    config.validate(failureCollector);
+
+    //then
+    Assert.assertEquals(1, failureCollector.getValidationFailures().size());
+  }
+
+  @Test
+  public void testValidateConfigCaseGitHubApp() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    MockFailureCollector failureCollector = new MockFailureCollector();
+    config.appId = "42";
+    config.privateKey = "not a key";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "dataset";
+
+    //when
+    config.validate(failureCollector);
+
+    //then
+    Assert.assertEquals(2, failureCollector.getValidationFailures().size());
+    boolean isPrivateKeyFailure = failureCollector.getValidationFailures().stream()
+      .map(ValidationFailure::getCauses)
+      .flatMap(Collection::stream)
+      .anyMatch(cause -> cause.getAttributes().containsValue(PRIVATE_KEY));
+    Assert.assertTrue(isPrivateKeyFailure);
+    Assert.assertTrue(config.isGitHubApp());
+  }
+
   @Test
   public void testValidateConfigCaseRepoOwnerNull() {
     //given
@@ -133,4 +209,418 @@ public class GithubBatchSourceConfigTest {
     //then
     Assert.assertTrue(isStartDateFailure);
   }
+
+  @Test
+  public void testValidateConfigCaseNonPositiveSplitSettings() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    MockFailureCollector failureCollector = new MockFailureCollector();
+    config.authorizationToken = "token";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "dataset";
+    config.pagesPerSplit = 0;
+    config.maxSplits = -1;
+
+    //when
+    config.validate(failureCollector);
+
+    boolean isPagesPerSplitFailure = failureCollector.getValidationFailures().stream()
+      .map(ValidationFailure::getCauses)
+      .flatMap(Collection::stream)
+      .anyMatch(cause -> cause.getAttributes().containsValue(PAGES_PER_SPLIT));
+    boolean isMaxSplitsFailure = failureCollector.getValidationFailures().stream()
+      .map(ValidationFailure::getCauses)
+      .flatMap(Collection::stream)
+      .anyMatch(cause -> cause.getAttributes().containsValue(MAX_SPLITS));
+
+    //then
+    Assert.assertTrue(isPagesPerSplitFailure);
+    Assert.assertTrue(isMaxSplitsFailure);
+  }
+
+  @Test
+  public void testValidateConfigCaseInvalidConnectionSettings() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    MockFailureCollector failureCollector = new MockFailureCollector();
+    config.authorizationToken = "token";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "Commits";
+    config.maxConnections = 0;
+    config.connectTimeout = -1;
+    config.readTimeout = -1;
+    config.maxAttempts = 0;
+    config.baseRetryDelay = -1;
+    config.maxRetryDelay = -1;
+
+    //when
+    config.validate(failureCollector);
+
+    //then
+    Assert.assertEquals(6, failureCollector.getValidationFailures().size());
+    for (String property : Arrays.asList(MAX_CONNECTIONS, CONNECT_TIMEOUT, READ_TIMEOUT, MAX_ATTEMPTS,
+                                         BASE_RETRY_DELAY, MAX_RETRY_DELAY)) {
+      boolean isPropertyFailure = failureCollector.getValidationFailures().stream()
+        .map(ValidationFailure::getCauses)
+        .flatMap(Collection::stream)
+        .anyMatch(cause -> cause.getAttributes().containsValue(property));
+      Assert.assertTrue(isPropertyFailure);
+    }
+  }
+
+  @Test
+  public void testValidateConfigCaseInvalidSince() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    MockFailureCollector failureCollector = new MockFailureCollector();
+    config.authorizationToken = "token";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "Commits";
+    config.since = "yesterday";
+
+    //when
+    config.validate(failureCollector);
+
+    boolean isSinceFailure = failureCollector.getValidationFailures().stream()
+      .map(ValidationFailure::getCauses)
+      .flatMap(Collection::stream)
+      .anyMatch(cause -> cause.getAttributes().containsValue(SINCE));
+
+    //then
+    Assert.assertTrue(isSinceFailure);
+  }
+
+  @Test
+  public void testValidateConfigCaseCommitFilters() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    config.authorizationToken = "token";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "Commits";
+    config.since = "2020-01-01T00:00:00Z";
+    config.until = "2020-06-01T00:00:00Z";
+    config.sha = "develop";
+    config.path = "src";
+    config.author = "octocat@github.com";
+    config.committer = "octocat";
+
+    //when
+    config.validate(failureCollector);
+
+    //then
+    Assert.assertTrue(failureCollector.getValidationFailures().isEmpty());
+  }
+
+  @Test
+  public void testValidateConfigCaseInvalidUntil() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    config.authorizationToken = "token";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "Commits";
+    config.since = "2020-01-01T00:00:00Z";
+    config.until = "2019-01-01T00:00:00Z";
+
+    //when
+    config.validate(failureCollector);
+
+    //then
+    Assert.assertEquals(1, failureCollector.getValidationFailures().size());
+    Assert.assertTrue(failureCollector.getValidationFailures().get(0).getCauses().get(0).getAttributes()
+                        .containsValue(UNTIL));
+  }
+
+  @Test
+  public void testValidateConfigCaseUnsupportedFilters() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    config.authorizationToken = "token";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "Forks";
+    config.path = "src";
+    config.protectedBranches = true;
+    config.sort = "largest";
+    config.deploymentEnvironment = "production";
+
+    //when
+    config.validate(failureCollector);
+
+    //then
+    Set<String> properties = failureCollector.getValidationFailures().stream()
+      .map(ValidationFailure::getCauses)
+      .flatMap(Collection::stream)
+      .flatMap(cause -> cause.getAttributes().values().stream())
+      .collect(Collectors.toSet());
+    Assert.assertEquals(4, failureCollector.getValidationFailures().size());
+    Assert.assertTrue(properties.containsAll(Arrays.asList(PATH, PROTECTED_BRANCHES, SORT, DEPLOYMENT_ENVIRONMENT)));
+  }
+
+  @Test
+  public void testValidateConfigCaseFiltersGraphQL() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    config.authorizationToken = "token";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "Commits";
+    config.api = GithubBatchSourceConfig.GRAPHQL_API;
+    config.author = "octocat";
+
+    //when
+    config.validate(failureCollector);
+
+    //then
+    Assert.assertEquals(1, failureCollector.getValidationFailures().size());
+    Assert.assertTrue(failureCollector.getValidationFailures().get(0).getCauses().get(0).getAttributes()
+                        .containsValue(AUTHOR));
+  }
+
+  @Test
+  public void testValidateConfigCaseIncrementalUnsupportedDataset() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    MockFailureCollector failureCollector = new MockFailureCollector();
+    config.authorizationToken = "token";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "Branches";
+    config.since = "2020-01-01T00:00:00Z";
+    config.watermarkDirectory = "/tmp/watermarks";
+
+    //when
+    config.validate(failureCollector);
+
+    //then
+    Assert.assertEquals(2, failureCollector.getValidationFailures().size());
+    boolean isWatermarkFailure = failureCollector.getValidationFailures().stream()
+      .map(ValidationFailure::getCauses)
+      .flatMap(Collection::stream)
+      .anyMatch(cause -> cause.getAttributes().containsValue(WATERMARK_DIRECTORY));
+    Assert.assertTrue(isWatermarkFailure);
+  }
+
+  @Test
+  public void testValidateConfigCaseUnknownSelectedField() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    MockFailureCollector failureCollector = new MockFailureCollector();
+    config.authorizationToken = "token";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "Forks";
+    config.selectedFields = "id, fullName,unknown";
+
+    //when
+    config.validate(failureCollector);
+
+    //then
+    Assert.assertEquals(1, failureCollector.getValidationFailures().size());
+    boolean isSelectedFieldsFailure = failureCollector.getValidationFailures().stream()
+      .map(ValidationFailure::getCauses)
+      .flatMap(Collection::stream)
+      .anyMatch(cause -> cause.getAttributes().containsValue(SELECTED_FIELDS));
+    Assert.assertTrue(isSelectedFieldsFailure);
+  }
+
+  @Test
+  public void testValidateConfigCaseGraphQLUnsupportedDataset() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    MockFailureCollector failureCollector = new MockFailureCollector();
+    config.authorizationToken = "token";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "Forks";
+    config.api = GithubBatchSourceConfig.GRAPHQL_API;
+
+    //when
+    config.validate(failureCollector);
+
+    //then
+    Assert.assertEquals(1, failureCollector.getValidationFailures().size());
+    boolean isApiFailure = failureCollector.getValidationFailures().stream()
+      .map(ValidationFailure::getCauses)
+      .flatMap(Collection::stream)
+      .anyMatch(cause -> cause.getAttributes().containsValue(API));
+    Assert.assertTrue(isApiFailure);
+  }
+
+  @Test
+  public void testValidateConfigCaseUnknownApi() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    MockFailureCollector failureCollector = new MockFailureCollector();
+    config.authorizationToken = "token";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "Commits";
+    config.api = "SOAP";
+
+    //when
+    config.validate(failureCollector);
+
+    //then
+    Assert.assertEquals(1, failureCollector.getValidationFailures().size());
+    Assert.assertFalse(config.isGraphQL());
+  }
+
+  @Test
+  public void testGetSchemaCaseSelectedFields() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    config.datasetName = "Forks";
+    config.selectedFields = "owner, id";
+
+    //when
+    Schema schema = config.getSchema();
+
+    //then
+    Assert.assertEquals(Arrays.asList("owner", "id"), config.getSelectedFields());
+    Assert.assertEquals(2, schema.getFields().size());
+    Assert.assertEquals("id", schema.getFields().get(0).getName());
+    Assert.assertEquals("owner", schema.getFields().get(1).getName());
+  }
+
+  @Test
+  public void testGetSchemaCaseMultiRepository() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    config.datasetName = "Forks";
+    config.selectedFields = "owner, id";
+    config.repoName = "cdap, hydrator-*, cdap";
+
+    //when
+    Schema schema = config.getSchema();
+
+    //then
+    Assert.assertEquals(Arrays.asList("cdap", "hydrator-*"), config.getRepoNames());
+    Assert.assertTrue(config.isMultiRepository());
+    Assert.assertEquals(3, schema.getFields().size());
+    Assert.assertEquals("sourceRepository", schema.getFields().get(2).getName());
+  }
+
+  @Test
+  public void testGetSchemaCaseSingleRepository() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    config.datasetName = "Forks";
+    config.selectedFields = "id";
+    config.repoName = " cdap ";
+
+    //when
+    Schema schema = config.getSchema();
+
+    //then
+    Assert.assertFalse(config.isMultiRepository());
+    Assert.assertEquals(1, schema.getFields().size());
+  }
+
+  @Test
+  public void testValidateFieldsCaseInvalidPlanning() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    config.authorizationToken = "token";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "Forks";
+    config.planningThreads = 0;
+    config.planningTimeout = -1;
+
+    //when
+    config.validate(failureCollector);
+
+    boolean isPlanningThreadsFailure = failureCollector.getValidationFailures().stream()
+      .map(ValidationFailure::getCauses)
+      .flatMap(Collection::stream)
+      .anyMatch(cause -> cause.getAttributes().containsValue(PLANNING_THREADS));
+    boolean isPlanningTimeoutFailure = failureCollector.getValidationFailures().stream()
+      .map(ValidationFailure::getCauses)
+      .flatMap(Collection::stream)
+      .anyMatch(cause -> cause.getAttributes().containsValue(PLANNING_TIMEOUT));
+
+    //then
+    Assert.assertEquals(2, failureCollector.getValidationFailures().size());
+    Assert.assertTrue(isPlanningThreadsFailure);
+    Assert.assertTrue(isPlanningTimeoutFailure);
+  }
+
+  @Test
+  public void testValidateFieldsCaseTimeWindowsUnsupported() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    config.authorizationToken = "token";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "Forks";
+    config.splitStrategy = "Time windows";
+
+    //when
+    config.validate(failureCollector);
+
+    //then
+    Assert.assertEquals(1, failureCollector.getValidationFailures().size());
+    Assert.assertTrue(config.isTimeWindowSplits());
+  }
+
+  @Test
+  public void testValidateFieldsCaseTimeWindows() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    config.authorizationToken = "token";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "Commits";
+    config.splitStrategy = "Time windows";
+
+    //when
+    config.validate(failureCollector);
+
+    //then
+    Assert.assertTrue(failureCollector.getValidationFailures().isEmpty());
+  }
+
+  @Test
+  public void testValidateFieldsCaseSearchQueryMissing() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    config.authorizationToken = "token";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "Search:Issues";
+
+    //when
+    config.validate(failureCollector);
+
+    boolean isSearchQueryFailure = failureCollector.getValidationFailures().stream()
+      .map(ValidationFailure::getCauses)
+      .flatMap(Collection::stream)
+      .anyMatch(cause -> cause.getAttributes().containsValue(GithubBatchSourceConfig.SEARCH_QUERY));
+
+    //then
+    Assert.assertEquals(1, failureCollector.getValidationFailures().size());
+    Assert.assertTrue(isSearchQueryFailure);
+  }
+
+  @Test
+  public void testValidateFieldsCaseSearchQueryWithCreatedQualifier() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    config.authorizationToken = "token";
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "Search:Issues";
+    config.searchQuery = "is:pr created:>2020-01-01";
+
+    //when
+    config.validate(failureCollector);
+
+    //then
+    Assert.assertEquals(1, failureCollector.getValidationFailures().size());
+  }
 }
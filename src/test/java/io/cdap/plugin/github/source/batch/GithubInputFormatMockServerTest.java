@@ -0,0 +1,321 @@
+package io.cdap.plugin.github.source.batch;
+
+import com.google.api.client.http.HttpStatusCodes;
+import com.google.gson.Gson;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.github.source.common.DatasetTransformer;
+import io.cdap.plugin.github.source.common.GitHubRequestMetrics;
+import io.cdap.plugin.github.source.common.MockGitHubServer;
+import io.cdap.plugin.github.source.common.SchemaBuilder;
+import io.cdap.plugin.github.source.common.model.GitHubModel;
+import io.cdap.plugin.github.source.common.model.impl.Fork;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobID;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.task.JobContextImpl;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class GithubInputFormatMockServerTest {
+
+  private static final int RECORDS_COUNT = 1050;
+  private static final String STAGE_KEY = "default:pipeline:github";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private MockGitHubServer server;
+
+  @Before
+  public void setUp() throws IOException {
+    server = MockGitHubServer.start()
+      .addDataset("/repos/owner/repo/forks", MockGitHubServer.generateRecords("forks.json", RECORDS_COUNT));
+  }
+
+  @After
+  public void tearDown() {
+    server.close();
+  }
+
+  @Test
+  public void testReadCaseAllPages() throws IOException {
+    //given
+    GithubBatchSourceConfig config = createConfig("all-pages-token");
+
+    //when
+    Set<Long> ids = readAll(config);
+
+    //then
+    Assert.assertEquals(RECORDS_COUNT, ids.size());
+    // the first page fetched while planning is not fetched again by its split
+    Assert.assertEquals(11, server.getRequestCount());
+  }
+
+  @Test
+  public void testReadCaseRequestMetrics() throws IOException {
+    //given
+    GithubBatchSourceConfig config = createConfig("request-metrics-token");
+    GitHubRequestMetrics otherStageMetrics = GitHubRequestMetrics.forStage("default:pipeline:other");
+    GitHubRequestMetrics.forStage(STAGE_KEY).drain();
+    GithubPlanningMetrics.forStage(STAGE_KEY).drain();
+
+    //when
+    readAll(config);
+    Map<String, Long> metrics = GitHubRequestMetrics.forStage(STAGE_KEY).drain();
+    Map<String, Long> planningMetrics = GithubPlanningMetrics.forStage(STAGE_KEY).drain();
+
+    //then
+    // the readers only report their own requests, the planning request is kept for the driver to report
+    Assert.assertEquals(10L, (long) metrics.get(GitHubRequestMetrics.REQUESTS_METRIC_PREFIX + "200"));
+    Assert.assertFalse(metrics.containsKey(GithubPlanningMetrics.REQUESTS_METRIC));
+    Assert.assertEquals(1L, (long) planningMetrics.get(GitHubRequestMetrics.REQUESTS_METRIC_PREFIX + "200"));
+    Assert.assertEquals(1L, (long) planningMetrics.get(GithubPlanningMetrics.REQUESTS_METRIC));
+    Assert.assertEquals(1L, (long) planningMetrics.get(GithubPlanningMetrics.REPOSITORIES_METRIC));
+    Assert.assertEquals(4L, (long) planningMetrics.get(GithubPlanningMetrics.SPLITS_METRIC));
+    Assert.assertEquals(11L, (long) metrics.get(GitHubRequestMetrics.PAGES_METRIC));
+    Assert.assertEquals(10L, metrics.entrySet().stream()
+      .filter(metric -> metric.getKey().startsWith(GitHubRequestMetrics.LATENCY_BUCKET_METRIC_PREFIX))
+      .mapToLong(Map.Entry::getValue)
+      .sum());
+    // the mock server compresses the pages, as GitHub does
+    Assert.assertTrue(metrics.get(GitHubRequestMetrics.COMPRESSED_BYTES_METRIC) <
+                        metrics.get(GitHubRequestMetrics.UNCOMPRESSED_BYTES_METRIC));
+    Assert.assertTrue(otherStageMetrics.drain().isEmpty());
+  }
+
+  @Test
+  public void testReadCaseProgress() throws IOException, InterruptedException {
+    //given
+    GithubBatchSourceConfig config = createConfig("progress-token");
+    GithubInputFormat inputFormat = new GithubInputFormat();
+    Configuration conf = createConfiguration(config);
+    List<InputSplit> splits = inputFormat.getSplits(new JobContextImpl(conf, new JobID()));
+
+    //when
+    TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+    List<Long> lengths = new ArrayList<>();
+    List<Float> progress = new ArrayList<>();
+    for (InputSplit split : splits) {
+      lengths.add(split.getLength());
+      try (RecordReader<Text, GitHubModel> reader = inputFormat.createRecordReader(split, context)) {
+        reader.initialize(split, context);
+        while (reader.nextKeyValue()) {
+          progress.add(reader.getProgress());
+        }
+        progress.add(reader.getProgress());
+      }
+    }
+
+    //then
+    // 3 splits of 3 full pages, and one of a full page and a half-full last page expected to be full
+    Assert.assertEquals(Arrays.asList(300L, 300L, 300L, 200L), lengths);
+    Assert.assertEquals(0.5f, progress.get(149), 0.0001f);
+    Assert.assertEquals(0.75f, progress.get(3 * 301 + 149), 0.0001f);
+    Assert.assertEquals(1f, progress.get(progress.size() - 1), 0);
+  }
+
+  @Test
+  public void testReadCaseProgressSinglePage() throws IOException, InterruptedException {
+    //given
+    server.addDataset("/repos/owner/small/forks", MockGitHubServer.generateRecords("forks.json", 30));
+    GithubBatchSourceConfig config = createConfig("progress-single-page-token");
+    config.repoName = "small";
+    GithubInputFormat inputFormat = new GithubInputFormat();
+    Configuration conf = createConfiguration(config);
+    InputSplit split = inputFormat.getSplits(new JobContextImpl(conf, new JobID())).get(0);
+
+    //when
+    TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+    try (RecordReader<Text, GitHubModel> reader = inputFormat.createRecordReader(split, context)) {
+      reader.initialize(split, context);
+      for (int i = 0; i < 15; i++) {
+        reader.nextKeyValue();
+      }
+
+      //then
+      Assert.assertEquals(30, split.getLength());
+      Assert.assertEquals(0.5f, reader.getProgress(), 0.0001f);
+    }
+  }
+
+  @Test
+  public void testReadCasePrefetchedPages() throws IOException {
+    //given
+    GithubBatchSourceConfig config = createConfig("prefetched-pages-token");
+    config.prefetchPages = 2;
+
+    //when
+    Set<Long> ids = readAll(config);
+
+    //then
+    Assert.assertEquals(RECORDS_COUNT, ids.size());
+  }
+
+  @Test
+  public void testReadCaseSinglePageNotPrefetched() throws IOException, InterruptedException {
+    //given
+    server.addDataset("/repos/owner/small/forks", MockGitHubServer.generateRecords("forks.json", 30));
+    GithubBatchSourceConfig config = createConfig("single-page-prefetch-token");
+    config.repoName = "small";
+    config.prefetchPages = 2;
+    GithubInputFormat inputFormat = new GithubInputFormat();
+    Configuration conf = createConfiguration(config);
+    InputSplit split = inputFormat.getSplits(new JobContextImpl(conf, new JobID())).get(0);
+
+    //when
+    TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+    try (GithubRecordReader reader = (GithubRecordReader) inputFormat.createRecordReader(split, context)) {
+      reader.initialize(split, context);
+
+      //then
+      Assert.assertFalse(reader.isPrefetching());
+    }
+  }
+
+  @Test
+  public void testReadCaseInjectedFailures() throws IOException {
+    //given
+    GithubBatchSourceConfig config = createConfig("injected-failures-token");
+    server.injectFailures(2, 429, 1L).setErrorRate(0.3);
+
+    //when
+    Set<Long> ids = readAll(config);
+
+    //then
+    Assert.assertEquals(RECORDS_COUNT, ids.size());
+    Assert.assertEquals(2, server.getRequestCount(429));
+    Assert.assertTrue(server.getRequestCount(HttpStatusCodes.STATUS_CODE_BAD_GATEWAY) > 0);
+  }
+
+  @Test
+  public void testReadCaseSecondaryRateLimit() throws IOException {
+    //given
+    GithubBatchSourceConfig config = createConfig("secondary-rate-limit-token");
+    server.injectFailures(1, HttpStatusCodes.STATUS_CODE_FORBIDDEN, 1L);
+
+    //when
+    Set<Long> ids = readAll(config);
+
+    //then
+    Assert.assertEquals(RECORDS_COUNT, ids.size());
+    Assert.assertEquals(1, server.getRequestCount(HttpStatusCodes.STATUS_CODE_FORBIDDEN));
+  }
+
+  @Test
+  public void testReadCaseRateLimitExhausted() throws IOException {
+    //given
+    GithubBatchSourceConfig config = createConfig("rate-limit-token");
+    server.setRateLimit(6, 2);
+
+    //when
+    Set<Long> ids = readAll(config);
+
+    //then
+    Assert.assertEquals(RECORDS_COUNT, ids.size());
+  }
+
+  @Test
+  public void testReadCaseCachedPagesNotModified() throws IOException {
+    //given
+    GithubBatchSourceConfig config = createConfig("cache-token");
+    config.cacheDirectory = temporaryFolder.newFolder().getAbsolutePath();
+    readAll(config);
+
+    //when
+    Set<Long> ids = readAll(config);
+
+    //then
+    Assert.assertEquals(RECORDS_COUNT, ids.size());
+    Assert.assertEquals(11, server.getRequestCount(HttpStatusCodes.STATUS_CODE_NOT_MODIFIED));
+  }
+
+  @Test
+  public void testGetSplitsCaseWatermarkPerRepository() throws IOException {
+    //given
+    server.addDataset("/repos/owner/repo/commits", MockGitHubServer.generateRecords("commits.json", 10))
+      .addDataset("/repos/owner/added/commits", MockGitHubServer.generateRecords("commits.json", 10));
+    GithubBatchSourceConfig config = createConfig("watermark-token");
+    config.datasetName = "Commits";
+    config.repoName = "repo, added";
+    Configuration conf = createConfiguration(config);
+    conf.set(GithubFormatProvider.PROPERTY_WATERMARKS_JSON,
+             new Gson().toJson(Collections.singletonMap("repo", "2020-01-01T00:00:00Z")));
+
+    //when
+    List<InputSplit> splits = new GithubInputFormat().getSplits(new JobContextImpl(conf, new JobID()));
+
+    //then
+    Assert.assertEquals(2, splits.size());
+    GithubSplit repoSplit = (GithubSplit) splits.get(0);
+    GithubSplit addedSplit = (GithubSplit) splits.get(1);
+    Assert.assertEquals("owner/repo", repoSplit.getRepository());
+    Assert.assertTrue(repoSplit.getLink().contains("since=2020-01-01T00:00:00Z"));
+    // a repository without a watermark of its own is read from its start
+    Assert.assertEquals("owner/added", addedSplit.getRepository());
+    Assert.assertFalse(addedSplit.getLink().contains("since="));
+  }
+
+  /**
+   * Plans and reads all splits of the given config, returning the ids of the read forks.
+   */
+  private Set<Long> readAll(GithubBatchSourceConfig config) throws IOException {
+    Configuration conf = createConfiguration(config);
+    GithubInputFormat inputFormat = new GithubInputFormat();
+    List<InputSplit> splits = inputFormat.getSplits(new JobContextImpl(conf, new JobID()));
+
+    Schema schema = SchemaBuilder.getSchema("Forks", Fork.class);
+    Set<Long> ids = new HashSet<>();
+    for (InputSplit split : splits) {
+      TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+      try (RecordReader<Text, GitHubModel> reader = inputFormat.createRecordReader(split, context)) {
+        reader.initialize(split, context);
+        while (reader.nextKeyValue()) {
+          StructuredRecord record = DatasetTransformer.transform(reader.getCurrentValue(), schema);
+          Assert.assertTrue(ids.add(record.get("id")));
+        }
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+    }
+    return ids;
+  }
+
+  private Configuration createConfiguration(GithubBatchSourceConfig config) {
+    Configuration conf = new Configuration();
+    conf.set(GithubFormatProvider.PROPERTY_CONFIG_JSON, new Gson().toJson(config));
+    conf.set(GithubFormatProvider.PROPERTY_STAGE_KEY, STAGE_KEY);
+    return conf;
+  }
+
+  private GithubBatchSourceConfig createConfig(String token) {
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    config.authorizationToken = token;
+    config.repoOwner = "owner";
+    config.repoName = "repo";
+    config.datasetName = "Forks";
+    config.hostname = server.getHostname();
+    config.pagesPerSplit = 3;
+    config.maxAttempts = 10;
+    config.baseRetryDelay = 0;
+    return config;
+  }
+}
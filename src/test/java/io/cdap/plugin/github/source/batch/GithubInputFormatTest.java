@@ -0,0 +1,201 @@
+package io.cdap.plugin.github.source.batch;
+
+import com.google.common.base.Ticker;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class GithubInputFormatTest {
+
+  private static final String URL = "https://api.github.com/repos/owner/repo/commits?per_page=100";
+
+  @Test
+  public void testCreateSplitsCaseOnePagePerSplit() {
+    //when
+    List<InputSplit> splits = GithubInputFormat.createSplits(URL, 5, null, null);
+
+    //then
+    Assert.assertEquals(5, splits.size());
+    assertCoversAllPages(splits, 5);
+  }
+
+  @Test
+  public void testCreateSplitsCasePagesPerSplit() {
+    //when
+    List<InputSplit> splits = GithubInputFormat.createSplits(URL, 10, 3, null);
+
+    //then
+    Assert.assertEquals(4, splits.size());
+    Assert.assertEquals(1, ((GithubSplit) splits.get(3)).getPagesCount());
+    Assert.assertEquals(300, ((GithubSplit) splits.get(0)).getLength());
+    Assert.assertEquals(100, ((GithubSplit) splits.get(3)).getRecordsCount());
+    assertCoversAllPages(splits, 10);
+  }
+
+  @Test
+  public void testCreateSplitsCaseMaxSplits() {
+    //when
+    List<InputSplit> splits = GithubInputFormat.createSplits(URL, 501, null, 4);
+
+    //then
+    Assert.assertEquals(4, splits.size());
+    assertCoversAllPages(splits, 501);
+  }
+
+  @Test
+  public void testCreateSplitsCaseBothLimits() {
+    //when
+    List<InputSplit> splits = GithubInputFormat.createSplits(URL, 100, 5, 10);
+
+    //then
+    Assert.assertEquals(10, splits.size());
+    assertCoversAllPages(splits, 100);
+  }
+
+  @Test
+  public void testPartitionCaseBatchesShareWatermark() {
+    //given
+    List<String> repoNames = Arrays.asList("a", "b", "c", "d", "e");
+    Map<String, String> watermarks = new HashMap<>();
+    watermarks.put("b", "2020-01-01T00:00:00Z");
+    watermarks.put("d", "2020-01-01T00:00:00Z");
+    watermarks.put("e", "2021-01-01T00:00:00Z");
+
+    //when
+    List<List<String>> batches = GithubInputFormat.partition(repoNames, 2, watermarks);
+
+    //then
+    Assert.assertEquals(Arrays.asList(Arrays.asList("a", "c"), Arrays.asList("b", "d"),
+                                      Collections.singletonList("e")), batches);
+  }
+
+  @Test
+  public void testPlanConcurrentlyCaseOrderKept() throws IOException {
+    //given
+    List<CountDownLatch> completed = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      completed.add(new CountDownLatch(1));
+    }
+    List<GithubInputFormat.PlanningTask> tasks = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      int index = i;
+      tasks.add(new GithubInputFormat.PlanningTask("owner/repo" + i, () -> {
+        // every task waits for the task after it, so the tasks complete in reverse order
+        if (index < 4) {
+          Assert.assertTrue(completed.get(index + 1).await(10, TimeUnit.SECONDS));
+        }
+        List<InputSplit> splits = GithubInputFormat.createSplits(URL, index + 1, index + 1, null);
+        completed.get(index).countDown();
+        return splits;
+      }));
+    }
+
+    //when
+    List<InputSplit> splits = GithubInputFormat.planConcurrently(tasks, 5, 0);
+
+    //then
+    Assert.assertEquals(5, splits.size());
+    for (int i = 0; i < splits.size(); i++) {
+      Assert.assertEquals(i + 1, ((GithubSplit) splits.get(i)).getEndPage());
+    }
+  }
+
+  @Test
+  public void testPlanConcurrentlyCaseThreadsBounded() throws IOException {
+    //given
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    // every task waits until 4 tasks run at the same time
+    CyclicBarrier allThreadsBusy = new CyclicBarrier(4);
+    List<GithubInputFormat.PlanningTask> tasks = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      tasks.add(new GithubInputFormat.PlanningTask("owner/repo" + i, () -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        allThreadsBusy.await(10, TimeUnit.SECONDS);
+        running.decrementAndGet();
+        return GithubInputFormat.createSplits(URL, 1, null, null);
+      }));
+    }
+
+    //when
+    List<InputSplit> splits = GithubInputFormat.planConcurrently(tasks, 4, 0);
+
+    //then
+    Assert.assertEquals(12, splits.size());
+    Assert.assertEquals(4, maxRunning.get());
+  }
+
+  @Test
+  public void testPlanConcurrentlyCaseTimeout() {
+    //given
+    AtomicLong nanos = new AtomicLong();
+    Ticker ticker = new Ticker() {
+      @Override
+      public long read() {
+        return nanos.get();
+      }
+    };
+    CountDownLatch released = new CountDownLatch(1);
+    List<GithubInputFormat.PlanningTask> tasks = Arrays.asList(
+      new GithubInputFormat.PlanningTask("owner/slow", () -> {
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        released.await();
+        return Collections.emptyList();
+      }, ticker),
+      new GithubInputFormat.PlanningTask("owner/fast", () -> GithubInputFormat.createSplits(URL, 1, null, null),
+                                         ticker));
+
+    //when
+    try {
+      GithubInputFormat.planConcurrently(tasks, 2, 100);
+      Assert.fail("Expected IOException");
+    } catch (IOException e) {
+      //then
+      Assert.assertTrue(e.getMessage().contains("owner/slow"));
+    } finally {
+      released.countDown();
+    }
+  }
+
+  @Test
+  public void testPlanConcurrentlyCaseFailure() {
+    //given
+    List<GithubInputFormat.PlanningTask> tasks = Collections.singletonList(
+      new GithubInputFormat.PlanningTask("owner/repo", () -> {
+        throw new IOException("Not Found");
+      }));
+
+    //when
+    try {
+      GithubInputFormat.planConcurrently(tasks, 2, 1000);
+      Assert.fail("Expected IOException");
+    } catch (IOException e) {
+      //then
+      Assert.assertEquals("Not Found", e.getMessage());
+    }
+  }
+
+  private void assertCoversAllPages(List<InputSplit> splits, int totalPagesCount) {
+    int expectedStartPage = 1;
+    for (InputSplit inputSplit : splits) {
+      GithubSplit split = (GithubSplit) inputSplit;
+      Assert.assertEquals(expectedStartPage, split.getStartPage());
+      Assert.assertTrue(split.getEndPage() >= split.getStartPage());
+      expectedStartPage = split.getEndPage() + 1;
+    }
+    Assert.assertEquals(totalPagesCount + 1, expectedStartPage);
+  }
+}
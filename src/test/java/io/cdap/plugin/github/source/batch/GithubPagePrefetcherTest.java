@@ -0,0 +1,118 @@
+package io.cdap.plugin.github.source.batch;
+
+import com.google.common.io.ByteStreams;
+import io.cdap.plugin.github.source.common.GitHubPage;
+import io.cdap.plugin.github.source.common.GitHubRequestFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GithubPagePrefetcherTest {
+
+  private static final String URL = "https://api.github.com/repos/owner/repo/commits?per_page=100";
+
+  @Test
+  public void testPagesInOrder() throws IOException {
+    //given
+    List<String> result = new ArrayList<>();
+
+    //when
+    GithubPageSequence pageSequence = GithubPageSequence.numbered(URL, 3, 7);
+    try (GithubPagePrefetcher prefetcher = new GithubPagePrefetcher(pageSequence, null, 2, this::createPage)) {
+      GitHubPage page;
+      while ((page = prefetcher.next()) != null) {
+        result.add(readContent(page));
+      }
+    }
+
+    //then
+    Assert.assertEquals(Arrays.asList("page 3", "page 4", "page 5", "page 6", "page 7"), result);
+  }
+
+  @Test
+  public void testPagesFollowingNextLinks() throws IOException {
+    //given
+    List<String> result = new ArrayList<>();
+    GitHubPage firstPage = createPage(URL + "&page=1");
+
+    //when
+    GithubPageSequence pageSequence = GithubPageSequence.following(URL);
+    try (GithubPagePrefetcher prefetcher = new GithubPagePrefetcher(pageSequence, firstPage, 2, this::createPage)) {
+      GitHubPage page;
+      while ((page = prefetcher.next()) != null) {
+        result.add(readContent(page));
+      }
+    }
+
+    //then
+    Assert.assertEquals(Arrays.asList("page 2", "page 3", "page 4"), result);
+  }
+
+  @Test
+  public void testBufferBounded() throws IOException {
+    //given
+    AtomicInteger loadedPages = new AtomicInteger();
+
+    //when
+    GithubPageSequence pageSequence = GithubPageSequence.numbered(URL, 1, 100);
+    try (GithubPagePrefetcher prefetcher = new GithubPagePrefetcher(pageSequence, null, 2, url -> {
+      loadedPages.incrementAndGet();
+      return createPage(url);
+    })) {
+      prefetcher.next();
+      prefetcher.next();
+
+      //then
+      Assert.assertTrue(loadedPages.get() >= 2);
+      Assert.assertTrue(loadedPages.get() <= 4);
+    }
+  }
+
+  @Test
+  public void testFailurePropagated() throws IOException {
+    //given
+    GithubPageSequence pageSequence = GithubPageSequence.numbered(URL, 1, 3);
+    try (GithubPagePrefetcher prefetcher = new GithubPagePrefetcher(pageSequence, null, 2, url -> {
+      if (url.endsWith("page=2")) {
+        throw new IOException("Server Error");
+      }
+      return createPage(url);
+    })) {
+      Assert.assertEquals("page 1", readContent(prefetcher.next()));
+
+      //when
+      try {
+        prefetcher.next();
+        Assert.fail("Expected IOException");
+      } catch (IOException e) {
+        //then
+        Assert.assertEquals("Server Error", e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Creates a page of a dataset with 4 pages, which content is its page number.
+   */
+  private GitHubPage createPage(String url) {
+    int pageNumber = GitHubRequestFactory.getPageNumber(url);
+    byte[] content = ("page " + pageNumber).getBytes(StandardCharsets.UTF_8);
+    String link = pageNumber < 4 ? String.format("<%s&page=%d>; rel=\"next\"", URL, pageNumber + 1) : null;
+    return new GitHubPage(new ByteArrayInputStream(content), StandardCharsets.UTF_8, link, null);
+  }
+
+  private static String readContent(GitHubPage page) throws IOException {
+    try {
+      return new String(ByteStreams.toByteArray(page.getContent()), page.getCharset());
+    } finally {
+      page.close();
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package io.cdap.plugin.github.source.batch;
+
+import com.google.api.client.json.GenericJson;
+import io.cdap.plugin.github.source.common.MockGitHubServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class GithubRepositoryResolverTest {
+
+  private static final List<String> OWNER_REPOSITORIES = Arrays.asList("cdap", "hydrator-plugins", "Hydrator-Docs",
+                                                                        "cdap-ui", "website");
+
+  @Test
+  public void testIsPattern() {
+    Assert.assertTrue(GithubRepositoryResolver.isPattern("*"));
+    Assert.assertTrue(GithubRepositoryResolver.isPattern("cdap-?i"));
+    Assert.assertFalse(GithubRepositoryResolver.isPattern("cdap.ui"));
+  }
+
+  @Test
+  public void testResolveCaseNamesOnly() {
+    //when
+    List<String> result = GithubRepositoryResolver.resolve(Arrays.asList("website", "cdap"), null);
+
+    //then
+    Assert.assertEquals(Arrays.asList("website", "cdap"), result);
+  }
+
+  @Test
+  public void testResolveCasePatterns() {
+    //when
+    List<String> result = GithubRepositoryResolver.resolve(Arrays.asList("cdap", "hydrator-*", "cdap-u?"),
+                                                           OWNER_REPOSITORIES);
+
+    //then
+    Assert.assertEquals(Arrays.asList("cdap", "hydrator-plugins", "Hydrator-Docs", "cdap-ui"), result);
+  }
+
+  @Test
+  public void testResolveCaseAllRepositories() {
+    //when
+    List<String> result = GithubRepositoryResolver.resolve(Arrays.asList("website", "*"), OWNER_REPOSITORIES);
+
+    //then
+    Assert.assertEquals(Arrays.asList("website", "cdap", "hydrator-plugins", "Hydrator-Docs", "cdap-ui"), result);
+  }
+
+  @Test
+  public void testResolveCaseNoMatch() {
+    //when
+    List<String> result = GithubRepositoryResolver.resolve(Collections.singletonList("cdap.*"), OWNER_REPOSITORIES);
+
+    //then
+    Assert.assertTrue(result.isEmpty());
+  }
+
+  @Test
+  public void testResolveCaseAuthenticatedUserPrivateRepositories() throws IOException {
+    //given
+    try (MockGitHubServer server = MockGitHubServer.start()
+      .addResource("/user", login("Owner"))
+      .addDataset("/user/repos", repositories("private-repo", "public-repo"))
+      .addDataset("/users/owner/repos", repositories("public-repo"))) {
+
+      //when
+      List<String> result = GithubRepositoryResolver.resolve(createConfig(server, "*-repo"));
+
+      //then
+      Assert.assertEquals(Arrays.asList("private-repo", "public-repo"), result);
+    }
+  }
+
+  @Test
+  public void testResolveCaseOtherUserPublicRepositories() throws IOException {
+    //given
+    try (MockGitHubServer server = MockGitHubServer.start()
+      .addResource("/user", login("someone-else"))
+      .addDataset("/user/repos", repositories("own-repo"))
+      .addDataset("/users/owner/repos", repositories("public-repo"))) {
+
+      //when
+      List<String> result = GithubRepositoryResolver.resolve(createConfig(server, "*"));
+
+      //then
+      Assert.assertEquals(Collections.singletonList("public-repo"), result);
+    }
+  }
+
+  private static GithubBatchSourceConfig createConfig(MockGitHubServer server, String repoName) {
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    config.authorizationToken = "resolver-token";
+    config.repoOwner = "owner";
+    config.repoName = repoName;
+    config.hostname = server.getHostname();
+    return config;
+  }
+
+  private static GenericJson login(String login) {
+    GenericJson user = new GenericJson();
+    user.set("login", login);
+    return user;
+  }
+
+  private static List<GenericJson> repositories(String... names) {
+    return Arrays.stream(names).map(name -> {
+      GenericJson repository = new GenericJson();
+      repository.set("name", name);
+      return repository;
+    }).collect(Collectors.toList());
+  }
+}
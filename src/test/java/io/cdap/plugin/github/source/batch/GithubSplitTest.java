@@ -0,0 +1,109 @@
+package io.cdap.plugin.github.source.batch;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class GithubSplitTest {
+
+  private static final String URL = "https://api.github.com/repos/owner/repo/forks?per_page=100";
+
+  @Test
+  public void testSerializationCaseFirstPageInlined() throws IOException {
+    //given
+    byte[] content;
+    try (InputStream stream = getClass().getClassLoader().getResourceAsStream("forks.json")) {
+      content = ByteStreams.toByteArray(stream);
+    }
+    GithubSplit split = new GithubSplit(URL, 1, 3);
+    split.setFirstPageContent(content);
+
+    //when
+    GithubSplit result = copy(split);
+
+    //then
+    Assert.assertEquals(URL, result.getLink());
+    Assert.assertEquals(1, result.getStartPage());
+    Assert.assertEquals(3, result.getEndPage());
+    Assert.assertTrue(result.hasFirstPageContent());
+    Assert.assertArrayEquals(content, ByteStreams.toByteArray(result.getFirstPageContent()));
+  }
+
+  @Test
+  public void testSerializationCaseNoFirstPage() throws IOException {
+    //when
+    GithubSplit result = copy(new GithubSplit(URL, 4, 6));
+
+    //then
+    Assert.assertEquals(4, result.getStartPage());
+    Assert.assertEquals(6, result.getEndPage());
+    Assert.assertFalse(result.isCursor());
+    Assert.assertFalse(result.hasFirstPageContent());
+    Assert.assertNull(result.getFirstPageContent());
+    Assert.assertNull(result.getFirstPageLink());
+    Assert.assertNull(result.getRepository());
+    Assert.assertEquals(-1, result.getRecordsCount());
+    Assert.assertEquals(0, result.getLength());
+  }
+
+  @Test
+  public void testSerializationCaseRecordsCount() throws IOException {
+    //given
+    GithubSplit split = GithubSplit.cursor(URL);
+    split.setRecordsCount(250);
+
+    //when
+    GithubSplit result = copy(split);
+
+    //then
+    Assert.assertEquals(250, result.getRecordsCount());
+    Assert.assertEquals(250, result.getLength());
+  }
+
+  @Test
+  public void testSerializationCaseRepository() throws IOException {
+    //given
+    GithubSplit split = new GithubSplit(URL, 1, 2);
+    split.setRepository("owner/repo");
+
+    //when
+    GithubSplit result = copy(split);
+
+    //then
+    Assert.assertEquals("owner/repo", result.getRepository());
+    Assert.assertEquals(2, result.getEndPage());
+  }
+
+  @Test
+  public void testSerializationCaseCursor() throws IOException {
+    //given
+    String link = "<" + URL + "&after=Y3Vyc29y>; rel=\"next\"";
+    GithubSplit split = GithubSplit.cursor(URL);
+    split.setFirstPageContent("[]".getBytes());
+    split.setFirstPageLink(link);
+
+    //when
+    GithubSplit result = copy(split);
+
+    //then
+    Assert.assertTrue(result.isCursor());
+    Assert.assertEquals(URL, result.getLink());
+    Assert.assertEquals(link, result.getFirstPageLink());
+    Assert.assertTrue(result.hasFirstPageContent());
+  }
+
+  private GithubSplit copy(GithubSplit split) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    split.write(new DataOutputStream(bytes));
+    GithubSplit result = new GithubSplit();
+    result.readFields(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    return result;
+  }
+}
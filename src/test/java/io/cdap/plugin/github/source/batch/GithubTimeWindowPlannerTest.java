@@ -0,0 +1,273 @@
+package io.cdap.plugin.github.source.batch;
+
+import com.google.api.client.http.GenericUrl;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+public class GithubTimeWindowPlannerTest {
+
+  private static final Instant START = Instant.parse("2020-01-01T00:00:00Z");
+  private static final Instant UNTIL = Instant.parse("2020-12-31T23:59:59Z");
+  private static final String URL = "https://api.github.com/repos/owner/repo/commits?per_page=100" +
+    "&since=2019-01-01T00:00:00Z";
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testPlanCaseUniformCommits() throws IOException {
+    //given
+    List<Instant> commits = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      commits.add(START.plusSeconds(i * 3600L));
+    }
+
+    //when
+    List<GithubTimeWindowPlanner.TimeWindow> windows =
+      new GithubTimeWindowPlanner(new ListCommitCounter(commits), executor, 100L, null).plan(null, UNTIL);
+
+    //then
+    assertCoversAllCommits(windows, commits, 100);
+  }
+
+  @Test
+  public void testPlanCaseDenseWindowDivided() throws IOException {
+    //given
+    List<Instant> commits = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      commits.add(START.plusSeconds(i * 86400L));
+    }
+    // a burst of commits within a single hour
+    for (int i = 0; i < 450; i++) {
+      commits.add(Instant.parse("2020-06-01T12:00:00Z").plusSeconds(i * 8L));
+    }
+
+    //when
+    List<GithubTimeWindowPlanner.TimeWindow> windows =
+      new GithubTimeWindowPlanner(new ListCommitCounter(commits), executor, 100L, null).plan(null, UNTIL);
+
+    //then
+    assertCoversAllCommits(windows, commits, 100);
+    Assert.assertTrue(windows.stream().anyMatch(window -> window.getSeconds() <= 3600));
+  }
+
+  @Test
+  public void testPlanCaseSinceAndMaxSplits() throws IOException {
+    //given
+    List<Instant> commits = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      commits.add(START.plusSeconds(i * 3600L));
+    }
+    Instant since = START.plusSeconds(1000 * 3600L);
+
+    //when
+    List<GithubTimeWindowPlanner.TimeWindow> windows =
+      new GithubTimeWindowPlanner(new ListCommitCounter(commits), executor, 100L, 2).plan(since, UNTIL);
+
+    //then
+    Assert.assertTrue(windows.size() <= 2);
+    Assert.assertEquals(since.getEpochSecond(), windows.get(0).getSinceSecond());
+    Assert.assertEquals(1000, windows.stream().mapToLong(GithubTimeWindowPlanner.TimeWindow::getCount).sum());
+  }
+
+  @Test
+  public void testPlanCaseCommitsOlderThanLastListed() throws IOException {
+    //given
+    List<Instant> commits = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      commits.add(START.plusSeconds(i * 3600L));
+    }
+    // the last commit listed was rebased, so its committer date is later than the dates of older commits
+    Instant lastListedDate = START.plusSeconds(200 * 3600L);
+    ListCommitCounter counter = new ListCommitCounter(commits) {
+      @Override
+      public Instant getOldestDate(Instant until) {
+        return lastListedDate;
+      }
+    };
+
+    //when
+    List<GithubTimeWindowPlanner.TimeWindow> windows =
+      new GithubTimeWindowPlanner(counter, executor, 100L, null).plan(null, UNTIL);
+
+    //then
+    Assert.assertNull(windows.get(0).getSince());
+    assertCoversAllCommits(windows, commits, 300);
+  }
+
+  @Test
+  public void testPlanCaseDefaultWindowsCount() throws IOException {
+    //given
+    List<Instant> commits = new ArrayList<>();
+    for (int i = 0; i < 20000; i++) {
+      commits.add(START.plusSeconds(i * 900L));
+    }
+    ListCommitCounter counter = new ListCommitCounter(commits);
+
+    //when
+    List<GithubTimeWindowPlanner.TimeWindow> windows =
+      new GithubTimeWindowPlanner(counter, executor, null, null).plan(null, UNTIL);
+
+    //then
+    assertCoversAllCommits(windows, commits, 20000 / GithubTimeWindowPlanner.DEFAULT_WINDOWS_COUNT + 1);
+    Assert.assertTrue(windows.size() < 2 * GithubTimeWindowPlanner.DEFAULT_WINDOWS_COUNT);
+    // far fewer requests than the 200 pages of the commits
+    Assert.assertTrue(counter.requests.get() < 100);
+  }
+
+  @Test
+  public void testPlanCaseCountMismatch() {
+    //given
+    List<Instant> commits = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      commits.add(START.plusSeconds(i * 3600L));
+    }
+    // the total holds commits, which none of the windows holds
+    ListCommitCounter counter = new ListCommitCounter(commits) {
+      @Override
+      public long count(@Nullable Instant since, Instant until) {
+        return super.count(since, until) + (since == null && until.equals(UNTIL) ? 1 : 0);
+      }
+    };
+
+    //when
+    try {
+      new GithubTimeWindowPlanner(counter, executor, 100L, null).plan(null, UNTIL);
+      Assert.fail("Expected the planning to fail");
+    } catch (IOException e) {
+      //then
+      Assert.assertTrue(e.getMessage().contains("hold 500 records, but 501 were counted"));
+    }
+  }
+
+  @Test
+  public void testCreateSplitsCaseSinceWithOffset() throws IOException {
+    //given
+    List<Instant> commits = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      commits.add(START.plusSeconds(i * 3600L));
+    }
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref");
+    config.repoOwner = "owner";
+    config.datasetName = "Commits";
+    config.since = "2020-01-11T02:00:00+02:00";
+
+    //when
+    List<InputSplit> splits = GithubTimeWindowPlanner.createSplits(config, "repo", URL, new ListCommitCounter(commits),
+                                                                   executor, UNTIL);
+
+    //then
+    GithubSplit firstSplit = (GithubSplit) splits.get(0);
+    Assert.assertEquals("2020-01-11T00:00:00Z", new GenericUrl(firstSplit.getLink()).getFirst("since"));
+    Assert.assertEquals(1000 - 240, splits.stream().mapToLong(split -> ((GithubSplit) split).getRecordsCount()).sum());
+  }
+
+  @Test
+  public void testPlanCaseCommitsInSameSecond() throws IOException {
+    //given
+    List<Instant> commits = new ArrayList<>();
+    for (int i = 0; i < 150; i++) {
+      commits.add(START);
+    }
+
+    //when
+    List<GithubTimeWindowPlanner.TimeWindow> windows =
+      new GithubTimeWindowPlanner(new ListCommitCounter(commits), executor, 100L, null).plan(null, UNTIL);
+
+    //then
+    Assert.assertEquals(1, windows.size());
+    Assert.assertEquals(1, windows.get(0).getSeconds());
+    Assert.assertEquals(150, windows.get(0).getCount());
+  }
+
+  @Test
+  public void testPlanCaseNoCommits() throws IOException {
+    //given
+    ListCommitCounter counter = new ListCommitCounter(new ArrayList<>());
+
+    //when
+    List<GithubTimeWindowPlanner.TimeWindow> windows =
+      new GithubTimeWindowPlanner(counter, executor, 100L, null).plan(null, UNTIL);
+
+    //then
+    Assert.assertTrue(windows.isEmpty());
+    Assert.assertEquals(1, counter.requests.get());
+  }
+
+  @Test
+  public void testBuildWindowUrl() {
+    //when
+    String url = GithubTimeWindowPlanner.buildWindowUrl(URL, START, UNTIL);
+
+    //then
+    Assert.assertEquals("https://api.github.com/repos/owner/repo/commits?per_page=100" +
+                          "&since=2020-01-01T00:00:00Z&until=2020-12-31T23:59:59Z", url);
+  }
+
+  /**
+   * Asserts that the given windows are ordered, do not overlap and hold every commit exactly once.
+   */
+  private void assertCoversAllCommits(List<GithubTimeWindowPlanner.TimeWindow> windows, List<Instant> commits,
+                                      long maxCount) {
+    long previousUntil = Long.MIN_VALUE;
+    long totalCount = 0;
+    for (GithubTimeWindowPlanner.TimeWindow window : windows) {
+      Assert.assertTrue(window.getSinceSecond() > previousUntil);
+      Assert.assertTrue(window.getCount() <= maxCount);
+      Assert.assertEquals(countCommits(commits, window.getSince(), window.getUntil()), window.getCount());
+      previousUntil = window.getUntilSecond();
+      totalCount += window.getCount();
+    }
+    Assert.assertEquals(commits.size(), totalCount);
+  }
+
+  private static long countCommits(List<Instant> commits, @Nullable Instant since, Instant until) {
+    return commits.stream()
+      .filter(commit -> (since == null || !commit.isBefore(since)) && !commit.isAfter(until))
+      .count();
+  }
+
+  /**
+   * Counts the commits with the given commit dates.
+   */
+  private static class ListCommitCounter implements GithubTimeWindowPlanner.WindowCounter {
+    private final List<Instant> commits;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private ListCommitCounter(List<Instant> commits) {
+      this.commits = commits;
+    }
+
+    @Override
+    public long count(@Nullable Instant since, Instant until) {
+      requests.incrementAndGet();
+      return countCommits(commits, since, until);
+    }
+
+    @Override
+    public Instant getOldestDate(Instant until) {
+      return commits.stream().filter(commit -> !commit.isAfter(until)).min(Instant::compareTo).orElse(null);
+    }
+  }
+}
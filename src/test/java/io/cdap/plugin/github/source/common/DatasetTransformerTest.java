@@ -3,6 +3,9 @@ package io.cdap.plugin.github.source.common;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.plugin.github.source.common.model.impl.Commit;
+import io.cdap.plugin.github.source.common.model.impl.Fork;
+import io.cdap.plugin.github.source.common.model.impl.Issue;
+import io.cdap.plugin.github.source.common.model.impl.Release;
 import io.github.benas.randombeans.api.EnhancedRandom;
 import org.junit.Assert;
 import org.junit.Test;
@@ -31,6 +34,9 @@ public class DatasetTransformerTest {
   public static Collection<Object[]> data() {
     return Arrays.asList(new Object[][]{
       {Commit.class},
+      {Fork.class},
+      {Issue.class},
+      {Release.class},
     });
   }
 
@@ -46,4 +52,32 @@ public class DatasetTransformerTest {
     Assert.assertNotNull(schema.getFields());
     schema.getFields().forEach(field -> Assert.assertNotNull(output.get(field.getName())));
   }
+
+  @Test
+  public void testTransformModelCaseCachedPlan() {
+    //given
+    Schema schema = SchemaBuilder.buildSchema(clazz.getSimpleName(), clazz);
+    Object otherModel = random.nextObject(clazz);
+
+    //when
+    StructuredRecord first = DatasetTransformer.transform(model, schema);
+    StructuredRecord second = DatasetTransformer.transform(otherModel, schema);
+    StructuredRecord again = DatasetTransformer.transform(model, schema);
+
+    //then
+    Assert.assertEquals(first, again);
+    Assert.assertNotEquals(first, second);
+  }
+
+  @Test
+  public void testTransformModelCaseSourceRepository() {
+    //given
+    Schema schema = SchemaBuilder.addSourceRepository(SchemaBuilder.buildSchema(clazz.getSimpleName(), clazz));
+
+    //when
+    StructuredRecord output = DatasetTransformer.transform(model, schema, "owner/repo");
+
+    //then
+    Assert.assertEquals("owner/repo", output.get(SchemaBuilder.SOURCE_REPOSITORY_FIELD));
+  }
 }
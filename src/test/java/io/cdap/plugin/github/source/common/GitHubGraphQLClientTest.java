@@ -0,0 +1,215 @@
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.gson.GsonFactory;
+import io.cdap.plugin.github.source.batch.GithubBatchSourceConfig;
+import io.cdap.plugin.github.source.common.model.impl.GraphQLCommit;
+import org.assertj.core.api.AssertionsForClassTypes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+public class GitHubGraphQLClientTest {
+
+  private static final String ENDPOINT = "https://api.github.com/graphql";
+  private static final String HOSTNAME = "https://api.github.com";
+
+  @Test
+  public void testGetEndpoint() {
+    Assert.assertEquals(ENDPOINT, GitHubGraphQLClient.getEndpoint(HOSTNAME));
+    Assert.assertEquals("https://github.example.com/api/graphql",
+                        GitHubGraphQLClient.getEndpoint("https://github.example.com/api/v3/"));
+  }
+
+  @Test
+  public void testGenerateFirstCallUrl() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref") {
+      {
+        repoOwner = "owner";
+        repoName = "repo";
+        datasetName = "Commits";
+        api = GRAPHQL_API;
+        since = "2020-01-01T00:00:00Z";
+      }
+    };
+
+    //when
+    String url = GitHubRequestFactory.generateFirstCallUrl(config);
+
+    //then
+    Assert.assertTrue(url.startsWith(ENDPOINT + "?"));
+    Assert.assertTrue(url.contains("owner=owner"));
+    Assert.assertTrue(url.contains("repo=repo"));
+    Assert.assertTrue(url.contains("since=2020-01-01T00:00:00Z"));
+    Assert.assertFalse(url.contains("after="));
+  }
+
+  @Test
+  public void testBuildQueryCaseMultipleRepositories() {
+    //given
+    List<GitHubGraphQLClient.RepositoryCursor> repositories = Arrays.asList(
+      new GitHubGraphQLClient.RepositoryCursor("owner", "first", null),
+      new GitHubGraphQLClient.RepositoryCursor("owner", "second", "Y3Vyc29y"));
+
+    //when
+    String query = GitHubGraphQLClient.buildQuery(GitHubGraphQLDataset.COMMITS, repositories, "2020-01-01T00:00:00Z");
+
+    //then
+    Assert.assertTrue(query.contains("r0: repository(owner: \"owner\", name: \"first\")"));
+    Assert.assertTrue(query.contains("r1: repository(owner: \"owner\", name: \"second\")"));
+    Assert.assertTrue(query.contains("history(first: 100, since: \"2020-01-01T00:00:00Z\")"));
+    Assert.assertTrue(query.contains("history(first: 100, after: \"Y3Vyc29y\", since: \"2020-01-01T00:00:00Z\")"));
+    Assert.assertTrue(query.endsWith(GitHubGraphQLDataset.USER_FRAGMENT));
+  }
+
+  @Test
+  public void testBuildQueryCaseEscapedArguments() {
+    //given
+    List<GitHubGraphQLClient.RepositoryCursor> repositories =
+      Collections.singletonList(new GitHubGraphQLClient.RepositoryCursor("owner", "repo\") {", null));
+
+    //when
+    String query = GitHubGraphQLClient.buildQuery(GitHubGraphQLDataset.BRANCHES, repositories, null);
+
+    //then
+    Assert.assertTrue(query.contains("name: \"repo\\\") {\""));
+    Assert.assertFalse(query.contains("fragment"));
+  }
+
+  @Test
+  public void testToPages() throws IOException {
+    //given
+    GenericJson result;
+    try (InputStream stream = getClass().getClassLoader().getResourceAsStream("graphql_commits.json")) {
+      result = GsonFactory.getDefaultInstance().fromInputStream(stream, GenericJson.class);
+    }
+    List<GitHubGraphQLClient.RepositoryCursor> repositories = Arrays.asList(
+      new GitHubGraphQLClient.RepositoryCursor("octocat", "Hello-World", null),
+      new GitHubGraphQLClient.RepositoryCursor("octocat", "empty", null));
+
+    //when
+    List<GitHubPage> pages = GitHubGraphQLClient.toPages(result, GitHubGraphQLDataset.COMMITS, ENDPOINT, repositories,
+                                                         null, HOSTNAME);
+
+    //then
+    Assert.assertEquals(2, pages.size());
+    String nextUrl = GitHubRequestFactory.getLinkUrl(pages.get(0).getLink(), GitHubRequestFactory.NEXT_LINK);
+    Assert.assertNotNull(nextUrl);
+    Assert.assertTrue(nextUrl.contains("repo=Hello-World"));
+    Assert.assertTrue(nextUrl.contains("after=6dcb09b5b57875f334f61aebed695e2e4193db5e%201"));
+    Assert.assertNull(pages.get(1).getLink());
+
+    List<GraphQLCommit> commits = new ArrayList<>();
+    try (GitHubPageReader<GraphQLCommit> reader = new GitHubPageReader<>(pages.get(0).getContent(),
+                                                                         pages.get(0).getCharset(),
+                                                                         GraphQLCommit.class)) {
+      while (reader.hasNext()) {
+        commits.add(reader.next());
+      }
+    }
+    Assert.assertEquals(1, commits.size());
+    AssertionsForClassTypes.assertThat(commits.get(0)).hasNoNullFieldsOrProperties();
+    try (GitHubPageReader<GraphQLCommit> reader = new GitHubPageReader<>(pages.get(1).getContent(),
+                                                                         pages.get(1).getCharset(),
+                                                                         GraphQLCommit.class)) {
+      Assert.assertFalse(reader.hasNext());
+    }
+  }
+
+  @Test
+  public void testToPagesRestShape() throws IOException {
+    //given
+    GenericJson result;
+    try (InputStream stream = getClass().getClassLoader().getResourceAsStream("graphql_commits.json")) {
+      result = GsonFactory.getDefaultInstance().fromInputStream(stream, GenericJson.class);
+    }
+    List<GitHubGraphQLClient.RepositoryCursor> repositories =
+      Collections.singletonList(new GitHubGraphQLClient.RepositoryCursor("octocat", "Hello-World", null));
+
+    //when
+    GitHubPage page = GitHubGraphQLClient.toPages(result, GitHubGraphQLDataset.COMMITS, ENDPOINT, repositories, null,
+                                                  HOSTNAME).get(0);
+
+    //then
+    Map<?, ?> commit = (Map<?, ?>) GsonFactory.getDefaultInstance()
+      .fromInputStream(page.getContent(), page.getCharset(), Object[].class)[0];
+    Assert.assertEquals("https://api.github.com/repos/octocat/Hello-World/commits/" +
+                          "6dcb09b5b57875f334f61aebed695e2e4193db5e", commit.get("url"));
+    Map<?, ?> commitData = (Map<?, ?>) commit.get("commit");
+    Assert.assertEquals("Fix all the bugs", commitData.get("message"));
+    Map<?, ?> verification = (Map<?, ?>) commitData.get("verification");
+    Assert.assertEquals(false, verification.get("verified"));
+    Assert.assertEquals("unsigned", verification.get("reason"));
+    Map<?, ?> author = (Map<?, ?>) commit.get("author");
+    Assert.assertEquals("https://api.github.com/users/octocat", author.get("url"));
+    Map<?, ?> pullRequest = (Map<?, ?>) ((List<?>) commit.get("pull_requests")).get(0);
+    Assert.assertEquals("closed", pullRequest.get("state"));
+    Assert.assertEquals("2011-04-15T10:00:00Z", pullRequest.get("merged_at"));
+    Assert.assertEquals("success", commit.get("check_status"));
+  }
+
+  @Test
+  public void testToRestObjectCaseBranchEnforcementLevel() {
+    //given
+    Map<String, Object> adminEnforcedRule = new HashMap<>();
+    adminEnforcedRule.put("requiresStatusChecks", true);
+    adminEnforcedRule.put("requiredStatusCheckContexts", Collections.singletonList("ci"));
+    adminEnforcedRule.put("isAdminEnforced", true);
+    Map<String, Object> rule = new HashMap<>(adminEnforcedRule);
+    rule.put("isAdminEnforced", false);
+
+    //then
+    Assert.assertEquals("everyone", getEnforcementLevel(adminEnforcedRule));
+    Assert.assertEquals("non_admins", getEnforcementLevel(rule));
+    Assert.assertEquals("off", getEnforcementLevel(null));
+  }
+
+  @Test
+  public void testGetRateLimitResource() {
+    Assert.assertEquals(GitHubTokenPool.GRAPHQL_RESOURCE, GitHubRequestFactory.getRateLimitResource(ENDPOINT));
+    Assert.assertEquals(GitHubTokenPool.GRAPHQL_RESOURCE,
+                        GitHubRequestFactory.getRateLimitResource(ENDPOINT + "?owner=owner&repo=repo"));
+    Assert.assertEquals(GitHubTokenPool.CORE_RESOURCE,
+                        GitHubRequestFactory.getRateLimitResource(HOSTNAME + "/repos/owner/graphql/commits"));
+  }
+
+  @Test
+  public void testToPagesCaseErrors() {
+    //given
+    GenericJson result = new GenericJson();
+    result.set("errors", Collections.singletonList(
+      Collections.singletonMap("message", "Could not resolve to a Repository with the name 'owner/unknown'.")));
+
+    //when
+    try {
+      GitHubGraphQLClient.toPages(result, GitHubGraphQLDataset.RELEASES, ENDPOINT,
+                                  Collections.singletonList(
+                                    new GitHubGraphQLClient.RepositoryCursor("owner", "unknown", null)),
+                                  null, HOSTNAME);
+      Assert.fail("Expected IOException");
+    } catch (IOException e) {
+      //then
+      Assert.assertTrue(e.getMessage().contains("Could not resolve to a Repository"));
+    }
+  }
+
+  private static Object getEnforcementLevel(@Nullable Map<String, Object> rule) {
+    Map<String, Object> node = new HashMap<>();
+    node.put("name", "master");
+    node.put("target", Collections.singletonMap("oid", "6dcb09b5b57875f334f61aebed695e2e4193db5e"));
+    node.put("branchProtectionRule", rule);
+    Map<?, ?> branch = GitHubGraphQLDataset.BRANCHES.toRestObject(node, HOSTNAME + "/repos/owner/repo", HOSTNAME);
+    Map<?, ?> protection = (Map<?, ?>) branch.get("protection");
+    return ((Map<?, ?>) protection.get("required_status_checks")).get("enforcement_level");
+  }
+}
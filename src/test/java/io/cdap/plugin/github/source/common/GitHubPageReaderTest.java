@@ -0,0 +1,176 @@
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.json.gson.GsonFactory;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.github.source.common.model.impl.Branch;
+import io.cdap.plugin.github.source.common.model.impl.Commit;
+import io.cdap.plugin.github.source.common.model.impl.Fork;
+import io.cdap.plugin.github.source.common.model.impl.Issue;
+import org.assertj.core.api.AssertionsForClassTypes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class GitHubPageReaderTest {
+
+  @Test
+  public void testReadPageRecordByRecord() throws IOException {
+    //given
+    Commit[] expected;
+    try (InputStream stream = getClass().getClassLoader().getResourceAsStream("commits.json")) {
+      expected = GsonFactory.getDefaultInstance().fromInputStream(stream, Commit[].class);
+    }
+
+    //when
+    List<Commit> result = readAll("commits.json", Commit.class);
+
+    //then
+    Assert.assertEquals(expected.length, result.size());
+    result.forEach(commit -> AssertionsForClassTypes.assertThat(commit).hasNoNullFieldsOrProperties());
+  }
+
+  @Test
+  public void testReadNestedModels() throws IOException {
+    //when
+    List<Fork> result = readAll("forks.json", Fork.class);
+
+    //then
+    Assert.assertFalse(result.isEmpty());
+    result.forEach(fork -> AssertionsForClassTypes.assertThat(fork).hasNoNullFieldsOrProperties());
+  }
+
+  @Test
+  public void testSkip() throws IOException {
+    //given
+    int expectedCount = readAll("forks.json", Fork.class).size();
+    InputStream stream = getClass().getClassLoader().getResourceAsStream("forks.json");
+
+    //when
+    int count = 0;
+    try (GitHubPageReader<Fork> reader = new GitHubPageReader<>(stream, StandardCharsets.UTF_8, Fork.class)) {
+      while (reader.hasNext()) {
+        reader.skip();
+        count++;
+      }
+    }
+
+    //then
+    Assert.assertEquals(expectedCount, count);
+  }
+
+  @Test
+  public void testReadEmptyPage() throws IOException {
+    //given
+    InputStream stream = new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8));
+
+    //when
+    try (GitHubPageReader<Branch> reader = new GitHubPageReader<>(stream, StandardCharsets.UTF_8, Branch.class)) {
+      //then
+      Assert.assertFalse(reader.hasNext());
+    }
+  }
+
+  @Test
+  public void testReadSingleObjectPage() throws IOException {
+    //given
+    String json = "{\"name\": \"master\", \"protected\": true}";
+    InputStream stream = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+
+    //when
+    List<Branch> result = new ArrayList<>();
+    try (GitHubPageReader<Branch> reader = new GitHubPageReader<>(stream, StandardCharsets.UTF_8, Branch.class)) {
+      while (reader.hasNext()) {
+        result.add(reader.next());
+      }
+    }
+
+    //then
+    Assert.assertEquals(1, result.size());
+  }
+
+  @Test
+  public void testReadSelectedFields() throws IOException {
+    //given
+    List<Fork> expected = readAll("forks.json", Fork.class);
+    List<String> selectedFields = Arrays.asList("id", "fullName", "owner");
+
+    //when
+    List<Fork> result = new ArrayList<>();
+    InputStream stream = getClass().getClassLoader().getResourceAsStream("forks.json");
+    try (GitHubPageReader<Fork> reader = new GitHubPageReader<>(stream, StandardCharsets.UTF_8, Fork.class,
+                                                                selectedFields)) {
+      while (reader.hasNext()) {
+        result.add(reader.next());
+      }
+    }
+
+    //then
+    Assert.assertEquals(expected.size(), result.size());
+    Schema schema = SchemaBuilder.getSchema("Forks", Fork.class, selectedFields);
+    Schema fullSchema = SchemaBuilder.getSchema("Forks", Fork.class);
+    for (int i = 0; i < result.size(); i++) {
+      StructuredRecord record = DatasetTransformer.transform(result.get(i), schema);
+      StructuredRecord expectedRecord = DatasetTransformer.transform(expected.get(i), fullSchema);
+      Assert.assertEquals(expectedRecord.<Object>get("id"), record.get("id"));
+      Assert.assertEquals(expectedRecord.<Object>get("fullName"), record.get("fullName"));
+      Assert.assertEquals(expectedRecord.<Object>get("owner"), record.get("owner"));
+      AssertionsForClassTypes.assertThat(result.get(i)).hasFieldOrPropertyWithValue("htmlUrl", null);
+    }
+  }
+
+  @Test
+  public void testReadRecordsMember() throws IOException {
+    //given
+    String json = "{\"total_count\": 2, \"incomplete_results\": false, \"items\": [" +
+      "{\"number\": 1, \"title\": \"first\", \"labels\": [{\"name\": \"bug\"}]}, " +
+      "{\"number\": 2, \"title\": \"second\", \"labels\": []}]}";
+    InputStream stream = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+
+    //when
+    List<Issue> result = new ArrayList<>();
+    try (GitHubPageReader<Issue> reader = new GitHubPageReader<>(stream, StandardCharsets.UTF_8, Issue.class, null,
+                                                                 GitHubSearch.RECORDS_MEMBER)) {
+      while (reader.hasNext()) {
+        result.add(reader.next());
+      }
+    }
+
+    //then
+    Assert.assertEquals(2, result.size());
+    AssertionsForClassTypes.assertThat(result.get(0)).hasFieldOrPropertyWithValue("title", "first");
+    AssertionsForClassTypes.assertThat(result.get(1)).hasFieldOrPropertyWithValue("number", 2);
+  }
+
+  @Test
+  public void testReadRecordsMemberCaseNoResults() throws IOException {
+    //given
+    String json = "{\"total_count\": 0, \"incomplete_results\": false, \"items\": []}";
+    InputStream stream = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+
+    //when
+    try (GitHubPageReader<Issue> reader = new GitHubPageReader<>(stream, StandardCharsets.UTF_8, Issue.class, null,
+                                                                 GitHubSearch.RECORDS_MEMBER)) {
+      //then
+      Assert.assertFalse(reader.hasNext());
+    }
+  }
+
+  private <T> List<T> readAll(String fileName, Class<T> clazz) throws IOException {
+    List<T> result = new ArrayList<>();
+    InputStream stream = getClass().getClassLoader().getResourceAsStream(fileName);
+    try (GitHubPageReader<T> reader = new GitHubPageReader<>(stream, StandardCharsets.UTF_8, clazz)) {
+      while (reader.hasNext()) {
+        result.add(reader.next());
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,77 @@
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.http.HttpHeaders;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class GitHubRateLimiterTest {
+
+  private static final long NOW = TimeUnit.SECONDS.toMillis(1_600_000_000L);
+
+  private List<Long> sleeps;
+  private GitHubRateLimiter rateLimiter;
+
+  @Before
+  public void setUp() {
+    sleeps = new ArrayList<>();
+    rateLimiter = new GitHubRateLimiter(() -> NOW, sleeps::add);
+  }
+
+  @Test
+  public void testNoDelayCaseBudgetUnknown() {
+    Assert.assertEquals(0, rateLimiter.reserve());
+    Assert.assertEquals(-1, rateLimiter.getRemaining());
+  }
+
+  @Test
+  public void testNoDelayCaseBudgetHealthy() {
+    //given
+    rateLimiter.update(headers(5000, 4000, 3600));
+
+    //then
+    Assert.assertEquals(0, rateLimiter.reserve());
+    Assert.assertEquals(3999, rateLimiter.getRemaining());
+  }
+
+  @Test
+  public void testPacedDelayCaseBudgetLow() {
+    //given
+    rateLimiter.update(headers(5000, 100, 1000));
+
+    //then
+    Assert.assertEquals(TimeUnit.SECONDS.toMillis(1000) / 100, rateLimiter.reserve());
+  }
+
+  @Test
+  public void testPauseUntilResetCaseBudgetExhausted() {
+    //given
+    rateLimiter.update(headers(5000, 0, 60));
+
+    //then
+    Assert.assertEquals(TimeUnit.SECONDS.toMillis(60), rateLimiter.reserve());
+  }
+
+  @Test
+  public void testPauseCaseRetryAfter() {
+    //given
+    HttpHeaders headers = headers(5000, 4000, 3600);
+    headers.set(GitHubRateLimiter.RETRY_AFTER_HEADER, "30");
+    rateLimiter.update(headers);
+
+    //then
+    Assert.assertEquals(TimeUnit.SECONDS.toMillis(30), rateLimiter.reserve());
+  }
+
+  private HttpHeaders headers(long limit, long remaining, long resetInSeconds) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(GitHubRateLimiter.LIMIT_HEADER, String.valueOf(limit));
+    headers.set(GitHubRateLimiter.REMAINING_HEADER, String.valueOf(remaining));
+    headers.set(GitHubRateLimiter.RESET_HEADER, String.valueOf(TimeUnit.MILLISECONDS.toSeconds(NOW) + resetInSeconds));
+    return headers;
+  }
+}
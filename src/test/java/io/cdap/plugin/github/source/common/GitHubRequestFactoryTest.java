@@ -0,0 +1,183 @@
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import io.cdap.plugin.github.source.batch.GithubBatchSourceConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class GitHubRequestFactoryTest {
+
+  @Test
+  public void testGenerateFirstCallUrl() {
+    //given
+    GithubBatchSourceConfig config = createConfig("Branches");
+
+    //when
+    String url = GitHubRequestFactory.generateFirstCallUrl(config);
+
+    //then
+    Assert.assertEquals("https://api.github.com/repos/owner/repo/branches?per_page=100", url);
+  }
+
+  @Test
+  public void testGenerateFirstCallUrlCaseSince() {
+    //given
+    GithubBatchSourceConfig config = createConfig("Commits");
+    config.setSince("2020-01-01T00:00:00Z");
+
+    //when
+    String url = GitHubRequestFactory.generateFirstCallUrl(config);
+
+    //then
+    Assert.assertTrue(url.startsWith("https://api.github.com/repos/owner/repo/commits?"));
+    Assert.assertTrue(url.contains("per_page=100"));
+    Assert.assertTrue(url.contains("since=2020-01-01T00:00:00Z"));
+  }
+
+  @Test
+  public void testGenerateFirstCallUrlCaseCommitFilters() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref") {
+      {
+        repoOwner = "owner";
+        repoName = "repo";
+        datasetName = "Commits";
+        sha = "release/6.1";
+        path = "src/main";
+        author = "octocat";
+        until = "2020-06-01T00:00:00Z";
+      }
+    };
+
+    //when
+    String url = GitHubRequestFactory.generateFirstCallUrl(config);
+
+    //then
+    GenericUrl result = new GenericUrl(url);
+    Assert.assertEquals("release/6.1", result.getFirst("sha"));
+    Assert.assertEquals("src/main", result.getFirst("path"));
+    Assert.assertEquals("octocat", result.getFirst("author"));
+    Assert.assertEquals("2020-06-01T00:00:00Z", result.getFirst("until"));
+    Assert.assertNull(result.getFirst("committer"));
+  }
+
+  @Test
+  public void testGenerateFirstCallUrlCaseDatasetFilters() {
+    //given
+    GithubBatchSourceConfig forksConfig = new GithubBatchSourceConfig("ref") {
+      {
+        repoOwner = "owner";
+        repoName = "repo";
+        datasetName = "Forks";
+        sort = "oldest";
+      }
+    };
+    GithubBatchSourceConfig branchesConfig = new GithubBatchSourceConfig("ref") {
+      {
+        repoOwner = "owner";
+        repoName = "repo";
+        datasetName = "Branches";
+        protectedBranches = true;
+      }
+    };
+
+    GithubBatchSourceConfig deploymentsConfig = new GithubBatchSourceConfig("ref") {
+      {
+        repoOwner = "owner";
+        repoName = "repo";
+        datasetName = "Deployments";
+        sha = "a1b2c3";
+        deploymentRef = "v1.0";
+        deploymentTask = "deploy";
+        deploymentEnvironment = "production";
+      }
+    };
+
+    //when
+    String forksUrl = GitHubRequestFactory.generateFirstCallUrl(forksConfig);
+    String branchesUrl = GitHubRequestFactory.generateFirstCallUrl(branchesConfig);
+    GenericUrl deploymentsUrl = new GenericUrl(GitHubRequestFactory.generateFirstCallUrl(deploymentsConfig));
+
+    //then
+    Assert.assertEquals("oldest", new GenericUrl(forksUrl).getFirst("sort"));
+    Assert.assertEquals("true", new GenericUrl(branchesUrl).getFirst("protected"));
+    Assert.assertEquals("a1b2c3", deploymentsUrl.getFirst("sha"));
+    Assert.assertEquals("v1.0", deploymentsUrl.getFirst("ref"));
+    Assert.assertEquals("deploy", deploymentsUrl.getFirst("task"));
+    Assert.assertEquals("production", deploymentsUrl.getFirst("environment"));
+  }
+
+  @Test
+  public void testBuildPageUrl() {
+    //given
+    String url = "https://api.github.com/repos/owner/repo/commits?per_page=100";
+
+    //when
+    String pageUrl = GitHubRequestFactory.buildPageUrl(url, 7);
+
+    //then
+    Assert.assertEquals(url + "&page=7", pageUrl);
+  }
+
+  @Test
+  public void testGetLinkUrl() {
+    //given
+    String linkHeader = "<https://api.github.com/repositories/1/commits?per_page=100&page=2>; rel=\"next\", " +
+      "<https://api.github.com/repositories/1/commits?per_page=100&page=34>; rel=\"last\"";
+
+    //when
+    String nextUrl = GitHubRequestFactory.getLinkUrl(linkHeader, GitHubRequestFactory.NEXT_LINK);
+    String lastUrl = GitHubRequestFactory.getLinkUrl(linkHeader, GitHubRequestFactory.LAST_LINK);
+
+    //then
+    Assert.assertEquals("https://api.github.com/repositories/1/commits?per_page=100&page=2", nextUrl);
+    Assert.assertEquals(Integer.valueOf(34), GitHubRequestFactory.getPageNumber(lastUrl));
+    Assert.assertNull(GitHubRequestFactory.getLinkUrl(linkHeader, "prev"));
+    Assert.assertNull(GitHubRequestFactory.getLinkUrl(null, GitHubRequestFactory.NEXT_LINK));
+  }
+
+  @Test
+  public void testGetPageNumberCaseCursor() {
+    //given
+    String cursorUrl = "https://api.github.com/repositories/1/commits?per_page=100&after=Y3Vyc29y";
+
+    //then
+    Assert.assertNull(GitHubRequestFactory.getPageNumber(cursorUrl));
+    Assert.assertNull(GitHubRequestFactory.getPageNumber(cursorUrl + "&page=abc"));
+  }
+
+  @Test
+  public void testBuildRequestCaseConnectionSettings() throws IOException {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref") {
+      {
+        authorizationToken = "token";
+        maxConnections = 2;
+        connectTimeout = 5;
+        readTimeout = 0;
+      }
+    };
+
+    //when
+    HttpRequest request = GitHubRequestFactory.buildRequest("https://api.github.com/repos/owner/repo", config);
+
+    //then
+    Assert.assertSame(GitHubHttpTransport.forMaxConnections(2), request.getTransport());
+    Assert.assertEquals(5000, request.getConnectTimeout());
+    Assert.assertEquals(0, request.getReadTimeout());
+    Assert.assertEquals("gzip", request.getHeaders().getAcceptEncoding());
+  }
+
+  private GithubBatchSourceConfig createConfig(String dataset) {
+    return new GithubBatchSourceConfig("ref") {
+      {
+        repoOwner = "owner";
+        repoName = "repo";
+        datasetName = dataset;
+      }
+    };
+  }
+}
@@ -0,0 +1,109 @@
+package io.cdap.plugin.github.source.common;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class GitHubRequestMetricsTest {
+
+  private GitHubRequestMetrics metrics;
+
+  @Before
+  public void setUp() {
+    metrics = new GitHubRequestMetrics();
+  }
+
+  @Test
+  public void testGetLatencyBucketMetric() {
+    //then
+    Assert.assertEquals("github.request.latency.ms.le_100", GitHubRequestMetrics.getLatencyBucketMetric(0));
+    Assert.assertEquals("github.request.latency.ms.le_100", GitHubRequestMetrics.getLatencyBucketMetric(100));
+    Assert.assertEquals("github.request.latency.ms.le_250", GitHubRequestMetrics.getLatencyBucketMetric(101));
+    Assert.assertEquals("github.request.latency.ms.gt_10000", GitHubRequestMetrics.getLatencyBucketMetric(10001));
+  }
+
+  @Test
+  public void testDrainCaseRequests() {
+    //given
+    metrics.recordRequest("200", 80);
+    metrics.recordRequest("200", 300);
+    metrics.recordRequest(GitHubRetryPolicy.IO_ERROR, 20000);
+
+    //when
+    Map<String, Long> drained = metrics.drain();
+
+    //then
+    Assert.assertEquals(2L, (long) drained.get("github.requests.200"));
+    Assert.assertEquals(1L, (long) drained.get("github.requests.io"));
+    Assert.assertEquals(20380L, (long) drained.get(GitHubRequestMetrics.LATENCY_METRIC));
+    Assert.assertEquals(1L, (long) drained.get("github.request.latency.ms.le_100"));
+    Assert.assertEquals(1L, (long) drained.get("github.request.latency.ms.le_500"));
+    Assert.assertEquals(1L, (long) drained.get("github.request.latency.ms.gt_10000"));
+    Assert.assertTrue(metrics.drain().isEmpty());
+  }
+
+  @Test
+  public void testForStage() {
+    //given
+    GitHubRequestMetrics.forStage("default:pipeline:first").recordRequest("200", 10);
+
+    //when
+    Map<String, Long> first = GitHubRequestMetrics.forStage("default:pipeline:first").drain();
+    Map<String, Long> second = GitHubRequestMetrics.forStage("default:pipeline:second").drain();
+
+    //then
+    Assert.assertEquals(1L, (long) first.get("github.requests.200"));
+    Assert.assertTrue(second.isEmpty());
+  }
+
+  @Test
+  public void testCountAll() {
+    //given
+    metrics.count(GitHubRequestMetrics.PAGES_METRIC, 2);
+
+    //when
+    metrics.countAll(Collections.singletonMap(GitHubRequestMetrics.PAGES_METRIC, 3L));
+
+    //then
+    Assert.assertEquals(5L, (long) metrics.drain().get(GitHubRequestMetrics.PAGES_METRIC));
+  }
+
+  @Test
+  public void testDrainCaseDecodeTimeRemainderKept() {
+    //given
+    metrics.recordPage(TimeUnit.MICROSECONDS.toNanos(1500));
+    metrics.drain();
+
+    //when
+    metrics.recordPage(TimeUnit.MICROSECONDS.toNanos(500));
+    Map<String, Long> drained = metrics.drain();
+
+    //then
+    Assert.assertEquals(1L, (long) drained.get(GitHubRequestMetrics.DECODE_TIME_METRIC));
+    Assert.assertEquals(1L, (long) drained.get(GitHubRequestMetrics.PAGES_METRIC));
+  }
+
+  @Test
+  public void testCountBytes() throws IOException {
+    //given
+    InputStream compressed = metrics.countCompressed(new ByteArrayInputStream(new byte[100]));
+    InputStream uncompressed = metrics.countUncompressed(new ByteArrayInputStream(new byte[300]));
+
+    //when
+    ByteStreams.toByteArray(compressed);
+    ByteStreams.toByteArray(uncompressed);
+    Map<String, Long> drained = metrics.drain();
+
+    //then
+    Assert.assertEquals(100L, (long) drained.get(GitHubRequestMetrics.COMPRESSED_BYTES_METRIC));
+    Assert.assertEquals(300L, (long) drained.get(GitHubRequestMetrics.UNCOMPRESSED_BYTES_METRIC));
+  }
+}
@@ -0,0 +1,144 @@
+package io.cdap.plugin.github.source.common;
+
+import com.google.common.io.ByteStreams;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+public class GitHubResponseCacheTest {
+
+  private static final String URL = "https://api.github.com/repos/owner/repo/branches?per_page=100&page=1";
+  private static final String CONTENT = "[{\"name\": \"master\"}]";
+  private static final long MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+  private static final String LINK = "<https://api.github.com/repositories/1/branches?page=2>; rel=\"next\"";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private long now;
+  private GitHubResponseCache cache;
+
+  @Before
+  public void setUp() throws IOException {
+    now = System.currentTimeMillis();
+    cache = new GitHubResponseCache(temporaryFolder.getRoot().getAbsolutePath(), "token", new Configuration(),
+                                    MAX_AGE_MILLIS, () -> now);
+  }
+
+  @Test
+  public void testLookupCaseMiss() throws IOException {
+    Assert.assertNull(cache.lookup(URL));
+  }
+
+  @Test
+  public void testStoreAndLookup() throws IOException {
+    //given
+    InputStream content = new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8));
+
+    //when
+    try (InputStream stream = cache.store(URL, "\"etag\"", LINK, content)) {
+      // read only a part of the body, the rest has to be cached on close
+      Assert.assertEquals('[', stream.read());
+    }
+    GitHubResponseCache.Entry entry = cache.lookup(URL);
+
+    //then
+    Assert.assertNotNull(entry);
+    Assert.assertEquals("\"etag\"", entry.getETag());
+    Assert.assertEquals(LINK, entry.getLink());
+    try (InputStream cached = cache.openContent(entry)) {
+      Assert.assertEquals(CONTENT, new String(ByteStreams.toByteArray(cached), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  public void testLookupCaseOtherToken() throws IOException {
+    //given
+    InputStream content = new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8));
+    cache.store(URL, "\"etag\"", null, content).close();
+
+    //when
+    GitHubResponseCache otherCache =
+      new GitHubResponseCache(temporaryFolder.getRoot().getAbsolutePath(), "other", new Configuration());
+
+    //then
+    Assert.assertNotNull(cache.lookup(URL));
+    Assert.assertNull(otherCache.lookup(URL));
+  }
+
+  @Test
+  public void testStoreCaseEntryReplaced() throws IOException {
+    //given
+    store("\"old\"", "[]");
+    GitHubResponseCache.Entry oldEntry = cache.lookup(URL);
+
+    //when
+    store("\"new\"", CONTENT);
+    GitHubResponseCache.Entry newEntry = cache.lookup(URL);
+
+    //then
+    Assert.assertEquals("\"new\"", newEntry.getETag());
+    Assert.assertEquals(CONTENT, read(newEntry));
+    // a reader, which found the old entry before it was replaced, can still read it
+    Assert.assertEquals("[]", read(oldEntry));
+  }
+
+  @Test
+  public void testLookupCaseExpired() throws IOException {
+    //given
+    store("\"etag\"", CONTENT);
+
+    //when
+    now += MAX_AGE_MILLIS + TimeUnit.MINUTES.toMillis(1);
+
+    //then
+    Assert.assertNull(cache.lookup(URL));
+  }
+
+  @Test
+  public void testEvictExpiredCaseServedEntryKept() throws IOException {
+    //given
+    store("\"old\"", "[]");
+    store("\"etag\"", CONTENT);
+    File credentialsDirectory = temporaryFolder.getRoot().listFiles(File::isDirectory)[0];
+    Assert.assertEquals(3, countFiles(credentialsDirectory));
+
+    //when
+    now += MAX_AGE_MILLIS - TimeUnit.MINUTES.toMillis(1);
+    // serving the entry keeps it for another maximum age, unlike the body of the replaced entry
+    read(cache.lookup(URL));
+    now += TimeUnit.MINUTES.toMillis(2);
+    cache.evictExpired();
+
+    //then
+    Assert.assertEquals(2, countFiles(credentialsDirectory));
+    Assert.assertEquals(CONTENT, read(cache.lookup(URL)));
+  }
+
+  private void store(String eTag, String content) throws IOException {
+    cache.store(URL, eTag, null, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))).close();
+  }
+
+  private String read(GitHubResponseCache.Entry entry) throws IOException {
+    try (InputStream cached = cache.openContent(entry)) {
+      return new String(ByteStreams.toByteArray(cached), StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Counts the cache files of the given directory, leaving out the checksum files of the local file system.
+   */
+  private static int countFiles(File directory) {
+    return directory.listFiles((dir, name) -> !name.endsWith(".crc")).length;
+  }
+}
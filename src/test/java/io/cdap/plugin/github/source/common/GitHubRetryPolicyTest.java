@@ -0,0 +1,273 @@
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.HttpTesting;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+public class GitHubRetryPolicyTest {
+
+  private static final long NOW = TimeUnit.SECONDS.toMillis(1_600_000_000L);
+  private static final long BASE_DELAY = 1000;
+  private static final long MAX_DELAY = 8000;
+
+  private List<Long> sleeps;
+  private GitHubRetryPolicy retryPolicy;
+  private GitHubRequestMetrics metrics;
+  private int calls;
+
+  @Before
+  public void setUp() {
+    sleeps = new ArrayList<>();
+    calls = 0;
+    metrics = new GitHubRequestMetrics();
+    retryPolicy = createRetryPolicy(3);
+  }
+
+  @Test
+  public void testRetryCaseServerError() throws IOException {
+    //given
+    HttpRequest request = createRequest(response(502), response(200));
+
+    //when
+    HttpResponse response = retryPolicy.execute(request);
+
+    //then
+    Assert.assertEquals(200, response.getStatusCode());
+    Assert.assertEquals(2, calls);
+    Assert.assertEquals(1, sleeps.size());
+    Assert.assertTrue(sleeps.get(0) <= BASE_DELAY);
+    Map<String, Long> requestMetrics = metrics.drain();
+    Assert.assertEquals(Long.valueOf(1), requestMetrics.get("github.retries.502"));
+    Assert.assertEquals(Long.valueOf(1), requestMetrics.get("github.requests.502"));
+    Assert.assertEquals(Long.valueOf(1), requestMetrics.get("github.requests.200"));
+    Assert.assertTrue(metrics.drain().isEmpty());
+  }
+
+  @Test
+  public void testRetryCaseRateLimitExceeded() throws IOException {
+    //given
+    MockLowLevelHttpResponse rateLimited = response(403);
+    rateLimited.addHeader(GitHubRateLimiter.REMAINING_HEADER, "0");
+    rateLimited.addHeader(GitHubRateLimiter.RESET_HEADER, String.valueOf(TimeUnit.MILLISECONDS.toSeconds(NOW) + 5));
+    HttpRequest request = createRequest(rateLimited, response(200));
+
+    //when
+    HttpResponse response = retryPolicy.execute(request);
+
+    //then
+    Assert.assertEquals(200, response.getStatusCode());
+    Assert.assertEquals(2, calls);
+    Assert.assertEquals(Arrays.asList(TimeUnit.SECONDS.toMillis(5)), sleeps);
+  }
+
+  @Test
+  public void testRetryCaseRateLimitExceededOtherTokenAvailable() throws IOException {
+    //given
+    GitHubTokenPool tokenPool = new GitHubTokenPool(Arrays.asList(GitHubCredential.token("first"),
+                                                                  GitHubCredential.token("second")),
+                                                    token -> new GitHubRateLimiter(() -> NOW, sleeps::add));
+    retryPolicy = new GitHubRetryPolicy(3, BASE_DELAY, MAX_DELAY, tokenPool, metrics, () -> NOW, sleeps::add,
+                                        new Random(1));
+    List<String> authorizations = new ArrayList<>();
+    MockHttpTransport transport = new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) {
+        return new MockLowLevelHttpRequest() {
+          @Override
+          public LowLevelHttpResponse execute() {
+            String authorization = getFirstHeaderValue("Authorization");
+            authorizations.add(authorization);
+            if (authorization.endsWith("second")) {
+              return response(200);
+            }
+            MockLowLevelHttpResponse rateLimited = response(403);
+            rateLimited.addHeader(GitHubRateLimiter.REMAINING_HEADER, "0");
+            rateLimited.addHeader(GitHubRateLimiter.RESET_HEADER,
+                                  String.valueOf(TimeUnit.MILLISECONDS.toSeconds(NOW) + 600));
+            return rateLimited;
+          }
+        };
+      }
+    };
+    HttpRequest request = transport.createRequestFactory().buildGetRequest(HttpTesting.SIMPLE_GENERIC_URL);
+    request.setInterceptor(tokenPool);
+    request.setResponseInterceptor(tokenPool);
+
+    //when
+    HttpResponse response = retryPolicy.execute(request);
+
+    //then
+    Assert.assertEquals(200, response.getStatusCode());
+    Assert.assertEquals(Arrays.asList("token first", "token second"), authorizations);
+    Assert.assertTrue(sleeps.isEmpty());
+  }
+
+  @Test
+  public void testRetryCaseRetryAfter() throws IOException {
+    //given
+    MockLowLevelHttpResponse throttled = response(429);
+    throttled.addHeader(GitHubRateLimiter.RETRY_AFTER_HEADER, "30");
+    HttpRequest request = createRequest(throttled, response(200));
+
+    //when
+    retryPolicy.execute(request);
+
+    //then
+    Assert.assertEquals(Arrays.asList(TimeUnit.SECONDS.toMillis(30)), sleeps);
+    Assert.assertEquals(Long.valueOf(1), metrics.drain().get("github.retries.429"));
+  }
+
+  @Test
+  public void testRetryCaseSecondaryRateLimit() throws IOException {
+    //given
+    MockLowLevelHttpResponse throttled = response(403)
+      .setContent("{\"message\": \"You have exceeded a secondary rate limit. Please wait a few minutes.\"}");
+    HttpRequest request = createRequest(throttled, response(200));
+
+    //when
+    HttpResponse response = retryPolicy.execute(request);
+
+    //then
+    Assert.assertEquals(200, response.getStatusCode());
+    Assert.assertEquals(1, sleeps.size());
+    Assert.assertTrue(sleeps.get(0) >= GitHubRetryPolicy.SECONDARY_RATE_LIMIT_DELAY_MILLIS);
+  }
+
+  @Test
+  public void testNoRetryCaseForbidden() throws IOException {
+    //given
+    HttpRequest request = createRequest(response(403).setContent("{\"message\": \"Resource not accessible\"}"));
+
+    //when
+    try {
+      retryPolicy.execute(request);
+      Assert.fail("Expected HttpResponseException");
+    } catch (HttpResponseException e) {
+      //then
+      Assert.assertEquals(403, e.getStatusCode());
+      Assert.assertTrue(e.getContent().contains("Resource not accessible"));
+    }
+    Assert.assertEquals(1, calls);
+    Assert.assertTrue(sleeps.isEmpty());
+  }
+
+  @Test
+  public void testNoRetryCaseNotFound() throws IOException {
+    //given
+    HttpRequest request = createRequest(response(404));
+
+    //when
+    HttpResponse response = retryPolicy.execute(request);
+
+    //then
+    Assert.assertEquals(404, response.getStatusCode());
+    Assert.assertEquals(1, calls);
+  }
+
+  @Test
+  public void testRetryCaseAttemptsExhausted() throws IOException {
+    //given
+    HttpRequest request = createRequest(response(500), response(500), response(503), response(200));
+
+    //when
+    HttpResponse response = retryPolicy.execute(request);
+
+    //then
+    Assert.assertEquals(503, response.getStatusCode());
+    Assert.assertEquals(3, calls);
+    Assert.assertEquals(2, sleeps.size());
+  }
+
+  @Test
+  public void testRetryCaseIOException() throws IOException {
+    //given
+    HttpRequest request = createRequest(null, null, response(200));
+
+    //when
+    HttpResponse response = retryPolicy.execute(request);
+
+    //then
+    Assert.assertEquals(200, response.getStatusCode());
+    Assert.assertEquals(Long.valueOf(2), metrics.drain().get("github.retries.io"));
+  }
+
+  @Test(expected = SocketTimeoutException.class)
+  public void testRetryCaseIOExceptionAttemptsExhausted() throws IOException {
+    //given
+    retryPolicy = createRetryPolicy(2);
+    HttpRequest request = createRequest(null, null, response(200));
+
+    //when
+    retryPolicy.execute(request);
+  }
+
+  @Test
+  public void testBackoffCapped() {
+    //given
+    GitHubRetryPolicy retryPolicy = new GitHubRetryPolicy(3, BASE_DELAY, MAX_DELAY, null, metrics, () -> NOW,
+                                                          sleeps::add, new Random() {
+                                                            @Override
+                                                            public double nextDouble() {
+                                                              return 0.999;
+                                                            }
+                                                          });
+
+    //then
+    Assert.assertEquals(999, retryPolicy.getBackoffMillis(1));
+    Assert.assertEquals(3996, retryPolicy.getBackoffMillis(3));
+    Assert.assertEquals(7992, retryPolicy.getBackoffMillis(4));
+    Assert.assertEquals(7992, retryPolicy.getBackoffMillis(100));
+  }
+
+  private GitHubRetryPolicy createRetryPolicy(int maxAttempts) {
+    return new GitHubRetryPolicy(maxAttempts, BASE_DELAY, MAX_DELAY, null, metrics, () -> NOW, sleeps::add,
+                                 new Random(1));
+  }
+
+  private static MockLowLevelHttpResponse response(int statusCode) {
+    return new MockLowLevelHttpResponse().setStatusCode(statusCode);
+  }
+
+  /**
+   * Creates a request answered by the given responses in turn, where null stands for a socket timeout.
+   */
+  private HttpRequest createRequest(MockLowLevelHttpResponse... responses) throws IOException {
+    Iterator<MockLowLevelHttpResponse> iterator = Arrays.asList(responses).iterator();
+    MockHttpTransport transport = new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) {
+        return new MockLowLevelHttpRequest() {
+          @Override
+          public LowLevelHttpResponse execute() throws IOException {
+            calls++;
+            MockLowLevelHttpResponse response = iterator.next();
+            if (response == null) {
+              throw new SocketTimeoutException("Read timed out");
+            }
+            return response;
+          }
+        };
+      }
+    };
+    return transport.createRequestFactory().buildGetRequest(HttpTesting.SIMPLE_GENERIC_URL);
+  }
+}
@@ -0,0 +1,65 @@
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.http.GenericUrl;
+import io.cdap.plugin.github.source.batch.GithubBatchSourceConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Instant;
+
+public class GitHubSearchTest {
+
+  private static final String URL = "https://api.github.com/search/issues?q=is:pr%20repo:owner/repo" +
+    "&sort=created&order=asc&per_page=100";
+
+  @Test
+  public void testGenerateFirstCallUrl() {
+    //given
+    GithubBatchSourceConfig config = new GithubBatchSourceConfig("ref") {
+      {
+        repoOwner = "owner";
+        repoName = "repo";
+        datasetName = GitHubSearch.ISSUES_DATASET;
+        searchQuery = "is:pr label:bug";
+      }
+    };
+
+    //when
+    String url = GitHubRequestFactory.generateFirstCallUrl(config);
+
+    //then
+    GenericUrl result = new GenericUrl(url);
+    Assert.assertEquals("/search/issues", result.getRawPath());
+    Assert.assertEquals("is:pr label:bug repo:owner/repo", result.getFirst(GitHubSearch.QUERY_PARAMETER));
+    Assert.assertEquals("created", result.getFirst("sort"));
+    Assert.assertEquals("asc", result.getFirst("order"));
+    Assert.assertTrue(GitHubSearch.isSearchUrl(url));
+  }
+
+  @Test
+  public void testBuildSliceUrl() {
+    //when
+    String url = GitHubSearch.buildSliceUrl(URL, Instant.parse("2020-01-01T00:00:00Z"),
+                                            Instant.parse("2020-06-30T23:59:59Z"));
+
+    //then
+    Assert.assertEquals("is:pr repo:owner/repo created:2020-01-01T00:00:00Z..2020-06-30T23:59:59Z",
+                        new GenericUrl(url).getFirst(GitHubSearch.QUERY_PARAMETER));
+  }
+
+  @Test
+  public void testBuildSliceUrlCaseOpenStart() {
+    //when
+    String url = GitHubSearch.buildSliceUrl(URL, null, Instant.parse("2020-06-30T23:59:59Z"));
+
+    //then
+    Assert.assertEquals("is:pr repo:owner/repo created:*..2020-06-30T23:59:59Z",
+                        new GenericUrl(url).getFirst(GitHubSearch.QUERY_PARAMETER));
+  }
+
+  @Test
+  public void testIsSearchUrlCaseRestUrl() {
+    //then
+    Assert.assertFalse(GitHubSearch.isSearchUrl("https://api.github.com/repos/owner/repo/issues?per_page=100"));
+  }
+}
@@ -0,0 +1,162 @@
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.testing.http.HttpTesting;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class GitHubTokenPoolTest {
+
+  private static final long NOW = TimeUnit.SECONDS.toMillis(1_600_000_000L);
+
+  private Map<String, GitHubRateLimiter> rateLimiters;
+  private GitHubTokenPool tokenPool;
+
+  @Before
+  public void setUp() {
+    rateLimiters = new HashMap<>();
+    tokenPool = new GitHubTokenPool(credentials("first", "second", "third"), token -> {
+      GitHubRateLimiter rateLimiter = new GitHubRateLimiter(() -> NOW, millis -> { });
+      rateLimiters.put(token, rateLimiter);
+      return rateLimiter;
+    });
+  }
+
+  @Test
+  public void testSelectCaseBudgetUnknown() {
+    //given
+    rateLimiters.get(nameOf("first")).update(headers(5000, 4000, 3600));
+
+    //then
+    Assert.assertEquals(nameOf("second"), tokenPool.select().getName());
+  }
+
+  @Test
+  public void testSelectCaseMostBudgetLeft() {
+    //given
+    rateLimiters.get(nameOf("first")).update(headers(5000, 4000, 3600));
+    rateLimiters.get(nameOf("second")).update(headers(5000, 4500, 3600));
+    rateLimiters.get(nameOf("third")).update(headers(5000, 3000, 3600));
+
+    //then
+    Assert.assertEquals(nameOf("second"), tokenPool.select().getName());
+    Assert.assertEquals(11500, tokenPool.getRemaining());
+  }
+
+  @Test
+  public void testSelectCaseBudgetExhausted() {
+    //given
+    rateLimiters.get(nameOf("first")).update(headers(5000, 0, 60));
+    rateLimiters.get(nameOf("second")).update(headers(5000, 0, 30));
+    rateLimiters.get(nameOf("third")).update(headers(5000, 0, 600));
+
+    //then
+    Assert.assertEquals(nameOf("second"), tokenPool.select().getName());
+    Assert.assertEquals(TimeUnit.SECONDS.toMillis(30), tokenPool.getDelayMillis());
+  }
+
+  @Test
+  public void testSelectCaseLowBudgetPaced() {
+    //given
+    rateLimiters.get(nameOf("first")).update(headers(5000, 100, 1000));
+    rateLimiters.get(nameOf("second")).update(headers(5000, 0, 60));
+    rateLimiters.get(nameOf("third")).update(headers(5000, 50, 1000));
+
+    //then
+    Assert.assertEquals(nameOf("first"), tokenPool.select().getName());
+  }
+
+  @Test
+  public void testGetRemainingCaseBudgetUnknown() {
+    Assert.assertEquals(-1, tokenPool.getRemaining());
+    Assert.assertEquals(0, tokenPool.getDelayMillis());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoTokens() {
+    new GitHubTokenPool(credentials(), token -> new GitHubRateLimiter(() -> NOW, millis -> { }));
+  }
+
+  @Test
+  public void testGetNameCaseTokenNotRevealed() {
+    //given
+    GitHubCredential credential = GitHubCredential.token("ghp_secret");
+
+    //then
+    Assert.assertFalse(credential.getName().contains("ghp_secret"));
+    Assert.assertEquals(credential.getName(), nameOf("ghp_secret"));
+    Assert.assertNotEquals(credential.getName(), nameOf("ghp_other"));
+  }
+
+  @Test
+  public void testForCredentialsCaseSeparateResources() {
+    //given
+    List<GitHubCredential> credentials = credentials("search-first", "search-second");
+
+    //when
+    GitHubTokenPool core = GitHubTokenPool.forCredentials(credentials);
+    GitHubTokenPool search = GitHubTokenPool.forCredentials(credentials, GitHubTokenPool.SEARCH_RESOURCE);
+
+    //then
+    Assert.assertSame(core, GitHubTokenPool.forCredentials(credentials, GitHubTokenPool.CORE_RESOURCE));
+    Assert.assertSame(search, GitHubTokenPool.forCredentials(credentials, GitHubTokenPool.SEARCH_RESOURCE));
+    Assert.assertNotSame(core, search);
+  }
+
+  @Test
+  public void testInterceptResponseCaseOtherResourceIgnored() throws IOException {
+    //given
+    HttpRequest graphQLRequest = createRequest(GitHubTokenPool.GRAPHQL_RESOURCE);
+    HttpRequest coreRequest = createRequest(GitHubTokenPool.CORE_RESOURCE);
+
+    //when
+    graphQLRequest.execute();
+    long remainingAfterGraphQL = tokenPool.getRemaining();
+    coreRequest.execute();
+
+    //then
+    Assert.assertEquals(-1, remainingAfterGraphQL);
+    Assert.assertEquals(4000, tokenPool.getRemaining());
+  }
+
+  private HttpRequest createRequest(String resource) throws IOException {
+    MockLowLevelHttpResponse response = new MockLowLevelHttpResponse()
+      .addHeader(GitHubRateLimiter.RESOURCE_HEADER, resource)
+      .addHeader(GitHubRateLimiter.LIMIT_HEADER, "5000")
+      .addHeader(GitHubRateLimiter.REMAINING_HEADER, "4000")
+      .addHeader(GitHubRateLimiter.RESET_HEADER, String.valueOf(TimeUnit.MILLISECONDS.toSeconds(NOW) + 3600));
+    HttpRequest request = new MockHttpTransport.Builder().setLowLevelHttpResponse(response).build()
+      .createRequestFactory().buildGetRequest(HttpTesting.SIMPLE_GENERIC_URL);
+    request.setInterceptor(tokenPool);
+    request.setResponseInterceptor(tokenPool);
+    return request;
+  }
+
+  private static String nameOf(String token) {
+    return GitHubCredential.token(token).getName();
+  }
+
+  private static List<GitHubCredential> credentials(String... tokens) {
+    return Arrays.stream(tokens).map(GitHubCredential::token).collect(Collectors.toList());
+  }
+
+  private HttpHeaders headers(long limit, long remaining, long resetInSeconds) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(GitHubRateLimiter.LIMIT_HEADER, String.valueOf(limit));
+    headers.set(GitHubRateLimiter.REMAINING_HEADER, String.valueOf(remaining));
+    headers.set(GitHubRateLimiter.RESET_HEADER, String.valueOf(TimeUnit.MILLISECONDS.toSeconds(NOW) + resetInSeconds));
+    return headers;
+  }
+}
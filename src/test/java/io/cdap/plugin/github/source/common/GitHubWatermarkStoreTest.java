@@ -0,0 +1,39 @@
+package io.cdap.plugin.github.source.common;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+public class GitHubWatermarkStoreTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testReadCaseNoWatermark() throws IOException {
+    Assert.assertNull(createStore("Commits").read());
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    //given
+    GitHubWatermarkStore store = createStore("Commits");
+
+    //when
+    store.write("2020-01-01T00:00:00Z");
+    store.write("2020-01-02T00:00:00Z");
+
+    //then
+    Assert.assertEquals("2020-01-02T00:00:00Z", createStore("Commits").read());
+    Assert.assertNull(createStore("Traffic:Referrers").read());
+  }
+
+  private GitHubWatermarkStore createStore(String datasetName) throws IOException {
+    return new GitHubWatermarkStore(temporaryFolder.getRoot().getAbsolutePath(), "owner", "repo", datasetName,
+                                    new Configuration());
+  }
+}
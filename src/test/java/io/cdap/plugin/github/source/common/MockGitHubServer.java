@@ -0,0 +1,392 @@
+package io.cdap.plugin.github.source.common;
+
+import com.google.api.client.http.HttpStatusCodes;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.common.hash.Hashing;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Fake GitHub REST API served on a local port, so that the source can be run offline and under controlled
+ * conditions.
+ *
+ * It serves the records of the registered datasets in pages of the requested 'per_page' and 'page' parameters,
+ * with the 'Link' header GitHub paginates with, an 'ETag' answered with '304 Not Modified' for matching
+ * 'If-None-Match' requests, gzip compression if accepted, and the rate limit headers of a budget kept for every
+ * authorization. Exhausted budgets are answered with '403 Forbidden' until they reset. Latency, random server errors
+ * and '403'/'429' responses can be injected, and the requests are counted by status code.
+ */
+public class MockGitHubServer implements Closeable {
+
+  public static final int DEFAULT_RATE_LIMIT = 5000;
+  public static final long DEFAULT_RATE_LIMIT_WINDOW_SECONDS = 3600;
+  public static final String SECONDARY_RATE_LIMIT_MESSAGE = "You have exceeded a secondary rate limit.";
+
+  private static final int DEFAULT_PER_PAGE = 30;
+  private static final int MAX_PER_PAGE = 100;
+  private static final int TOO_MANY_REQUESTS = 429;
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Map<String, List<Object>> datasets = new ConcurrentHashMap<>();
+  private final Map<String, Object> resources = new ConcurrentHashMap<>();
+  private final Map<String, RateLimitBudget> budgets = new ConcurrentHashMap<>();
+  private final Map<Integer, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+  private final AtomicInteger injectedFailures = new AtomicInteger();
+  private final Random random = new Random(0);
+
+  private volatile long latencyMillis;
+  private volatile double errorRate;
+  private volatile int rateLimit = DEFAULT_RATE_LIMIT;
+  private volatile long rateLimitWindowSeconds = DEFAULT_RATE_LIMIT_WINDOW_SECONDS;
+  private volatile int injectedStatusCode;
+  private volatile Long injectedRetryAfterSeconds;
+
+  private MockGitHubServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    executor = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "mock-github-server");
+      thread.setDaemon(true);
+      return thread;
+    });
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+  }
+
+  /**
+   * Starts a server on a free local port.
+   */
+  public static MockGitHubServer start() throws IOException {
+    MockGitHubServer mockServer = new MockGitHubServer();
+    mockServer.server.start();
+    return mockServer;
+  }
+
+  /**
+   * Returns the base url of the API, which is set as the hostname of the source.
+   */
+  public String getHostname() {
+    InetSocketAddress address = server.getAddress();
+    return "http://" + address.getHostString() + ":" + address.getPort();
+  }
+
+  /**
+   * Serves the given records, serialized as JSON, at the given path, e.g. '/repos/owner/repo/forks'.
+   */
+  public MockGitHubServer addDataset(String path, List<?> records) {
+    datasets.put(path, new ArrayList<>(records));
+    return this;
+  }
+
+  /**
+   * Serves the given object, serialized as JSON, at the given path, e.g. '/user'.
+   */
+  public MockGitHubServer addResource(String path, Object resource) {
+    resources.put(path, resource);
+    return this;
+  }
+
+  /**
+   * Delays every response by the given time.
+   */
+  public MockGitHubServer setLatencyMillis(long latencyMillis) {
+    this.latencyMillis = latencyMillis;
+    return this;
+  }
+
+  /**
+   * Answers the given fraction of the requests with '502 Bad Gateway', chosen with a fixed seed.
+   */
+  public MockGitHubServer setErrorRate(double errorRate) {
+    this.errorRate = errorRate;
+    return this;
+  }
+
+  /**
+   * Gives every authorization a budget of the given number of requests, which resets after the given time.
+   */
+  public MockGitHubServer setRateLimit(int rateLimit, long windowSeconds) {
+    this.rateLimit = rateLimit;
+    this.rateLimitWindowSeconds = windowSeconds;
+    budgets.clear();
+    return this;
+  }
+
+  /**
+   * Answers the next requests with the given status code, either '403 Forbidden' with the secondary rate limit
+   * message or '429 Too Many Requests', asking to retry after the given time, if not null.
+   */
+  public MockGitHubServer injectFailures(int count, int statusCode, Long retryAfterSeconds) {
+    injectedStatusCode = statusCode;
+    injectedRetryAfterSeconds = retryAfterSeconds;
+    injectedFailures.set(count);
+    return this;
+  }
+
+  /**
+   * Returns the number of requests received so far.
+   */
+  public int getRequestCount() {
+    return requestCounts.values().stream().mapToInt(AtomicInteger::get).sum();
+  }
+
+  /**
+   * Returns the number of requests answered with the given status code so far.
+   */
+  public int getRequestCount(int statusCode) {
+    AtomicInteger count = requestCounts.get(statusCode);
+    return count == null ? 0 : count.get();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Returns the given number of records generated from the records of the given recorded page, which are repeated
+   * with their 'id' replaced by the position of the generated record.
+   */
+  public static List<GenericJson> generateRecords(String resourceName, int count) throws IOException {
+    GenericJson[] recorded;
+    try (InputStream stream = MockGitHubServer.class.getClassLoader().getResourceAsStream(resourceName)) {
+      if (stream == null) {
+        throw new IOException(String.format("Recorded page '%s' is not on the classpath.", resourceName));
+      }
+      recorded = GsonFactory.getDefaultInstance().fromInputStream(stream, GenericJson[].class);
+    }
+    List<GenericJson> records = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      GenericJson record = recorded[i % recorded.length].clone();
+      if (record.containsKey("id")) {
+        record.set("id", i + 1);
+      }
+      records.add(record);
+    }
+    return records;
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      if (latencyMillis > 0) {
+        Thread.sleep(latencyMillis);
+      }
+      respond(exchange);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      exchange.sendResponseHeaders(HttpStatusCodes.STATUS_CODE_SERVICE_UNAVAILABLE, -1);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void respond(HttpExchange exchange) throws IOException {
+    Headers headers = exchange.getResponseHeaders();
+    if (injectedFailures.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+      if (injectedRetryAfterSeconds != null) {
+        headers.set(GitHubRateLimiter.RETRY_AFTER_HEADER, String.valueOf(injectedRetryAfterSeconds));
+      }
+      String message = injectedStatusCode == TOO_MANY_REQUESTS ? "Too many requests." : SECONDARY_RATE_LIMIT_MESSAGE;
+      send(exchange, injectedStatusCode, message(message));
+      return;
+    }
+    synchronized (random) {
+      if (errorRate > 0 && random.nextDouble() < errorRate) {
+        send(exchange, HttpStatusCodes.STATUS_CODE_BAD_GATEWAY, message("Server Error"));
+        return;
+      }
+    }
+
+    RateLimitBudget budget = getBudget(exchange.getRequestHeaders().getFirst("Authorization"));
+    long remaining = budget.acquire();
+    headers.set(GitHubRateLimiter.LIMIT_HEADER, String.valueOf(rateLimit));
+    headers.set(GitHubRateLimiter.REMAINING_HEADER, String.valueOf(Math.max(0, remaining)));
+    headers.set(GitHubRateLimiter.RESET_HEADER, String.valueOf(TimeUnit.MILLISECONDS.toSeconds(budget.resetMillis)));
+    if (remaining < 0) {
+      send(exchange, HttpStatusCodes.STATUS_CODE_FORBIDDEN, message("API rate limit exceeded."));
+      return;
+    }
+
+    String path = exchange.getRequestURI().getRawPath();
+    Object resource = resources.get(path);
+    if (resource != null) {
+      headers.set("Content-Type", "application/json; charset=utf-8");
+      send(exchange, HttpStatusCodes.STATUS_CODE_OK, GsonFactory.getDefaultInstance().toByteArray(resource));
+      return;
+    }
+    List<Object> records = datasets.get(path);
+    if (records == null) {
+      send(exchange, HttpStatusCodes.STATUS_CODE_NOT_FOUND, message("Not Found"));
+      return;
+    }
+    Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+    int perPage = Math.min(MAX_PER_PAGE, parseInt(query.get("per_page"), DEFAULT_PER_PAGE));
+    int page = parseInt(query.get("page"), 1);
+    int lastPage = Math.max(1, (records.size() + perPage - 1) / perPage);
+    List<Object> pageRecords = records.subList(Math.min(records.size(), (page - 1) * perPage),
+                                               Math.min(records.size(), page * perPage));
+    byte[] body = GsonFactory.getDefaultInstance().toByteArray(pageRecords);
+
+    String link = buildLink(path, query, page, lastPage);
+    if (link != null) {
+      headers.set("Link", link);
+    }
+    String eTag = "\"" + Hashing.sha256().hashBytes(body) + "\"";
+    headers.set("ETag", eTag);
+    if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+      // conditional requests answered with '304 Not Modified' do not count against the rate limit
+      budget.release();
+      headers.set(GitHubRateLimiter.REMAINING_HEADER, String.valueOf(remaining + 1));
+      count(HttpStatusCodes.STATUS_CODE_NOT_MODIFIED);
+      exchange.sendResponseHeaders(HttpStatusCodes.STATUS_CODE_NOT_MODIFIED, -1);
+      return;
+    }
+    headers.set("Content-Type", "application/json; charset=utf-8");
+    String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+    if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+      headers.set("Content-Encoding", "gzip");
+      body = gzip(body);
+    }
+    send(exchange, HttpStatusCodes.STATUS_CODE_OK, body);
+  }
+
+  /**
+   * Returns the 'Link' header of the given page, pointing to the first, previous, next and last pages as GitHub
+   * does, or null if all records fit in a single page.
+   */
+  private String buildLink(String path, Map<String, String> query, int page, int lastPage) {
+    List<String> links = new ArrayList<>();
+    if (page > 1) {
+      links.add(pageLink(path, query, page - 1, "prev"));
+    }
+    if (page < lastPage) {
+      links.add(pageLink(path, query, page + 1, "next"));
+      links.add(pageLink(path, query, lastPage, "last"));
+    }
+    if (page > 1) {
+      links.add(pageLink(path, query, 1, "first"));
+    }
+    return links.isEmpty() ? null : String.join(", ", links);
+  }
+
+  private String pageLink(String path, Map<String, String> query, int page, String rel) {
+    StringBuilder url = new StringBuilder(getHostname()).append(path).append('?');
+    for (Map.Entry<String, String> parameter : query.entrySet()) {
+      if (!parameter.getKey().equals("page")) {
+        url.append(parameter.getKey()).append('=').append(parameter.getValue()).append('&');
+      }
+    }
+    url.append("page=").append(page);
+    return String.format("<%s>; rel=\"%s\"", url, rel);
+  }
+
+  private RateLimitBudget getBudget(String authorization) {
+    return budgets.computeIfAbsent(authorization == null ? "" : authorization, key -> new RateLimitBudget());
+  }
+
+  private void send(HttpExchange exchange, int statusCode, byte[] body) throws IOException {
+    count(statusCode);
+    exchange.sendResponseHeaders(statusCode, body.length);
+    try (OutputStream output = exchange.getResponseBody()) {
+      output.write(body);
+    }
+  }
+
+  private void count(int statusCode) {
+    requestCounts.computeIfAbsent(statusCode, code -> new AtomicInteger()).incrementAndGet();
+  }
+
+  private static byte[] message(String message) throws IOException {
+    GenericJson json = new GenericJson();
+    json.set("message", message);
+    return GsonFactory.getDefaultInstance().toByteArray(json);
+  }
+
+  private static byte[] gzip(byte[] body) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream output = new GZIPOutputStream(compressed)) {
+      output.write(body);
+    }
+    return compressed.toByteArray();
+  }
+
+  private static Map<String, String> parseQuery(String rawQuery) throws IOException {
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<String, String> query = new LinkedHashMap<>();
+    for (String parameter : rawQuery.split("&")) {
+      int separator = parameter.indexOf('=');
+      String name = separator < 0 ? parameter : parameter.substring(0, separator);
+      // values are kept encoded, so that they are repeated as received in the links
+      query.put(URLDecoder.decode(name, StandardCharsets.UTF_8.name()),
+                separator < 0 ? "" : parameter.substring(separator + 1));
+    }
+    return query;
+  }
+
+  private static int parseInt(String value, int defaultValue) {
+    try {
+      return value == null ? defaultValue : Math.max(1, Integer.parseInt(value));
+    } catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Budget of requests of a single authorization within the current rate limit window.
+   */
+  private class RateLimitBudget {
+    private long used;
+    private volatile long resetMillis = getResetMillis(System.currentTimeMillis());
+
+    /**
+     * Counts a request and returns the number of requests left after it, negative if the budget is exhausted.
+     */
+    synchronized long acquire() {
+      long now = System.currentTimeMillis();
+      if (now >= resetMillis) {
+        used = 0;
+        resetMillis = getResetMillis(now);
+      }
+      return rateLimit - ++used;
+    }
+
+    synchronized void release() {
+      used--;
+    }
+
+    /**
+     * Returns the end of a window starting at the given time, rounded up to a whole second as the reset header.
+     */
+    private long getResetMillis(long startMillis) {
+      long resetMillis = startMillis + TimeUnit.SECONDS.toMillis(rateLimitWindowSeconds);
+      return TimeUnit.SECONDS.toMillis(TimeUnit.MILLISECONDS.toSeconds(resetMillis + 999));
+    }
+  }
+}
@@ -9,6 +9,7 @@ import io.cdap.plugin.github.source.common.model.impl.Content;
 import io.cdap.plugin.github.source.common.model.impl.DeployKey;
 import io.cdap.plugin.github.source.common.model.impl.Deployment;
 import io.cdap.plugin.github.source.common.model.impl.Fork;
+import io.cdap.plugin.github.source.common.model.impl.GraphQLCommit;
 import io.cdap.plugin.github.source.common.model.impl.Invitation;
 import io.cdap.plugin.github.source.common.model.impl.Page;
 import io.cdap.plugin.github.source.common.model.impl.Release;
@@ -42,6 +43,7 @@ public class SchemaBuilderTest {
       {DeployKey.class},
       {Deployment.class},
       {Fork.class},
+      {GraphQLCommit.class},
       {Invitation.class},
       {Page.class},
       {Release.class},
@@ -67,4 +69,44 @@ public class SchemaBuilderTest {
     Assert.assertNotNull(schema.getFields());
     Assert.assertEquals(schema.getFields().size(), fieldsCount);
   }
+
+  @Test
+  public void testGetSchemaCaseShared() {
+    //when
+    Schema schema = SchemaBuilder.getSchema(clazz.getSimpleName(), clazz);
+
+    //then
+    Assert.assertSame(schema, SchemaBuilder.getSchema(clazz.getSimpleName(), clazz));
+    Assert.assertEquals(SchemaBuilder.buildSchema(clazz.getSimpleName(), clazz), schema);
+  }
+
+  @Test
+  public void testGetSchemaCaseSourceRepository() {
+    //when
+    Schema schema = SchemaBuilder.getSchema(clazz.getSimpleName(), clazz, null, true);
+
+    //then
+    Assert.assertSame(schema, SchemaBuilder.getSchema(clazz.getSimpleName(), clazz, null, true));
+    Assert.assertEquals(SchemaBuilder.addSourceRepository(SchemaBuilder.buildSchema(clazz.getSimpleName(), clazz)),
+                        schema);
+    Assert.assertNull(SchemaBuilder.getSchema(clazz.getSimpleName(), clazz)
+                        .getField(SchemaBuilder.SOURCE_REPOSITORY_FIELD));
+  }
+
+  @Test
+  public void testGetSchemaCaseSelectedFields() {
+    //given
+    Schema fullSchema = SchemaBuilder.buildSchema(clazz.getSimpleName(), clazz);
+    String lastField = fullSchema.getFields().get(fullSchema.getFields().size() - 1).getName();
+    String firstField = fullSchema.getFields().get(0).getName();
+
+    //when
+    Schema schema = SchemaBuilder.getSchema(clazz.getSimpleName(), clazz, Arrays.asList(lastField, firstField));
+
+    //then
+    Assert.assertEquals(fullSchema.getRecordName(), schema.getRecordName());
+    Assert.assertEquals(fullSchema.getFields().size() == 1 ? 1 : 2, schema.getFields().size());
+    Assert.assertEquals(firstField, schema.getFields().get(0).getName());
+    Assert.assertEquals(fullSchema.getField(lastField).getSchema(), schema.getField(lastField).getSchema());
+  }
 }
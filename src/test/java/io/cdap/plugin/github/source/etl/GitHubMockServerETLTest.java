@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.plugin.github.source.etl;
+
+import io.cdap.cdap.api.artifact.ArtifactSummary;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.dataset.table.Table;
+import io.cdap.cdap.datapipeline.DataPipelineApp;
+import io.cdap.cdap.datapipeline.SmartWorkflow;
+import io.cdap.cdap.etl.api.batch.BatchSource;
+import io.cdap.cdap.etl.mock.batch.MockSink;
+import io.cdap.cdap.etl.mock.test.HydratorTestBase;
+import io.cdap.cdap.etl.proto.v2.ETLBatchConfig;
+import io.cdap.cdap.etl.proto.v2.ETLPlugin;
+import io.cdap.cdap.etl.proto.v2.ETLStage;
+import io.cdap.cdap.proto.ProgramRunStatus;
+import io.cdap.cdap.proto.artifact.AppRequest;
+import io.cdap.cdap.proto.id.ApplicationId;
+import io.cdap.cdap.proto.id.ArtifactId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.test.ApplicationManager;
+import io.cdap.cdap.test.DataSetManager;
+import io.cdap.cdap.test.WorkflowManager;
+import io.cdap.plugin.github.source.batch.GithubBatchSource;
+import io.cdap.plugin.github.source.common.MockGitHubServer;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs pipelines reading from a {@link MockGitHubServer} under throttling, measuring the records read per second
+ * and the requests made by the source.
+ */
+public class GitHubMockServerETLTest extends HydratorTestBase {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GitHubMockServerETLTest.class);
+  private static final ArtifactSummary APP_ARTIFACT = new ArtifactSummary("data-pipeline", "3.2.0");
+  private static final int RECORDS_COUNT = 10000;
+
+  private static MockGitHubServer server;
+
+  @BeforeClass
+  public static void setupTestClass() throws Exception {
+    server = MockGitHubServer.start()
+      .addDataset("/repos/owner/repo/forks", MockGitHubServer.generateRecords("forks.json", RECORDS_COUNT));
+
+    ArtifactId parentArtifact = NamespaceId.DEFAULT.artifact(APP_ARTIFACT.getName(), APP_ARTIFACT.getVersion());
+    setupBatchArtifacts(parentArtifact, DataPipelineApp.class);
+    addPluginArtifact(NamespaceId.DEFAULT.artifact("example-plugins", "1.0.0"),
+                      parentArtifact, GithubBatchSource.class);
+  }
+
+  @AfterClass
+  public static void tearDownTestClass() {
+    server.close();
+  }
+
+  @Test
+  public void testReadCaseLatency() throws Exception {
+    //given
+    server.setLatencyMillis(50);
+
+    //when
+    List<StructuredRecord> records = runPipeline("latency", getSourceConfigs("latency-token"));
+
+    //then
+    Assert.assertEquals(RECORDS_COUNT, records.size());
+  }
+
+  @Test
+  public void testReadCaseThrottled() throws Exception {
+    //given
+    server.setLatencyMillis(20).setErrorRate(0.05).setRateLimit(30, 5)
+      .injectFailures(5, 429, 1L);
+
+    //when
+    List<StructuredRecord> records = runPipeline("throttled", getSourceConfigs("throttled-token"));
+
+    //then
+    Assert.assertEquals(RECORDS_COUNT, records.size());
+  }
+
+  private List<StructuredRecord> runPipeline(String name, Map<String, String> sourceProps) throws Exception {
+    ETLStage source = new ETLStage("GitHubMockServerETLTest", new ETLPlugin(GithubBatchSource.NAME,
+                                                                           BatchSource.PLUGIN_TYPE, sourceProps, null));
+    String outputDatasetName = "output-github-mock-" + name;
+    ETLStage sink = new ETLStage("sink", MockSink.getPlugin(outputDatasetName));
+
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder()
+      .addStage(source)
+      .addStage(sink)
+      .addConnection(source.getName(), sink.getName())
+      .build();
+
+    ApplicationId pipelineId = NamespaceId.DEFAULT.app("GitHubMockServer-" + name);
+    ApplicationManager appManager = deployApplication(pipelineId, new AppRequest<>(APP_ARTIFACT, etlConfig));
+
+    int requestsBefore = server.getRequestCount();
+    long start = System.nanoTime();
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.startAndWaitForRun(ProgramRunStatus.COMPLETED, 5, TimeUnit.MINUTES);
+    long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+    DataSetManager<Table> dataset = getDataset(outputDatasetName);
+    List<StructuredRecord> outputRecords = MockSink.readOutput(dataset);
+    LOG.info("Pipeline '{}' read {} records in {} ms ({} records/s) with {} requests.", name,
+             outputRecords.size(), elapsedMillis, outputRecords.size() * 1000L / elapsedMillis,
+             server.getRequestCount() - requestsBefore);
+    return outputRecords;
+  }
+
+  private Map<String, String> getSourceConfigs(String token) {
+    Map<String, String> sourceProps = new HashMap<>();
+    sourceProps.put("referenceName", "ref");
+    sourceProps.put("authorizationToken", token);
+    sourceProps.put("repoOwner", "owner");
+    sourceProps.put("repoName", "repo");
+    sourceProps.put("datasetName", "Forks");
+    sourceProps.put("hostname", server.getHostname());
+    sourceProps.put("pagesPerSplit", "10");
+    sourceProps.put("maxAttempts", "10");
+    sourceProps.put("baseRetryDelay", "0");
+    return sourceProps;
+  }
+}